@@ -0,0 +1,77 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.util.FileUtil;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Transport rows in the TransportRepository.forEachExportRow layout, drawn from a seeded Random so
+// every run writes the same files. Driver and client names match the staff BenchmarkDatabase creates.
+public final class BenchmarkData {
+
+    public static final int DRIVERS = 50;
+    public static final int VEHICLES = 30;
+    public static final int CLIENTS = 200;
+
+    private static final String[] CITIES = {
+            "Sofia", "Plovdiv", "Varna", "Burgas", "Ruse", "Stara Zagora", "Pleven", "Sliven", "Dobrich",
+            "Shumen", "Pernik", "Haskovo", "Yambol", "Pazardzhik", "Blagoevgrad", "Veliko Tarnovo"
+    };
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    private BenchmarkData() {}
+
+    // vehiclePrefix null leaves the vehicle empty
+    public static Object[] exportRow(long id, Random random, String vehiclePrefix) {
+        // Squaring the uniform draw favours the first cities and the most recent days
+        String start = CITIES[(int) (CITIES.length * Math.pow(random.nextDouble(), 2))];
+        String end = CITIES[(int) (CITIES.length * Math.pow(random.nextDouble(), 2))];
+        LocalDate departure = FIRST_DAY.plusDays(730 - (int) (730 * Math.pow(random.nextDouble(), 2)));
+        boolean passengers = random.nextInt(4) == 0;
+        int driver = random.nextInt(DRIVERS);
+        return new Object[] {
+                id, start, end, departure, departure.plusDays(random.nextInt(3)),
+                passengers ? TransportType.PASSENGERS : TransportType.GOODS,
+                passengers ? null : "Pallets",
+                passengers ? null : 500.0 + random.nextInt(20_000),
+                passengers ? 1 + random.nextInt(50) : null,
+                BigDecimal.valueOf(5_000 + random.nextInt(500_000), 2),
+                random.nextInt(10) < 7,
+                "Driver", String.valueOf(driver),
+                vehiclePrefix != null ? vehiclePrefix + random.nextInt(VEHICLES) : null,
+                "Client " + random.nextInt(CLIENTS)
+        };
+    }
+
+    public static List<Object[]> exportRows(int rows, long seed, String vehiclePrefix) {
+        Random random = new Random(seed);
+        List<Object[]> result = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            result.add(exportRow(i, random, vehiclePrefix));
+        }
+        return result;
+    }
+
+    public static void writeCsv(Path file, int rows, long seed, String vehiclePrefix) throws IOException {
+        Random random = new Random(seed);
+        try (FileUtil.TransportCsvWriter writer = FileUtil.openTransportCsvWriter(file.toString())) {
+            for (int i = 1; i <= rows; i++) {
+                writer.write(exportRow(i, random, vehiclePrefix));
+            }
+        }
+    }
+
+    public static void writeJson(Path file, int rows, long seed, String vehiclePrefix) throws IOException {
+        Random random = new Random(seed);
+        try (FileUtil.TransportJsonWriter writer = FileUtil.openTransportJsonWriter(file.toString(), false)) {
+            for (int i = 1; i <= rows; i++) {
+                writer.write(FileUtil.TransportDTO.fromRow(exportRow(i, random, vehiclePrefix)));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.VehicleType;
+import com.transportcompany.service.ClientService;
+import com.transportcompany.service.DataGenerator;
+import com.transportcompany.service.EmployeeService;
+import com.transportcompany.service.TransportCompanyService;
+import com.transportcompany.service.TransportService;
+import com.transportcompany.service.VehicleService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Optional;
+
+// Embedded PostgreSQL for the benchmarks. Its data directory, target/benchmark-db, survives JMH forks
+// and runs, so each seeded company is built once. start() has to run before anything touches
+// HibernateUtil, which reads the connection settings from system properties when it loads.
+public final class BenchmarkDatabase {
+
+    private static final Path DATA_DIRECTORY = Path.of("target", "benchmark-db");
+
+    private static EmbeddedPostgres postgres;
+
+    private BenchmarkDatabase() {}
+
+    public static synchronized void start() {
+        if (postgres != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(DATA_DIRECTORY);
+            postgres = EmbeddedPostgres.builder()
+                    .setDataDirectory(DATA_DIRECTORY)
+                    .setCleanDataDirectory(false)
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+        }
+        System.setProperty("hibernate.connection.url", postgres.getJdbcUrl("postgres", "postgres"));
+        System.setProperty("hibernate.connection.username", "postgres");
+        System.setProperty("hibernate.connection.password", "");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                postgres.close();
+            } catch (IOException ignored) {
+                // The process is exiting anyway
+            }
+        }));
+    }
+
+    // Id of the company "benchmark-<transports>", generated by DataGenerator with the row count as its seed
+    // the first time. A company left incomplete by an interrupted seed is dropped and generated again.
+    public static long seededCompany(int transports) {
+        start();
+        String name = "benchmark-" + transports;
+        TransportCompanyService companyService = new TransportCompanyService();
+        TransportService transportService = new TransportService();
+        Optional<TransportCompany> existing = companyService.findByName(name);
+        if (existing.isPresent()) {
+            if (transportService.countByCompany(existing.get().getId()) == transports) {
+                return existing.get().getId();
+            }
+            companyService.delete(existing.get().getId());
+        }
+
+        DataGenerator.Config config = new DataGenerator.Config();
+        config.seed = transports;
+        config.namePrefix = name;
+        config.employeesPerCompany = BenchmarkData.DRIVERS;
+        config.vehiclesPerType = BenchmarkData.VEHICLES / VehicleType.values().length;
+        config.clientsPerCompany = BenchmarkData.CLIENTS;
+        config.transportsPerCompany = transports;
+        return new DataGenerator().generate(config, loaded -> {}).companyIds.get(0);
+    }
+
+    // A company with the drivers and clients BenchmarkData rows name; vehicles only if vehiclePrefix is
+    // set, since registration numbers are unique across companies
+    public static long createCompany(String name, String vehiclePrefix) {
+        start();
+        long companyId = new TransportCompanyService().create(name, "Benchmark Street 1").getId();
+        EmployeeService employeeService = new EmployeeService();
+        for (int i = 0; i < BenchmarkData.DRIVERS; i++) {
+            employeeService.create(companyId, "Driver", String.valueOf(i), new BigDecimal("2500.00"),
+                    i % 3 == 0
+                            ? EnumSet.of(DriverQualification.STANDARD, DriverQualification.PASSENGER_TRANSPORT)
+                            : EnumSet.of(DriverQualification.STANDARD, DriverQualification.HEAVY_CARGO));
+        }
+        if (vehiclePrefix != null) {
+            VehicleService vehicleService = new VehicleService();
+            VehicleType[] types = VehicleType.values();
+            for (int i = 0; i < BenchmarkData.VEHICLES; i++) {
+                vehicleService.create(companyId, vehiclePrefix + i, types[i % types.length], "Benchmark",
+                        "Model " + i, 2020, 40);
+            }
+        }
+        ClientService clientService = new ClientService();
+        for (int i = 0; i < BenchmarkData.CLIENTS; i++) {
+            clientService.create(companyId, "Client " + i, null, null, null);
+        }
+        return companyId;
+    }
+}
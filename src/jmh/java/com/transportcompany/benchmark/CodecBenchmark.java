@@ -0,0 +1,87 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.util.FileUtil;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FileUtil JSON and CSV codecs without a database: one operation writes or reads a whole file
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private List<Object[]> exportRows;
+    private Path directory;
+    private Path jsonInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        exportRows = BenchmarkData.exportRows(rows, rows, "CB-");
+        directory = Files.createTempDirectory("codec-benchmark");
+        jsonInput = directory.resolve("input.json");
+        BenchmarkData.writeJson(jsonInput, rows, rows, "CB-");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public void writeJson() throws IOException {
+        try (FileUtil.TransportJsonWriter writer =
+                     FileUtil.openTransportJsonWriter(directory.resolve("out.json").toString(), false)) {
+            for (Object[] row : exportRows) {
+                writer.write(FileUtil.TransportDTO.fromRow(row));
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeJsonGzip() throws IOException {
+        try (FileUtil.TransportJsonWriter writer =
+                     FileUtil.openTransportJsonWriter(directory.resolve("out.json.gz").toString(), false)) {
+            for (Object[] row : exportRows) {
+                writer.write(FileUtil.TransportDTO.fromRow(row));
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeCsv() throws IOException {
+        try (FileUtil.TransportCsvWriter writer =
+                     FileUtil.openTransportCsvWriter(directory.resolve("out.csv").toString())) {
+            for (Object[] row : exportRows) {
+                writer.write(row);
+            }
+        }
+    }
+
+    // Parses every element and its dates, as the JSON import does before validation
+    @Benchmark
+    public long readJson() throws IOException {
+        long days = 0;
+        try (FileUtil.TransportJsonReader reader = FileUtil.openTransportJsonReader(jsonInput.toString())) {
+            FileUtil.TransportDTO dto;
+            while ((dto = reader.next()) != null) {
+                days += dto.getParsedArrivalDate().toEpochDay() - dto.getParsedDepartureDate().toEpochDay();
+            }
+        }
+        return days;
+    }
+}
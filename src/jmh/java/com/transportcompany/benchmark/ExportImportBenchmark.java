@@ -0,0 +1,93 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.service.TransportCompanyService;
+import com.transportcompany.service.TransportService;
+import com.transportcompany.util.FileUtil;
+import org.openjdk.jmh.annotations.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// TransportService export and import paths end to end against the embedded database. Exports read the
+// seeded company; each import runs into a fresh company that is dropped afterwards.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportImportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private final TransportService transportService = new TransportService();
+    private long companyId;
+    private Path directory;
+    private Path jsonInput;
+    private Path csvInput;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        companyId = BenchmarkDatabase.seededCompany(rows);
+        directory = Files.createTempDirectory("export-import-benchmark");
+        jsonInput = directory.resolve("input.json");
+        csvInput = directory.resolve("input.csv");
+        BenchmarkData.writeJson(jsonInput, rows, rows, null);
+        BenchmarkData.writeCsv(csvInput, rows, rows, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @State(Scope.Thread)
+    public static class ImportTarget {
+        long companyId;
+
+        @Setup(Level.Invocation)
+        public void create() {
+            companyId = BenchmarkDatabase.createCompany("benchmark-import-" + System.nanoTime(), null);
+        }
+
+        @TearDown(Level.Invocation)
+        public void drop() {
+            new TransportCompanyService().delete(companyId);
+        }
+    }
+
+    @Benchmark
+    public long exportJson() throws IOException {
+        try (FileUtil.TransportJsonWriter writer =
+                     FileUtil.openTransportJsonWriter(directory.resolve("export.json").toString(), false)) {
+            return transportService.forEachExportRow(companyId, writer::write);
+        }
+    }
+
+    @Benchmark
+    public long exportCsv() throws IOException {
+        try (FileUtil.TransportCsvWriter writer =
+                     FileUtil.openTransportCsvWriter(directory.resolve("export.csv").toString())) {
+            return transportService.forEachExportRow(companyId, new TransportRepository.ExportFilter(), writer::write);
+        }
+    }
+
+    @Benchmark
+    public long importJson(ImportTarget target) throws IOException {
+        return transportService.importFromJson(target.companyId, jsonInput.toString(), row -> {}).imported;
+    }
+
+    @Benchmark
+    public long importCsv(ImportTarget target) throws IOException {
+        return transportService.bulkImportCsv(target.companyId, csvInput.toString(),
+                directory.resolve("rejected.csv").toString()).imported;
+    }
+}
@@ -0,0 +1,62 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ReportService against a seeded company. Run with -Djmh.args="-jvmArgsAppend -Dtransport.analytics=true"
+// to measure the column store instead of the SQL aggregations.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private final ReportService reportService = new ReportService();
+    private long companyId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        companyId = BenchmarkDatabase.seededCompany(rows);
+    }
+
+    @Benchmark
+    public BigDecimal totalRevenue() {
+        return reportService.getTotalRevenue(companyId);
+    }
+
+    @Benchmark
+    public BigDecimal revenueForQuarter() {
+        return reportService.getRevenueForPeriod(companyId, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 3, 31));
+    }
+
+    @Benchmark
+    public List<ReportService.DriverReport> driverStatistics() {
+        return reportService.getDriverStatistics(companyId);
+    }
+
+    @Benchmark
+    public ReportService.CompanySummary companySummary() {
+        return reportService.getCompanySummary(companyId);
+    }
+
+    @Benchmark
+    public List<ReportService.BreakdownRow> breakdownByDestination() {
+        return reportService.getBreakdown(companyId, TransportRepository.GroupBy.DESTINATION,
+                new TransportRepository.ReportFilter());
+    }
+
+    @Benchmark
+    public String textReport() {
+        return reportService.generateTextReport(companyId);
+    }
+}
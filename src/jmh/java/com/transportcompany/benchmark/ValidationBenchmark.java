@@ -0,0 +1,70 @@
+package com.transportcompany.benchmark;
+
+import com.transportcompany.entity.Client;
+import com.transportcompany.entity.Employee;
+import com.transportcompany.entity.Transport;
+import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.entity.Vehicle;
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.enums.VehicleType;
+import com.transportcompany.validation.ValidationUtil;
+import org.openjdk.jmh.annotations.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+// ValidationUtil.validate on one valid entity of each kind, the per-row cost of create and import
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private Transport transport;
+    private Employee employee;
+    private Vehicle vehicle;
+    private Client client;
+    private TransportCompany company;
+
+    @Setup
+    public void setUp() {
+        transport = new Transport("Sofia", "Varna", LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 2),
+                TransportType.GOODS, new BigDecimal("1250.00"));
+        transport.setCargoDescription("Pallets");
+        transport.setCargoWeight(8000.0);
+        employee = new Employee("Ivan", "Petrov", new BigDecimal("2500.00"));
+        employee.setQualifications(EnumSet.of(DriverQualification.STANDARD, DriverQualification.HEAVY_CARGO));
+        vehicle = new Vehicle("CA1234AB", VehicleType.TRUCK, "Volvo", "FH16", 2021);
+        client = new Client("Acme", "Maria Ivanova", "+359888123456", "office@acme.bg");
+        company = new TransportCompany("Benchmark Transport", "Sofia");
+    }
+
+    @Benchmark
+    public void validateTransport() {
+        ValidationUtil.validate(transport);
+    }
+
+    @Benchmark
+    public void validateEmployee() {
+        ValidationUtil.validate(employee);
+    }
+
+    @Benchmark
+    public void validateVehicle() {
+        ValidationUtil.validate(vehicle);
+    }
+
+    @Benchmark
+    public void validateClient() {
+        ValidationUtil.validate(client);
+    }
+
+    @Benchmark
+    public void validateCompany() {
+        ValidationUtil.validate(company);
+    }
+}
@@ -1,6 +1,7 @@
 package com.transportcompany;
 
 import com.transportcompany.cli.*;
+import com.transportcompany.repository.RepositoryMetrics;
 import com.transportcompany.util.HibernateUtil;
 
 import java.util.Scanner;
@@ -29,6 +30,7 @@ public class Main {
             // Initialize database
             HibernateUtil.getSessionFactory();
             System.out.println("Database connected successfully.\n");
+            RepositoryMetrics.getInstance().startFileDump();
 
             boolean running = true;
             while (running) {
@@ -40,6 +42,7 @@ public class Main {
                 }
             }
         } finally {
+            RepositoryMetrics.getInstance().stopFileDump();
             HibernateUtil.shutdown();
             scanner.close();
             System.out.println("Goodbye!");
@@ -1,8 +1,12 @@
 package com.transportcompany.cli;
 
 import com.transportcompany.entity.Client;
+import com.transportcompany.repository.Page;
+import com.transportcompany.repository.PageCursor;
+import com.transportcompany.service.ClientService;
 import com.transportcompany.validation.ValidationException;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,7 @@ public class ClientMenuHandler {
             System.out.println("3. Edit client");
             System.out.println("4. Delete client");
             System.out.println("5. Show clients with unpaid transports");
+            System.out.println("6. Settle client account");
             System.out.println("0. Back");
             System.out.print("Choice: ");
 
@@ -32,6 +37,7 @@ public class ClientMenuHandler {
                 case 3 -> editClient();
                 case 4 -> deleteClient();
                 case 5 -> showClientsWithUnpaid();
+                case 6 -> settleClient();
                 case 0 -> { return; }
                 default -> System.out.println("Invalid choice.");
             }
@@ -59,8 +65,13 @@ public class ClientMenuHandler {
     }
 
     private void listClients() {
-        List<Client> clients = ctx.getClientService().findByCompanyId(ctx.getCurrentCompanyId());
-        printClientList(clients);
+        PageCursor cursor = null;
+        do {
+            Page<Client> page = ctx.getClientService().findPageByCompanyId(
+                    ctx.getCurrentCompanyId(), cursor, MenuContext.PAGE_SIZE);
+            printClientList(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && ctx.getInput().confirm("Show next page?"));
     }
 
     public void printClientList(List<Client> clients) {
@@ -132,4 +143,27 @@ public class ClientMenuHandler {
             printClientList(clients);
         }
     }
+
+    private void settleClient() {
+        showClientsWithUnpaid();
+        System.out.print("Enter client ID to settle: ");
+        Long id = ctx.getInput().readLong();
+
+        LocalDate startDate = null;
+        LocalDate endDate = null;
+        if (ctx.getInput().confirm("Limit to a date range?")) {
+            System.out.print("Start date (yyyy-MM-dd): ");
+            startDate = ctx.getInput().readDate();
+            System.out.print("End date (yyyy-MM-dd): ");
+            endDate = ctx.getInput().readDate();
+        }
+
+        ClientService.Settlement settlement = ctx.getClientService().settleClient(id, startDate, endDate);
+        if (settlement.transportCount == 0) {
+            System.out.println("No unpaid transports to settle.");
+        } else {
+            System.out.printf("Settled %d transports for %.2f. Revenue updated.%n",
+                    settlement.transportCount, settlement.amount);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.transportcompany.cli;
 
 import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.service.DataGenerator;
 import com.transportcompany.validation.ValidationException;
 
 import java.util.List;
@@ -9,9 +10,11 @@ import java.util.Optional;
 public class CompanyMenuHandler {
 
     private final MenuContext ctx;
+    private final DiagnosticsMenuHandler diagnosticsHandler;
 
     public CompanyMenuHandler(MenuContext ctx) {
         this.ctx = ctx;
+        this.diagnosticsHandler = new DiagnosticsMenuHandler(ctx);
     }
 
     public boolean showMainMenu() {
@@ -20,6 +23,8 @@ public class CompanyMenuHandler {
         System.out.println("2. Select company");
         System.out.println("3. List all companies");
         System.out.println("4. Delete company");
+        System.out.println("5. Generate test data");
+        System.out.println("6. Diagnostics");
         System.out.println("0. Exit");
         System.out.print("Choice: ");
 
@@ -29,6 +34,8 @@ public class CompanyMenuHandler {
             case 2 -> selectCompany();
             case 3 -> listCompanies();
             case 4 -> deleteCompany();
+            case 5 -> generateTestData();
+            case 6 -> diagnosticsHandler.showMenu();
             case 0 -> { return false; }
             default -> System.out.println("Invalid choice.");
         }
@@ -95,6 +102,53 @@ public class CompanyMenuHandler {
         }
     }
 
+    public void generateTestData() {
+        System.out.println("\n--- Generate Test Data ---");
+        DataGenerator.Config config = new DataGenerator.Config();
+        System.out.println("Press Enter to keep a default.");
+        System.out.print("Seed [" + config.seed + "]: ");
+        Integer seed = ctx.getInput().readIntOrNull();
+        if (seed != null) config.seed = seed;
+        System.out.print("Companies [" + config.companies + "]: ");
+        Integer companies = ctx.getInput().readIntOrNull();
+        if (companies != null) config.companies = companies;
+        System.out.print("Employees per company [" + config.employeesPerCompany + "]: ");
+        Integer employees = ctx.getInput().readIntOrNull();
+        if (employees != null) config.employeesPerCompany = employees;
+        System.out.print("Vehicles of each type per company [" + config.vehiclesPerType + "]: ");
+        Integer vehicles = ctx.getInput().readIntOrNull();
+        if (vehicles != null) config.vehiclesPerType = vehicles;
+        System.out.print("Clients per company [" + config.clientsPerCompany + "]: ");
+        Integer clients = ctx.getInput().readIntOrNull();
+        if (clients != null) config.clientsPerCompany = clients;
+        System.out.print("Transports per company [" + config.transportsPerCompany + "]: ");
+        Integer transports = ctx.getInput().readIntOrNull();
+        if (transports != null) config.transportsPerCompany = transports;
+        System.out.print("Threads [" + config.threads + "]: ");
+        Integer threads = ctx.getInput().readIntOrNull();
+        if (threads != null) config.threads = threads;
+        System.out.print("Company name [" + config.namePrefix + " " + config.seed + "]: ");
+        String name = ctx.getInput().readLine();
+        config.namePrefix = name.isBlank() ? config.namePrefix + " " + config.seed : name.trim();
+
+        if (config.companies < 1 || config.employeesPerCompany < 3 || config.vehiclesPerType < 1
+                || config.clientsPerCompany < 0 || config.transportsPerCompany < 0 || config.threads < 1) {
+            System.out.println("Error: need at least one company, three employees, one vehicle of each type " +
+                    "and one thread.");
+            return;
+        }
+        try {
+            long total = config.companies * config.transportsPerCompany;
+            DataGenerator.Result result = ctx.getDataGenerator().generate(config,
+                    loaded -> System.out.printf("  %,d / %,d transports%n", loaded, total));
+            System.out.printf("Generated %d companies with %,d transports (%,d rejected) in %.1f s. IDs: %s%n",
+                    result.companyIds.size(), result.transports, result.rejected, result.millis / 1000.0,
+                    result.companyIds);
+        } catch (RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     public void editCompany() {
         System.out.println("\n--- Edit Company ---");
         TransportCompany current = ctx.getCurrentCompany();
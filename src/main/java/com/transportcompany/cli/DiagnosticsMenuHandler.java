@@ -0,0 +1,85 @@
+package com.transportcompany.cli;
+
+import com.transportcompany.repository.RepositoryMetrics;
+import com.transportcompany.util.HibernateUtil;
+import com.transportcompany.util.PooledConnectionProvider;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class DiagnosticsMenuHandler {
+
+    private final MenuContext ctx;
+
+    public DiagnosticsMenuHandler(MenuContext ctx) {
+        this.ctx = ctx;
+    }
+
+    public void showMenu() {
+        while (true) {
+            System.out.println("\n--- Diagnostics ---");
+            System.out.println("1. Repository metrics");
+            System.out.println("2. Connection pool and cache");
+            System.out.println("3. Write metrics file");
+            System.out.println("4. Reset repository metrics");
+            System.out.println("0. Back");
+            System.out.print("Choice: ");
+
+            int choice = ctx.getInput().readInt();
+            switch (choice) {
+                case 1 -> showRepositoryMetrics();
+                case 2 -> showPoolAndCache();
+                case 3 -> writeMetricsFile();
+                case 4 -> resetRepositoryMetrics();
+                case 0 -> { return; }
+                default -> System.out.println("Invalid choice.");
+            }
+        }
+    }
+
+    private void showRepositoryMetrics() {
+        List<RepositoryMetrics.Snapshot> snapshots = RepositoryMetrics.getInstance().snapshot();
+        if (snapshots.isEmpty()) {
+            System.out.println("No repository calls recorded yet.");
+            return;
+        }
+
+        // Percentiles are bucket upper bounds, so they overstate latency by up to one bucket
+        System.out.printf("%-55s %8s %6s %10s %9s %9s %9s %9s %9s%n",
+                "Operation", "Calls", "Errors", "Rows", "Mean ms", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        System.out.println("-".repeat(132));
+        for (RepositoryMetrics.Snapshot s : snapshots) {
+            System.out.printf("%-55s %8d %6d %10d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    s.operation, s.calls, s.errors, s.rows, s.meanMillis(), s.percentileMillis(50),
+                    s.percentileMillis(95), s.percentileMillis(99), s.maxNanos / 1e6);
+        }
+    }
+
+    private void showPoolAndCache() {
+        PooledConnectionProvider.PoolStats pool = HibernateUtil.getPoolStats();
+        System.out.println("\nConnection pool: " + (pool != null ? pool : "not in use"));
+        System.out.println("\nSecond-level cache:");
+        System.out.print(HibernateUtil.describeCacheStatistics());
+    }
+
+    private void writeMetricsFile() {
+        String defaultFile = System.getProperty("transport.metrics.file", "metrics.prom");
+        System.out.print("File [" + defaultFile + "]: ");
+        String file = ctx.getInput().readLine();
+        Path path = Path.of(file.isBlank() ? defaultFile : file.trim());
+        try {
+            RepositoryMetrics.getInstance().writePrometheusFile(path);
+            System.out.println("Metrics written to " + path.toAbsolutePath());
+        } catch (IOException e) {
+            System.out.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    private void resetRepositoryMetrics() {
+        if (ctx.getInput().confirm("Reset all repository metrics?")) {
+            RepositoryMetrics.getInstance().reset();
+            System.out.println("Repository metrics reset.");
+        }
+    }
+}
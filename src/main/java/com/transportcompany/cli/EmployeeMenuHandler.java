@@ -2,6 +2,8 @@ package com.transportcompany.cli;
 
 import com.transportcompany.entity.Employee;
 import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.repository.Page;
+import com.transportcompany.repository.PageCursor;
 import com.transportcompany.validation.ValidationException;
 
 import java.math.BigDecimal;
@@ -94,16 +96,22 @@ public class EmployeeMenuHandler {
         System.out.println("\nSort by: 1. Name | 2. Salary (asc) | 3. Salary (desc)");
         int sortChoice = ctx.getInput().readInt();
 
-        List<Employee> employees;
-        if (sortChoice == 2) {
-            employees = ctx.getEmployeeService().findByCompanyIdSortedBySalary(ctx.getCurrentCompanyId(), true);
-        } else if (sortChoice == 3) {
-            employees = ctx.getEmployeeService().findByCompanyIdSortedBySalary(ctx.getCurrentCompanyId(), false);
-        } else {
-            employees = ctx.getEmployeeService().findByCompanyId(ctx.getCurrentCompanyId());
-        }
-
-        printEmployeeList(employees);
+        PageCursor cursor = null;
+        do {
+            Page<Employee> page;
+            if (sortChoice == 2) {
+                page = ctx.getEmployeeService().findPageByCompanyIdSortedBySalary(
+                        ctx.getCurrentCompanyId(), true, cursor, MenuContext.PAGE_SIZE);
+            } else if (sortChoice == 3) {
+                page = ctx.getEmployeeService().findPageByCompanyIdSortedBySalary(
+                        ctx.getCurrentCompanyId(), false, cursor, MenuContext.PAGE_SIZE);
+            } else {
+                page = ctx.getEmployeeService().findPageByCompanyId(
+                        ctx.getCurrentCompanyId(), cursor, MenuContext.PAGE_SIZE);
+            }
+            printEmployeeList(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && ctx.getInput().confirm("Show next page?"));
     }
 
     public void printEmployeeList(List<Employee> employees) {
@@ -170,17 +178,18 @@ public class EmployeeMenuHandler {
     }
 
     private void filterByQualification() {
-        System.out.println("Select qualification:");
-        DriverQualification[] quals = DriverQualification.values();
-        for (int i = 0; i < quals.length; i++) {
-            System.out.println((i + 1) + ". " + quals[i].getDisplayName());
+        Set<DriverQualification> selected = selectQualifications();
+        if (selected.isEmpty()) {
+            return;
         }
-        int choice = ctx.getInput().readInt();
-        if (choice > 0 && choice <= quals.length) {
-            List<Employee> employees = ctx.getEmployeeService().findByQualification(
-                    ctx.getCurrentCompanyId(), quals[choice - 1]);
-            printEmployeeList(employees);
+
+        List<Employee> employees;
+        if (selected.size() > 1 && ctx.getInput().confirm("Require all selected qualifications?")) {
+            employees = ctx.getEmployeeService().findByAllQualifications(ctx.getCurrentCompanyId(), selected);
+        } else {
+            employees = ctx.getEmployeeService().findByAnyQualification(ctx.getCurrentCompanyId(), selected);
         }
+        printEmployeeList(employees);
     }
 
     private void filterBySalary() {
@@ -1,10 +1,11 @@
 package com.transportcompany.cli;
 
-import com.transportcompany.entity.Transport;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.service.TransportService;
 import com.transportcompany.util.FileUtil;
 
 import java.io.IOException;
-import java.util.List;
 
 public class ExportImportHandler {
 
@@ -20,6 +21,7 @@ public class ExportImportHandler {
             System.out.println("1. Export transports to JSON");
             System.out.println("2. Export transports to CSV");
             System.out.println("3. Import transports from JSON");
+            System.out.println("4. Bulk import transports from CSV");
             System.out.println("0. Back");
             System.out.print("Choice: ");
 
@@ -28,6 +30,7 @@ public class ExportImportHandler {
                 case 1 -> exportToJson();
                 case 2 -> exportToCsv();
                 case 3 -> importFromJson();
+                case 4 -> bulkImportFromCsv();
                 case 0 -> { return; }
                 default -> System.out.println("Invalid choice.");
             }
@@ -35,27 +38,40 @@ public class ExportImportHandler {
     }
 
     private void exportToJson() {
-        List<Transport> transports = ctx.getTransportService().findByCompanyId(ctx.getCurrentCompanyId());
-        System.out.print("Enter file path (e.g., transports.json): ");
+        System.out.print("Enter file path (e.g., transports.json, or transports.json.gz to compress): ");
         String path = ctx.getInput().readLine();
+        boolean compact = ctx.getInput().confirm("Compact output?");
 
-        try {
-            FileUtil.exportTransportsToJson(transports, path);
-            System.out.println("Exported " + transports.size() + " transports to " + path);
-        } catch (IOException e) {
+        try (FileUtil.TransportJsonWriter writer = FileUtil.openTransportJsonWriter(path, !compact)) {
+            long count = ctx.getTransportService().forEachExportRow(ctx.getCurrentCompanyId(), writer::write);
+            System.out.println("Exported " + count + " transports to " + path);
+        } catch (IOException | RuntimeException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
 
     private void exportToCsv() {
-        List<Transport> transports = ctx.getTransportService().findByCompanyId(ctx.getCurrentCompanyId());
         System.out.print("Enter file path (e.g., transports.csv): ");
         String path = ctx.getInput().readLine();
 
-        try {
-            FileUtil.exportTransportsToCsv(transports, path);
-            System.out.println("Exported " + transports.size() + " transports to " + path);
-        } catch (IOException e) {
+        TransportRepository.ExportFilter filter = new TransportRepository.ExportFilter();
+        if (ctx.getInput().confirm("Filter by date range?")) {
+            System.out.print("Start date (yyyy-MM-dd): ");
+            filter.startDate = ctx.getInput().readDate();
+            System.out.print("End date (yyyy-MM-dd): ");
+            filter.endDate = ctx.getInput().readDate();
+        }
+        if (ctx.getInput().confirm("Filter by transport type?")) {
+            System.out.println("1. Passengers");
+            System.out.println("2. Goods");
+            System.out.print("Choice: ");
+            filter.transportType = ctx.getInput().readInt() == 1 ? TransportType.PASSENGERS : TransportType.GOODS;
+        }
+
+        try (FileUtil.TransportCsvWriter writer = FileUtil.openTransportCsvWriter(path)) {
+            long count = ctx.getTransportService().forEachExportRow(ctx.getCurrentCompanyId(), filter, writer::write);
+            System.out.println("Exported " + count + " transports to " + path);
+        } catch (IOException | RuntimeException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
@@ -65,17 +81,37 @@ public class ExportImportHandler {
         String path = ctx.getInput().readLine();
 
         try {
-            List<FileUtil.TransportDTO> dtos = FileUtil.importTransportsFromJson(path);
-            System.out.println("Found " + dtos.size() + " transports in file.");
-            System.out.println("Note: Imported data is displayed but not automatically added to database.");
-            System.out.println("To add transports, use the 'Add transport' function.");
-
-            for (FileUtil.TransportDTO dto : dtos) {
-                System.out.printf("  %s -> %s | %s | %.2f%n",
-                        dto.startPoint, dto.endPoint, dto.transportType, dto.price);
+            TransportService.ImportResult result = ctx.getTransportService().importFromJson(
+                    ctx.getCurrentCompanyId(), path, rows -> System.out.println("  " + rows + " rows read..."));
+            System.out.println("Imported " + result.imported + " transports, " + result.failed + " rejected.");
+            for (String error : result.errors) {
+                System.out.println("  " + error);
+            }
+            if (result.unreportedErrors > 0) {
+                System.out.println("  ... and " + result.unreportedErrors + " more errors");
+            }
+            if (result.stoppedAtRow > 0) {
+                System.out.println("Import stopped at row " + result.stoppedAtRow + "; rows after it were not read.");
             }
         } catch (IOException e) {
             System.out.println("Error: " + e.getMessage());
         }
     }
+
+    private void bulkImportFromCsv() {
+        System.out.print("Enter CSV file path: ");
+        String path = ctx.getInput().readLine();
+        String reportPath = path + ".rejected.csv";
+
+        try {
+            TransportService.BulkImportResult result = ctx.getTransportService().bulkImportCsv(
+                    ctx.getCurrentCompanyId(), path, reportPath);
+            System.out.println("Imported " + result.imported + " transports, " + result.rejected + " rejected.");
+            if (result.rejected > 0) {
+                System.out.println("Rejected rows written to " + reportPath);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
 }
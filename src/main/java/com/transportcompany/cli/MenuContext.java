@@ -5,12 +5,16 @@ import com.transportcompany.service.*;
 
 public class MenuContext {
 
+    public static final int PAGE_SIZE = 20;
+
     private final TransportCompanyService companyService;
     private final EmployeeService employeeService;
     private final ClientService clientService;
     private final VehicleService vehicleService;
     private final TransportService transportService;
     private final ReportService reportService;
+    private final DispatchService dispatchService;
+    private final DataGenerator dataGenerator;
     private final InputHelper input;
 
     private TransportCompany currentCompany;
@@ -23,6 +27,8 @@ public class MenuContext {
         this.vehicleService = new VehicleService();
         this.transportService = new TransportService();
         this.reportService = new ReportService();
+        this.dispatchService = new DispatchService();
+        this.dataGenerator = new DataGenerator();
     }
 
     public TransportCompanyService getCompanyService() { return companyService; }
@@ -31,6 +37,8 @@ public class MenuContext {
     public VehicleService getVehicleService() { return vehicleService; }
     public TransportService getTransportService() { return transportService; }
     public ReportService getReportService() { return reportService; }
+    public DispatchService getDispatchService() { return dispatchService; }
+    public DataGenerator getDataGenerator() { return dataGenerator; }
     public InputHelper getInput() { return input; }
 
     public TransportCompany getCurrentCompany() { return currentCompany; }
@@ -1,5 +1,7 @@
 package com.transportcompany.cli;
 
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
 import com.transportcompany.service.ReportService;
 
 import java.io.IOException;
@@ -22,6 +24,8 @@ public class ReportMenuHandler {
             System.out.println("2. Driver statistics");
             System.out.println("3. Revenue for period");
             System.out.println("4. Generate full report");
+            System.out.println("5. Rebuild revenue rollup");
+            System.out.println("6. Revenue breakdown");
             System.out.println("0. Back");
             System.out.print("Choice: ");
 
@@ -31,6 +35,8 @@ public class ReportMenuHandler {
                 case 2 -> showDriverStatistics();
                 case 3 -> showRevenueForPeriod();
                 case 4 -> generateFullReport();
+                case 5 -> rebuildRevenueRollup();
+                case 6 -> showBreakdown();
                 case 0 -> { return; }
                 default -> System.out.println("Invalid choice.");
             }
@@ -69,6 +75,57 @@ public class ReportMenuHandler {
         }
     }
 
+    private void showBreakdown() {
+        System.out.println("Group by: 1. Driver | 2. Vehicle | 3. Client | 4. Destination | 5. Type");
+        TransportRepository.GroupBy groupBy = switch (ctx.getInput().readInt()) {
+            case 2 -> TransportRepository.GroupBy.VEHICLE;
+            case 3 -> TransportRepository.GroupBy.CLIENT;
+            case 4 -> TransportRepository.GroupBy.DESTINATION;
+            case 5 -> TransportRepository.GroupBy.TYPE;
+            default -> TransportRepository.GroupBy.DRIVER;
+        };
+
+        TransportRepository.ReportFilter filter = new TransportRepository.ReportFilter();
+        if (ctx.getInput().confirm("Filter by date range?")) {
+            System.out.print("Start date (yyyy-MM-dd): ");
+            filter.startDate = ctx.getInput().readDate();
+            System.out.print("End date (yyyy-MM-dd): ");
+            filter.endDate = ctx.getInput().readDate();
+        }
+        if (ctx.getInput().confirm("Filter by transport type?")) {
+            System.out.println("1. Passengers");
+            System.out.println("2. Goods");
+            System.out.print("Choice: ");
+            filter.transportType = ctx.getInput().readInt() == 1 ? TransportType.PASSENGERS : TransportType.GOODS;
+        }
+        if (ctx.getInput().confirm("Only unpaid transports?")) {
+            filter.paid = false;
+        }
+
+        List<ReportService.BreakdownRow> rows = ctx.getReportService().getBreakdown(
+                ctx.getCurrentCompanyId(), groupBy, filter);
+        if (rows.isEmpty()) {
+            System.out.println("No transports match.");
+            return;
+        }
+        System.out.printf("%-30s %10s %8s %15s %15s%n", groupBy.name(), "Transports", "Paid", "Revenue", "Unpaid");
+        System.out.println("-".repeat(82));
+        for (ReportService.BreakdownRow row : rows) {
+            System.out.printf("%-30s %10d %8d %15.2f %15.2f%n", row.label, row.transportCount, row.paidCount,
+                    row.paidRevenue, row.unpaidAmount);
+        }
+    }
+
+    private void rebuildRevenueRollup() {
+        boolean all = ctx.getInput().confirm("Rebuild for all companies?");
+        try {
+            ctx.getReportService().rebuildRevenueRollup(all ? null : ctx.getCurrentCompanyId());
+            System.out.println("Revenue rollup rebuilt.");
+        } catch (RuntimeException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     private void showRevenueForPeriod() {
         System.out.print("Start date (yyyy-MM-dd): ");
         LocalDate startDate = ctx.getInput().readDate();
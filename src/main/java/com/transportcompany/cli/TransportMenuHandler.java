@@ -1,7 +1,11 @@
 package com.transportcompany.cli;
 
 import com.transportcompany.entity.*;
+import com.transportcompany.enums.DriverQualification;
 import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.Page;
+import com.transportcompany.repository.PageCursor;
+import com.transportcompany.service.DispatchService;
 import com.transportcompany.validation.ValidationException;
 
 import java.math.BigDecimal;
@@ -28,6 +32,8 @@ public class TransportMenuHandler {
             System.out.println("6. Filter by destination");
             System.out.println("7. Filter by date range");
             System.out.println("8. Filter by type");
+            System.out.println("9. Suggest driver and vehicle");
+            System.out.println("10. Archive old transports");
             System.out.println("0. Back");
             System.out.print("Choice: ");
 
@@ -41,6 +47,8 @@ public class TransportMenuHandler {
                 case 6 -> filterByDestination();
                 case 7 -> filterByDateRange();
                 case 8 -> filterByTransportType();
+                case 9 -> suggestDriverAndVehicle();
+                case 10 -> archiveTransports();
                 case 0 -> { return; }
                 default -> System.out.println("Invalid choice.");
             }
@@ -50,10 +58,21 @@ public class TransportMenuHandler {
     private void addTransport() {
         System.out.println("\n--- Add Transport ---");
 
+        // Dates first, so only drivers and vehicles free in that period are offered
+        System.out.print("Departure date (yyyy-MM-dd): ");
+        LocalDate departureDate = ctx.getInput().readDate();
+        System.out.print("Arrival date (yyyy-MM-dd): ");
+        LocalDate arrivalDate = ctx.getInput().readDate();
+        if (arrivalDate.isBefore(departureDate)) {
+            System.out.println("Error: Arrival date cannot be before departure date");
+            return;
+        }
+
         // Select driver
-        List<Employee> employees = ctx.getEmployeeService().findByCompanyId(ctx.getCurrentCompanyId());
+        List<Employee> employees = ctx.getTransportService().findFreeDrivers(
+                ctx.getCurrentCompanyId(), departureDate, arrivalDate);
         if (employees.isEmpty()) {
-            System.out.println("No employees found. Please add employees first.");
+            System.out.println("No drivers are free in this period.");
             return;
         }
         System.out.println("Select driver:");
@@ -64,9 +83,10 @@ public class TransportMenuHandler {
         Long driverId = ctx.getInput().readLong();
 
         // Select vehicle
-        List<Vehicle> vehicles = ctx.getVehicleService().findByCompanyId(ctx.getCurrentCompanyId());
+        List<Vehicle> vehicles = ctx.getTransportService().findFreeVehicles(
+                ctx.getCurrentCompanyId(), departureDate, arrivalDate);
         if (vehicles.isEmpty()) {
-            System.out.println("No vehicles found. Please add vehicles first.");
+            System.out.println("No vehicles are free in this period.");
             return;
         }
         System.out.println("Select vehicle:");
@@ -93,10 +113,6 @@ public class TransportMenuHandler {
         String startPoint = ctx.getInput().readLine();
         System.out.print("End point: ");
         String endPoint = ctx.getInput().readLine();
-        System.out.print("Departure date (yyyy-MM-dd): ");
-        LocalDate departureDate = ctx.getInput().readDate();
-        System.out.print("Arrival date (yyyy-MM-dd): ");
-        LocalDate arrivalDate = ctx.getInput().readDate();
 
         System.out.println("Transport type:");
         System.out.println("1. Passengers");
@@ -133,15 +149,69 @@ public class TransportMenuHandler {
         }
     }
 
+    private void suggestDriverAndVehicle() {
+        System.out.print("Departure date (yyyy-MM-dd): ");
+        LocalDate departureDate = ctx.getInput().readDate();
+        System.out.print("Arrival date (yyyy-MM-dd): ");
+        LocalDate arrivalDate = ctx.getInput().readDate();
+
+        System.out.println("Transport type:");
+        System.out.println("1. Passengers");
+        System.out.println("2. Goods");
+        System.out.print("Choice: ");
+        TransportType transportType = ctx.getInput().readInt() == 1 ? TransportType.PASSENGERS : TransportType.GOODS;
+
+        DispatchService.Order order = new DispatchService.Order(departureDate, arrivalDate, transportType);
+        if (transportType == TransportType.GOODS) {
+            System.out.print("Cargo weight (kg): ");
+            order.cargoWeight = ctx.getInput().readDouble();
+            if (ctx.getInput().confirm("Hazardous materials?")) {
+                order.qualifications.add(DriverQualification.HAZARDOUS_MATERIALS);
+            }
+            if (ctx.getInput().confirm("Flammable materials?")) {
+                order.qualifications.add(DriverQualification.FLAMMABLE_MATERIALS);
+            }
+            if (ctx.getInput().confirm("Special cargo?")) {
+                order.qualifications.add(DriverQualification.SPECIAL_CARGO);
+            }
+        } else {
+            System.out.print("Number of passengers: ");
+            order.passengerCount = ctx.getInput().readIntOrNull();
+        }
+
+        try {
+            List<DispatchService.Candidate> candidates = ctx.getDispatchService().suggest(
+                    ctx.getCurrentCompanyId(), order, 5);
+            if (candidates.isEmpty()) {
+                System.out.println("No free driver and vehicle meet this order.");
+                return;
+            }
+            System.out.printf("%-35s %-45s %8s%n", "Driver", "Vehicle", "Cost");
+            System.out.println("-".repeat(90));
+            for (DispatchService.Candidate c : candidates) {
+                System.out.printf("%-35s %-45s %8.2f%n",
+                        truncate(c.driver.getId() + ". " + c.driver.getFullName(), 35),
+                        truncate(c.vehicle.getId() + ". " + c.vehicle.getFullDescription(), 45), c.cost);
+            }
+        } catch (ValidationException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
     private void listTransports() {
         System.out.println("Sort by: 1. Default | 2. Destination");
         int sortChoice = ctx.getInput().readInt();
 
-        List<Transport> transports = sortChoice == 2
-                ? ctx.getTransportService().findByCompanyIdSortedByDestination(ctx.getCurrentCompanyId())
-                : ctx.getTransportService().findByCompanyId(ctx.getCurrentCompanyId());
-
-        printTransportList(transports);
+        PageCursor cursor = null;
+        do {
+            Page<Transport> page = sortChoice == 2
+                    ? ctx.getTransportService().findPageByCompanyIdSortedByDestination(
+                            ctx.getCurrentCompanyId(), cursor, MenuContext.PAGE_SIZE)
+                    : ctx.getTransportService().findPageByCompanyId(
+                            ctx.getCurrentCompanyId(), cursor, MenuContext.PAGE_SIZE);
+            printTransportList(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null && ctx.getInput().confirm("Show next page?"));
     }
 
     public void printTransportList(List<Transport> transports) {
@@ -205,6 +275,16 @@ public class TransportMenuHandler {
         System.out.println("Transport deleted.");
     }
 
+    private void archiveTransports() {
+        System.out.print("Archive paid transports that arrived before (yyyy-MM-dd): ");
+        LocalDate cutoff = ctx.getInput().readDate();
+        if (!ctx.getInput().confirm("Move them out of the live table into the archive?")) {
+            return;
+        }
+        long archived = ctx.getTransportService().archive(ctx.getCurrentCompanyId(), cutoff);
+        System.out.println("Archived " + archived + " transports. Reports still include them.");
+    }
+
     private void togglePaidStatus() {
         listTransports();
         System.out.print("Enter transport ID: ");
@@ -218,13 +298,19 @@ public class TransportMenuHandler {
         Transport t = transOpt.get();
         if (t.isPaid()) {
             if (ctx.getInput().confirm("Mark as UNPAID?")) {
-                ctx.getTransportService().markAsUnpaid(id);
-                System.out.println("Transport marked as unpaid.");
+                if (ctx.getTransportService().markAsUnpaid(id)) {
+                    System.out.println("Transport marked as unpaid.");
+                } else {
+                    System.out.println("Transport is already unpaid.");
+                }
             }
         } else {
             if (ctx.getInput().confirm("Mark as PAID?")) {
-                ctx.getTransportService().markAsPaid(id);
-                System.out.println("Transport marked as paid. Revenue updated.");
+                if (ctx.getTransportService().markAsPaid(id)) {
+                    System.out.println("Transport marked as paid. Revenue updated.");
+                } else {
+                    System.out.println("Transport is already paid.");
+                }
             }
         }
     }
@@ -0,0 +1,95 @@
+package com.transportcompany.entity;
+
+import com.transportcompany.enums.TransportType;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Per company, departure day and transport type: the number of transports and the total price of
+// the paid ones. Maintained by DailyRevenueRepository alongside every change to transports, so
+// revenue over a period reads one row per day instead of every transport.
+@Entity
+@IdClass(DailyRevenue.Key.class)
+@Table(name = "daily_revenue")
+public class DailyRevenue {
+
+    @Id
+    @Column(name = "company_id")
+    private Long companyId;
+
+    @Id
+    private LocalDate day;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transport_type")
+    private TransportType transportType;
+
+    @Column(name = "paid_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "transport_count", nullable = false)
+    private long transportCount;
+
+    public DailyRevenue() {}
+
+    public Long getCompanyId() {
+        return companyId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public TransportType getTransportType() {
+        return transportType;
+    }
+
+    public BigDecimal getPaidAmount() {
+        return paidAmount;
+    }
+
+    public long getTransportCount() {
+        return transportCount;
+    }
+
+    public static class Key implements Serializable {
+        private Long companyId;
+        private LocalDate day;
+        private TransportType transportType;
+
+        public Key() {}
+
+        public Key(Long companyId, LocalDate day, TransportType transportType) {
+            this.companyId = companyId;
+            this.day = day;
+            this.transportType = transportType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(companyId, key.companyId) && Objects.equals(day, key.day)
+                    && transportType == key.transportType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(companyId, day, transportType);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DailyRevenue{" +
+                "companyId=" + companyId +
+                ", day=" + day +
+                ", transportType=" + transportType +
+                ", paidAmount=" + paidAmount +
+                ", transportCount=" + transportCount +
+                '}';
+    }
+}
@@ -5,18 +5,27 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_company_salary", columnList = "company_id, salary"),
+        @Index(name = "idx_employees_company_qualifications", columnList = "company_id, qualifications_mask")
+})
 public class Employee {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
+    @SequenceGenerator(name = "employee_seq", sequenceName = "employees_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -35,11 +44,10 @@ public class Employee {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal salary;
 
-    @ElementCollection(targetClass = DriverQualification.class, fetch = FetchType.EAGER)
-    @CollectionTable(name = "employee_qualifications", joinColumns = @JoinColumn(name = "employee_id"))
-    @Enumerated(EnumType.STRING)
-    @Column(name = "qualification")
-    private Set<DriverQualification> qualifications = new HashSet<>();
+    @Convert(converter = QualificationSetConverter.class)
+    @ColumnDefault("0")
+    @Column(name = "qualifications_mask", nullable = false)
+    private Set<DriverQualification> qualifications = EnumSet.noneOf(DriverQualification.class);
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "company_id")
@@ -106,7 +114,10 @@ public class Employee {
     }
 
     public void setQualifications(Set<DriverQualification> qualifications) {
-        this.qualifications = qualifications;
+        this.qualifications = EnumSet.noneOf(DriverQualification.class);
+        if (qualifications != null) {
+            this.qualifications.addAll(qualifications);
+        }
     }
 
     public void addQualification(DriverQualification qualification) {
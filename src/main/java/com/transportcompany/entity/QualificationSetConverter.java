@@ -0,0 +1,72 @@
+package com.transportcompany.entity;
+
+import com.transportcompany.enums.DriverQualification;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// Stores a set of qualifications as an int bitmask, bit n = DriverQualification with ordinal n.
+// The bit positions are persisted: only ever append new constants to DriverQualification.
+@Converter
+public class QualificationSetConverter implements AttributeConverter<Set<DriverQualification>, Integer> {
+
+    private static final DriverQualification[] VALUES = DriverQualification.values();
+    private static final int ALL_BITS = (1 << VALUES.length) - 1;
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<DriverQualification> qualifications) {
+        return toMask(qualifications);
+    }
+
+    @Override
+    public Set<DriverQualification> convertToEntityAttribute(Integer mask) {
+        EnumSet<DriverQualification> qualifications = EnumSet.noneOf(DriverQualification.class);
+        if (mask != null) {
+            for (DriverQualification qualification : VALUES) {
+                if ((mask & bit(qualification)) != 0) {
+                    qualifications.add(qualification);
+                }
+            }
+        }
+        return qualifications;
+    }
+
+    public static int toMask(Set<DriverQualification> qualifications) {
+        int mask = 0;
+        if (qualifications != null) {
+            for (DriverQualification qualification : qualifications) {
+                mask |= bit(qualification);
+            }
+        }
+        return mask;
+    }
+
+    public static int bit(DriverQualification qualification) {
+        return 1 << qualification.ordinal();
+    }
+
+    // Every stored mask sharing at least one bit with mask
+    public static List<Integer> masksWithAny(int mask) {
+        List<Integer> masks = new ArrayList<>();
+        for (int candidate = 1; candidate <= ALL_BITS; candidate++) {
+            if ((candidate & mask) != 0) {
+                masks.add(candidate);
+            }
+        }
+        return masks;
+    }
+
+    // Every stored mask that contains all bits of mask
+    public static List<Integer> masksWithAll(int mask) {
+        List<Integer> masks = new ArrayList<>();
+        for (int candidate = 0; candidate <= ALL_BITS; candidate++) {
+            if ((candidate & mask) == mask) {
+                masks.add(candidate);
+            }
+        }
+        return masks;
+    }
+}
@@ -9,11 +9,18 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "transports")
+@Table(name = "transports", indexes = {
+        @Index(name = "idx_transports_company_departure", columnList = "company_id, departureDate"),
+        @Index(name = "idx_transports_driver_paid", columnList = "driver_id, paid"),
+        @Index(name = "idx_transports_client_paid", columnList = "client_id, paid"),
+        @Index(name = "idx_transports_company_type", columnList = "company_id, transportType"),
+        @Index(name = "idx_transports_company_end_point", columnList = "company_id, endPoint")
+})
 public class Transport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transport_seq")
+    @SequenceGenerator(name = "transport_seq", sequenceName = "transports_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Start point is required")
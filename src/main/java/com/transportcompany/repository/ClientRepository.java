@@ -1,8 +1,9 @@
 package com.transportcompany.repository;
 
 import com.transportcompany.entity.Client;
-import org.hibernate.Session;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class ClientRepository extends GenericRepository<Client, Long> {
@@ -12,41 +13,62 @@ public class ClientRepository extends GenericRepository<Client, Long> {
     }
 
     public List<Client> findByCompanyId(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Client WHERE company.id = :companyId", Client.class)
                     .setParameter("companyId", companyId)
+                    .setCacheable(true)
                     .list();
-        }
+        });
+    }
+
+    // Client name -> id for the company; the first id wins on duplicate names
+    public Map<String, Long> findIdsByName(Long companyId) {
+        return withSession(session -> {
+            Map<String, Long> ids = new HashMap<>();
+            for (Object[] row : session.createQuery(
+                    "SELECT c.name, c.id FROM Client c WHERE c.company.id = :companyId ORDER BY c.id",
+                    Object[].class)
+                    .setParameter("companyId", companyId)
+                    .list()) {
+                ids.putIfAbsent((String) row[0], (Long) row[1]);
+            }
+            return ids;
+        });
+    }
+
+    public Page<Client> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return findPage("e.company.id = :companyId", Map.of("companyId", companyId),
+                "name", true, after, size, Client::getName);
     }
 
     public Optional<Client> findByNameAndCompany(String name, Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Client WHERE name = :name AND company.id = :companyId", Client.class)
                     .setParameter("name", name)
                     .setParameter("companyId", companyId)
                     .uniqueResultOptional();
-        }
+        });
     }
 
     public List<Client> findClientsWithUnpaidTransports(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT c FROM Client c JOIN c.transports t " +
                     "WHERE c.company.id = :companyId AND t.paid = false", Client.class)
                     .setParameter("companyId", companyId)
                     .list();
-        }
+        });
     }
 
     public Client findByIdWithTransports(Long id) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT c FROM Client c LEFT JOIN FETCH c.transports WHERE c.id = :id",
                     Client.class)
                     .setParameter("id", id)
                     .uniqueResult();
-        }
+        });
     }
 }
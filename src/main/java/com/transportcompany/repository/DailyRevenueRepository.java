@@ -0,0 +1,183 @@
+package com.transportcompany.repository;
+
+import com.transportcompany.entity.DailyRevenue;
+import com.transportcompany.entity.Transport;
+import com.transportcompany.enums.TransportType;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+
+// Keeps daily_revenue in step with transports. Every write adds signed deltas with an upsert, so
+// concurrent writers to the same day never overwrite each other; callers run it in the same
+// UnitOfWork as the transport change it mirrors.
+public class DailyRevenueRepository extends GenericRepository<DailyRevenue, DailyRevenue.Key> {
+
+    public DailyRevenueRepository() {
+        super(DailyRevenue.class);
+    }
+
+    // source yields (company_id, day, transport_type, paid_amount, transport_count) rows to add
+    public static String upsertSql(String source) {
+        return "INSERT INTO daily_revenue (company_id, day, transport_type, paid_amount, transport_count) " +
+                source + " ON CONFLICT (company_id, day, transport_type) DO UPDATE SET " +
+                "paid_amount = daily_revenue.paid_amount + EXCLUDED.paid_amount, " +
+                "transport_count = daily_revenue.transport_count + EXCLUDED.transport_count";
+    }
+
+    // Rollup rows of the transports matching where, negated when subtracting
+    private static String aggregateSql(String where, boolean subtract) {
+        String sign = subtract ? "-" : "";
+        return "SELECT company_id, departuredate, transporttype, " +
+                sign + "COALESCE(SUM(price) FILTER (WHERE paid), 0), " + sign + "COUNT(*) " +
+                "FROM transports WHERE company_id IS NOT NULL AND (" + where + ") " +
+                "GROUP BY company_id, departuredate, transporttype";
+    }
+
+    public void adjust(Long companyId, LocalDate day, TransportType transportType,
+                       BigDecimal paidAmountDelta, long countDelta) {
+        inTransaction("Error updating daily revenue", session -> session.createNativeQuery(
+                        upsertSql("VALUES (:companyId, :day, :type, :amount, :count)"), Object.class)
+                .addSynchronizedEntityClass(DailyRevenue.class)
+                .setParameter("companyId", companyId)
+                .setParameter("day", day)
+                .setParameter("type", transportType.name())
+                .setParameter("amount", paidAmountDelta)
+                .setParameter("count", countDelta)
+                .executeUpdate());
+    }
+
+    // After a paid flag flip; day and transportType as TransportRepository.setPaid returns them
+    public void adjustPaidAmount(Long companyId, Object day, Object transportType, BigDecimal delta) {
+        adjust(companyId, toLocalDate(day), TransportType.valueOf(transportType.toString()), delta, 0);
+    }
+
+    // Row layout of TransportRepository.lockRevenueKey: [company_id, departuredate, transporttype, price, paid]
+    public void subtract(Object[] row) {
+        if (row[0] == null) {
+            return;
+        }
+        BigDecimal price = (BigDecimal) row[3];
+        boolean paid = (Boolean) row[4];
+        adjust(((Number) row[0]).longValue(), toLocalDate(row[1]), TransportType.valueOf(row[2].toString()),
+                paid ? price.negate() : BigDecimal.ZERO, -1);
+    }
+
+    // Transports already persisted in the current unit of work
+    public void addTransports(Collection<Long> transportIds) {
+        if (transportIds.isEmpty()) {
+            return;
+        }
+        inTransaction("Error updating daily revenue", session -> session.createNativeQuery(
+                        upsertSql(aggregateSql("id IN (:ids)", false)), Object.class)
+                .addSynchronizedEntityClass(DailyRevenue.class)
+                .addSynchronizedEntityClass(Transport.class)
+                .setParameterList("ids", transportIds)
+                .executeUpdate());
+    }
+
+    // Before the transports are deleted in the same unit of work
+    public void subtractTransports(Collection<Long> transportIds) {
+        if (transportIds.isEmpty()) {
+            return;
+        }
+        inTransaction("Error updating daily revenue", session -> session.createNativeQuery(
+                        upsertSql(aggregateSql("id IN (:ids)", true)), Object.class)
+                .addSynchronizedEntityClass(DailyRevenue.class)
+                .addSynchronizedEntityClass(Transport.class)
+                .setParameterList("ids", transportIds)
+                .executeUpdate());
+    }
+
+    // Call before deleting the driver, vehicle or client, whose transports go with them
+    public void subtractTransportsOfDriver(Long driverId) {
+        subtractTransports("driver_id = :id", driverId);
+    }
+
+    public void subtractTransportsOfVehicle(Long vehicleId) {
+        subtractTransports("vehicle_id = :id", vehicleId);
+    }
+
+    public void subtractTransportsOfClient(Long clientId) {
+        subtractTransports("client_id = :id", clientId);
+    }
+
+    // Before a company delete: other companies' transports that use its drivers, vehicles or clients
+    public void subtractTransportsReferencingCompany(Long companyId) {
+        subtractTransports("company_id <> :id AND (" +
+                "driver_id IN (SELECT e.id FROM employees e WHERE e.company_id = :id) OR " +
+                "vehicle_id IN (SELECT v.id FROM vehicles v WHERE v.company_id = :id) OR " +
+                "client_id IN (SELECT c.id FROM clients c WHERE c.company_id = :id))", companyId);
+    }
+
+    private void subtractTransports(String where, Long id) {
+        inTransaction("Error updating daily revenue", session -> session.createNativeQuery(
+                        upsertSql(aggregateSql(where, true)), Object.class)
+                .addSynchronizedEntityClass(DailyRevenue.class)
+                .addSynchronizedEntityClass(Transport.class)
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    public void deleteByCompany(Long companyId) {
+        inTransaction("Error deleting daily revenue", session -> session.createMutationQuery(
+                        "DELETE FROM DailyRevenue WHERE companyId = :companyId")
+                .setParameter("companyId", companyId)
+                .executeUpdate());
+    }
+
+    // Recomputes the company's rows from transports; null rebuilds every company. The table lock
+    // holds off concurrent deltas until the new rows are committed, so none are lost or counted twice.
+    public void rebuild(Long companyId) {
+        inTransaction("Error rebuilding daily revenue", session -> {
+            session.createNativeQuery("LOCK TABLE daily_revenue IN EXCLUSIVE MODE", Object.class)
+                    .addSynchronizedEntityClass(DailyRevenue.class)
+                    .executeUpdate();
+            if (companyId == null) {
+                session.createMutationQuery("DELETE FROM DailyRevenue").executeUpdate();
+                session.createNativeQuery(upsertSql(aggregateSql("true", false)), Object.class)
+                        .addSynchronizedEntityClass(DailyRevenue.class)
+                        .addSynchronizedEntityClass(Transport.class)
+                        .executeUpdate();
+            } else {
+                session.createMutationQuery("DELETE FROM DailyRevenue WHERE companyId = :companyId")
+                        .setParameter("companyId", companyId)
+                        .executeUpdate();
+                session.createNativeQuery(upsertSql(aggregateSql("company_id = :companyId", false)), Object.class)
+                        .addSynchronizedEntityClass(DailyRevenue.class)
+                        .addSynchronizedEntityClass(Transport.class)
+                        .setParameter("companyId", companyId)
+                        .executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    // Paid revenue of the transports departing in [startDate, endDate]; either bound may be null
+    public BigDecimal sumPaidAmount(Long companyId, LocalDate startDate, LocalDate endDate) {
+        StringBuilder hql = new StringBuilder(
+                "SELECT COALESCE(SUM(r.paidAmount), 0) FROM DailyRevenue r WHERE r.companyId = :companyId");
+        if (startDate != null) {
+            hql.append(" AND r.day >= :startDate");
+        }
+        if (endDate != null) {
+            hql.append(" AND r.day <= :endDate");
+        }
+        return withSession(session -> {
+            var query = session.createQuery(hql.toString(), BigDecimal.class)
+                    .setParameter("companyId", companyId);
+            if (startDate != null) {
+                query.setParameter("startDate", startDate);
+            }
+            if (endDate != null) {
+                query.setParameter("endDate", endDate);
+            }
+            BigDecimal result = query.uniqueResult();
+            return result != null ? result : BigDecimal.ZERO;
+        });
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
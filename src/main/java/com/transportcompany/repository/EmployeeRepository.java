@@ -1,10 +1,14 @@
 package com.transportcompany.repository;
 
 import com.transportcompany.entity.Employee;
+import com.transportcompany.entity.QualificationSetConverter;
 import com.transportcompany.enums.DriverQualification;
-import org.hibernate.Session;
 import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class EmployeeRepository extends GenericRepository<Employee, Long> {
 
@@ -13,37 +17,86 @@ public class EmployeeRepository extends GenericRepository<Employee, Long> {
     }
 
     public List<Employee> findByCompanyId(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Employee WHERE company.id = :companyId", Employee.class)
                     .setParameter("companyId", companyId)
+                    .setCacheable(true)
                     .list();
-        }
+        });
+    }
+
+    // "First Last" -> id for the company's employees; the first id wins on duplicate names
+    public Map<String, Long> findIdsByFullName(Long companyId) {
+        return withSession(session -> {
+            Map<String, Long> ids = new HashMap<>();
+            for (Object[] row : session.createQuery(
+                    "SELECT e.firstName, e.lastName, e.id FROM Employee e " +
+                    "WHERE e.company.id = :companyId ORDER BY e.id", Object[].class)
+                    .setParameter("companyId", companyId)
+                    .list()) {
+                ids.putIfAbsent(row[0] + " " + row[1], (Long) row[2]);
+            }
+            return ids;
+        });
     }
 
     public List<Employee> findByCompanyIdSortedBySalary(Long companyId, boolean ascending) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             String order = ascending ? "ASC" : "DESC";
             return session.createQuery(
                     "FROM Employee WHERE company.id = :companyId ORDER BY salary " + order, Employee.class)
                     .setParameter("companyId", companyId)
                     .list();
-        }
+        });
+    }
+
+    public Page<Employee> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return findPage("e.company.id = :companyId", Map.of("companyId", companyId),
+                "lastName", true, after, size, Employee::getLastName);
+    }
+
+    public Page<Employee> findPageByCompanyIdSortedBySalary(Long companyId, boolean ascending,
+                                                           PageCursor after, int size) {
+        return findPage("e.company.id = :companyId", Map.of("companyId", companyId),
+                "salary", ascending, after, size, Employee::getSalary);
     }
 
     public List<Employee> findByQualification(Long companyId, DriverQualification qualification) {
-        try (Session session = getSession()) {
-            return session.createQuery(
-                    "SELECT e FROM Employee e JOIN e.qualifications q " +
-                    "WHERE e.company.id = :companyId AND q = :qualification", Employee.class)
+        return findByAnyQualification(companyId, EnumSet.of(qualification));
+    }
+
+    // Employees holding at least one of the qualifications
+    public List<Employee> findByAnyQualification(Long companyId, Set<DriverQualification> qualifications) {
+        return findByQualificationMasks(companyId,
+                QualificationSetConverter.masksWithAny(QualificationSetConverter.toMask(qualifications)));
+    }
+
+    // Employees holding every one of the qualifications
+    public List<Employee> findByAllQualifications(Long companyId, Set<DriverQualification> qualifications) {
+        return findByQualificationMasks(companyId,
+                QualificationSetConverter.masksWithAll(QualificationSetConverter.toMask(qualifications)));
+    }
+
+    // A bitwise predicate on the mask cannot use an index, but with six qualifications there are only
+    // 64 possible masks: the bitwise test is applied to those in Java and the matching ones are looked
+    // up as an IN list, one range scan of idx_employees_company_qualifications.
+    private List<Employee> findByQualificationMasks(Long companyId, List<Integer> masks) {
+        if (masks.isEmpty()) {
+            return List.of();
+        }
+        return withSession(session -> {
+            return session.createNativeQuery(
+                    "SELECT * FROM employees WHERE company_id = :companyId " +
+                    "AND qualifications_mask IN (:masks) ORDER BY id", Employee.class)
                     .setParameter("companyId", companyId)
-                    .setParameter("qualification", qualification)
+                    .setParameterList("masks", masks)
                     .list();
-        }
+        });
     }
 
     public List<Employee> findBySalaryRange(Long companyId, BigDecimal minSalary, BigDecimal maxSalary) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Employee WHERE company.id = :companyId AND salary BETWEEN :minSalary AND :maxSalary",
                     Employee.class)
@@ -51,16 +104,16 @@ public class EmployeeRepository extends GenericRepository<Employee, Long> {
                     .setParameter("minSalary", minSalary)
                     .setParameter("maxSalary", maxSalary)
                     .list();
-        }
+        });
     }
 
     public Employee findByIdWithTransports(Long id) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT e FROM Employee e LEFT JOIN FETCH e.transports WHERE e.id = :id",
                     Employee.class)
                     .setParameter("id", id)
                     .uniqueResult();
-        }
+        });
     }
 }
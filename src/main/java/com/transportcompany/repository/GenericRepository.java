@@ -3,87 +3,226 @@ package com.transportcompany.repository;
 import com.transportcompany.util.HibernateUtil;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 public abstract class GenericRepository<T, ID> {
 
+    // Keep in step with hibernate.jdbc.batch_size so every flush fills whole JDBC batches
+    protected static final int BATCH_SIZE = 50;
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
     private final Class<T> entityClass;
+    private final RepositoryMetrics metrics = RepositoryMetrics.getInstance();
 
     protected GenericRepository(Class<T> entityClass) {
         this.entityClass = entityClass;
     }
 
     public T save(T entity) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        return inTransaction("Error saving entity", session -> {
             session.persist(entity);
-            transaction.commit();
             return entity;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error saving entity", e);
-        }
+        });
     }
 
     public T update(T entity) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
-            T merged = session.merge(entity);
-            transaction.commit();
-            return merged;
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw new RuntimeException("Error updating entity", e);
-        }
+        return inTransaction("Error updating entity", session -> session.merge(entity));
     }
 
     public void delete(T entity) {
-        Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            transaction = session.beginTransaction();
+        inTransaction("Error deleting entity", session -> {
             T merged = session.merge(entity);
             session.remove(merged);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+            return null;
+        });
+    }
+
+    public List<T> saveAll(Collection<T> entities) {
+        return inTransaction("Error saving entities", session -> {
+            int pending = 0;
+            for (T entity : entities) {
+                session.persist(entity);
+                if (++pending % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
             }
-            throw new RuntimeException("Error deleting entity", e);
-        }
+            return new ArrayList<>(entities);
+        });
+    }
+
+    public List<T> updateAll(Collection<T> entities) {
+        return inTransaction("Error updating entities", session -> {
+            List<T> merged = new ArrayList<>(entities.size());
+            for (T entity : entities) {
+                merged.add(session.merge(entity));
+                if (merged.size() % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            return merged;
+        });
+    }
+
+    public void deleteAllById(Collection<ID> ids) {
+        inTransaction("Error deleting entities", session -> {
+            int pending = 0;
+            for (ID id : ids) {
+                T entity = session.get(entityClass, id);
+                if (entity != null) {
+                    session.remove(entity);
+                }
+                if (++pending % BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            return null;
+        });
     }
 
+    // Load and remove in one session; no detached copy is merged back
     public void deleteById(ID id) {
-        findById(id).ifPresent(this::delete);
+        inTransaction("Error deleting entity", session -> {
+            T entity = session.get(entityClass, id);
+            if (entity != null) {
+                session.remove(entity);
+            }
+            return null;
+        });
     }
 
     public Optional<T> findById(ID id) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            T entity = session.get(entityClass, id);
-            return Optional.ofNullable(entity);
+        return withSession(session -> Optional.ofNullable(session.get(entityClass, id)));
+    }
+
+    // Uninitialized proxy for use as a foreign key; only valid inside a UnitOfWork
+    public T getReference(ID id) {
+        Session session = UnitOfWork.currentSession();
+        if (session == null) {
+            throw new IllegalStateException("getReference requires an active UnitOfWork");
         }
+        return session.getReference(entityClass, id);
+    }
+
+    // True when a getReference target turned out not to exist (PostgreSQL SQLState 23503), as opposed to
+    // a unique or check constraint failing
+    public static boolean isForeignKeyViolation(ConstraintViolationException e) {
+        return FOREIGN_KEY_VIOLATION.equals(e.getSQLState());
     }
 
     public List<T> findAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("FROM " + entityClass.getSimpleName(), entityClass).list();
-        }
+        return withSession(session ->
+                session.createQuery("FROM " + entityClass.getSimpleName(), entityClass).list());
     }
 
     public long count() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("SELECT COUNT(*) FROM " + entityClass.getSimpleName(), Long.class)
-                    .uniqueResult();
+        return withSession(session ->
+                session.createQuery("SELECT COUNT(*) FROM " + entityClass.getSimpleName(), Long.class)
+                        .uniqueResult());
+    }
+
+    // Keyset pagination ordered by id
+    public Page<T> findPage(PageCursor after, int size) {
+        return findPage(null, Map.of(), null, true, after, size, null);
+    }
+
+    // Seek pagination on (sortProperty, id): rows strictly after the cursor, never an OFFSET scan.
+    // where may reference the entity through the alias "e"; sortProperty is null to order by id only.
+    protected Page<T> findPage(String where, Map<String, Object> params, String sortProperty, boolean ascending,
+                               PageCursor after, int size, Function<T, Object> sortKeyOf) {
+        String op = ascending ? ">" : "<";
+        String direction = ascending ? "ASC" : "DESC";
+
+        StringBuilder hql = new StringBuilder("FROM ").append(entityClass.getSimpleName()).append(" e WHERE 1 = 1");
+        if (where != null) {
+            hql.append(" AND (").append(where).append(")");
         }
+        if (after != null) {
+            if (sortProperty == null) {
+                hql.append(" AND e.id ").append(op).append(" :afterId");
+            } else {
+                hql.append(" AND (e.").append(sortProperty).append(' ').append(op).append(" :afterKey")
+                        .append(" OR (e.").append(sortProperty).append(" = :afterKey AND e.id ").append(op)
+                        .append(" :afterId))");
+            }
+        }
+        hql.append(" ORDER BY ");
+        if (sortProperty != null) {
+            hql.append("e.").append(sortProperty).append(' ').append(direction).append(", ");
+        }
+        hql.append("e.id ").append(direction);
+
+        List<T> rows = withSession(session -> {
+            var query = session.createQuery(hql.toString(), entityClass);
+            params.forEach(query::setParameter);
+            if (after != null) {
+                query.setParameter("afterId", after.getId());
+                if (sortProperty != null) {
+                    query.setParameter("afterKey", after.getSortKey());
+                }
+            }
+            return query.setMaxResults(size + 1).list();
+        });
+
+        if (rows.size() <= size) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, size));
+        T last = items.get(size - 1);
+        Object id = HibernateUtil.getSessionFactory().getPersistenceUnitUtil().getIdentifier(last);
+        return new Page<>(items, new PageCursor(sortKeyOf != null ? sortKeyOf.apply(last) : null, id));
+    }
+
+    // Drops cached state that a bulk or native statement may have made stale
+    public void evictFromCache(ID id) {
+        HibernateUtil.getSessionFactory().getCache().evictEntityData(entityClass, id);
     }
 
-    protected Session getSession() {
-        return HibernateUtil.getSessionFactory().openSession();
+    public void evictAllFromCache() {
+        HibernateUtil.getSessionFactory().getCache().evictEntityData(entityClass);
+        HibernateUtil.getSessionFactory().getCache().evictDefaultQueryRegion();
+    }
+
+    // Runs read-only work on the current unit of work's session, or on a short-lived one
+    protected <R> R withSession(Function<Session, R> work) {
+        return metrics.record(this, work, () -> {
+            Session current = UnitOfWork.currentSession();
+            if (current != null) {
+                return work.apply(current);
+            }
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                return work.apply(session);
+            }
+        });
+    }
+
+    // Runs write work in the current unit of work, or in its own session and transaction
+    protected <R> R inTransaction(String errorMessage, Function<Session, R> work) {
+        return metrics.record(this, work, () -> {
+            Session current = UnitOfWork.currentSession();
+            if (current != null) {
+                return work.apply(current);
+            }
+            Transaction transaction = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                transaction = session.beginTransaction();
+                R result = work.apply(session);
+                transaction.commit();
+                return result;
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                throw new RuntimeException(errorMessage, e);
+            }
+        });
     }
 }
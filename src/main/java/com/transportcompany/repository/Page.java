@@ -0,0 +1,27 @@
+package com.transportcompany.repository;
+
+import java.util.List;
+
+// One slice of a keyset-paginated listing; pass getNextCursor() back to fetch the following slice
+public class Page<T> {
+
+    private final List<T> items;
+    private final PageCursor nextCursor;
+
+    public Page(List<T> items, PageCursor nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public PageCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
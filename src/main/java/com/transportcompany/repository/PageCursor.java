@@ -0,0 +1,29 @@
+package com.transportcompany.repository;
+
+// Position after the last row of a page: its sort key (null when ordered by id only) and its id
+public class PageCursor {
+
+    private final Object sortKey;
+    private final Object id;
+
+    public PageCursor(Object sortKey, Object id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    public Object getSortKey() {
+        return sortKey;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" +
+                "sortKey=" + sortKey +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,347 @@
+package com.transportcompany.repository;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Call, error and row counts and a fixed-bucket latency histogram per repository operation, recorded by
+// GenericRepository.withSession/inTransaction. Counters are LongAdders, so recording never takes a lock.
+// Only the outermost call on a thread is recorded; the session work it runs in turn is part of it.
+//
+// An operation is named after the outermost method of the repository on the stack, such as
+// "TransportRepository.findByDriverId". Finding it walks the stack, so the name is cached per lambda
+// class whenever that lambda is only reached from the one method.
+//
+// With -Dtransport.metrics.file=<path> a snapshot is written there in the Prometheus text format every
+// -Dtransport.metrics.interval seconds (default 60), replacing the file atomically.
+public final class RepositoryMetrics {
+
+    // Upper bounds of the latency buckets, in nanoseconds; anything slower lands in the overflow bucket
+    static final long[] BUCKET_BOUNDS = {
+            100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L,
+            10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    private static final RepositoryMetrics INSTANCE = new RepositoryMetrics();
+    private static final StackWalker STACK_WALKER =
+            StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final Map<CallSite, String> callSiteNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private ScheduledExecutorService dumper;
+
+    RepositoryMetrics() {}
+
+    public static RepositoryMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private record CallSite(Class<?> repository, Class<?> work) {}
+
+    <R> R record(GenericRepository<?, ?> repository, Object work, Supplier<R> call) {
+        int[] nesting = depth.get();
+        if (nesting[0] > 0) {
+            return call.get();
+        }
+        String name = operationName(repository.getClass(), work.getClass());
+        Operation operation = operations.computeIfAbsent(name, Operation::new);
+        nesting[0]++;
+        long start = System.nanoTime();
+        boolean failed = true;
+        R result = null;
+        try {
+            result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            nesting[0]--;
+            operation.record(System.nanoTime() - start, failed, failed ? 0 : rows(name, result));
+        }
+    }
+
+    private String operationName(Class<?> repositoryClass, Class<?> workClass) {
+        CallSite site = new CallSite(repositoryClass, workClass);
+        String cached = callSiteNames.get(site);
+        if (cached != null) {
+            return cached;
+        }
+        String[] methods = STACK_WALKER.walk(frames -> {
+            String immediate = null;
+            String outermost = null;
+            Iterator<StackWalker.StackFrame> it = frames.iterator();
+            while (it.hasNext()) {
+                StackWalker.StackFrame frame = it.next();
+                Class<?> declaring = frame.getDeclaringClass();
+                if (declaring == RepositoryMetrics.class) {
+                    continue;
+                }
+                if (!declaring.isAssignableFrom(repositoryClass) || declaring == Object.class) {
+                    if (outermost != null) {
+                        break;
+                    }
+                    continue;
+                }
+                String method = frame.getMethodName();
+                if (method.startsWith("lambda$")) {
+                    int end = method.indexOf('$', 7);
+                    method = method.substring(7, end > 7 ? end : method.length());
+                }
+                if (method.equals("withSession") || method.equals("inTransaction")) {
+                    continue;
+                }
+                if (immediate == null) {
+                    immediate = method;
+                }
+                outermost = method;
+            }
+            return new String[] {immediate, outermost};
+        });
+        String name = repositoryClass.getSimpleName() + "." + (methods[1] != null ? methods[1] : "unknown");
+        // A helper such as findPage runs the same lambda for several public methods
+        if (methods[0] != null && methods[0].equals(methods[1])) {
+            callSiteNames.put(site, name);
+        }
+        return name;
+    }
+
+    // Collections count their elements, pages their items and Optionals whether they hold a value; the
+    // forEach* streamers return how many rows they streamed. Anything else is a single row.
+    private static long rows(String operation, Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Page<?> page) {
+            return page.getItems().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Long count && operation.contains(".forEach")) {
+            return count;
+        }
+        return 1;
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            snapshots.add(operation.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(s -> s.operation));
+        return snapshots;
+    }
+
+    public void reset() {
+        operations.clear();
+    }
+
+    // Prometheus text exposition format, version 0.0.4
+    public String toPrometheusText() {
+        List<Snapshot> snapshots = snapshot();
+        StringBuilder sb = new StringBuilder();
+        counter(sb, snapshots, "transport_repository_calls_total", "Repository operations called", s -> s.calls);
+        counter(sb, snapshots, "transport_repository_errors_total", "Repository operations that threw",
+                s -> s.errors);
+        counter(sb, snapshots, "transport_repository_rows_total", "Rows returned by repository operations",
+                s -> s.rows);
+
+        sb.append("# HELP transport_repository_latency_seconds Repository operation latency\n");
+        sb.append("# TYPE transport_repository_latency_seconds histogram\n");
+        for (Snapshot s : snapshots) {
+            String label = "operation=\"" + escape(s.operation) + "\"";
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                cumulative += s.buckets[i];
+                sb.append("transport_repository_latency_seconds_bucket{").append(label).append(",le=\"")
+                        .append(seconds(BUCKET_BOUNDS[i])).append("\"} ").append(cumulative).append('\n');
+            }
+            sb.append("transport_repository_latency_seconds_bucket{").append(label).append(",le=\"+Inf\"} ")
+                    .append(s.calls).append('\n');
+            sb.append("transport_repository_latency_seconds_sum{").append(label).append("} ")
+                    .append(seconds(s.totalNanos)).append('\n');
+            sb.append("transport_repository_latency_seconds_count{").append(label).append("} ")
+                    .append(s.calls).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private interface Field {
+        long of(Snapshot snapshot);
+    }
+
+    private static void counter(StringBuilder sb, List<Snapshot> snapshots, String metric, String help, Field field) {
+        sb.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(metric).append(" counter\n");
+        for (Snapshot s : snapshots) {
+            sb.append(metric).append("{operation=\"").append(escape(s.operation)).append("\"} ")
+                    .append(field.of(s)).append('\n');
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public void writePrometheusFile(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, toPrometheusText());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Starts the periodic dump when -Dtransport.metrics.file is set; a final dump runs at shutdown
+    public synchronized void startFileDump() {
+        String file = System.getProperty("transport.metrics.file");
+        if (file == null || file.isBlank() || dumper != null) {
+            return;
+        }
+        Path path = Path.of(file);
+        long interval = Math.max(1, Long.getLong("transport.metrics.interval", 60));
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "repository-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleWithFixedDelay(() -> dump(path), interval, interval, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopFileDump() {
+        if (dumper == null) {
+            return;
+        }
+        dumper.shutdownNow();
+        dumper = null;
+        dump(Path.of(System.getProperty("transport.metrics.file")));
+    }
+
+    private void dump(Path path) {
+        try {
+            writePrometheusFile(path);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + path + ": " + e.getMessage());
+        }
+    }
+
+    static final class Operation {
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+        Operation(String name) {
+            this.name = name;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, boolean failed, long rowCount) {
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets[bucket(nanos)].increment();
+        }
+
+        // The counters are read one after another, so a snapshot taken under load may be off by the
+        // calls completing meanwhile; calls is kept no lower than the bucket total for the histogram
+        Snapshot snapshot() {
+            Snapshot s = new Snapshot();
+            s.operation = name;
+            s.buckets = new long[buckets.length];
+            for (int i = 0; i < buckets.length; i++) {
+                s.buckets[i] = buckets[i].sum();
+            }
+            s.errors = errors.sum();
+            s.rows = rows.sum();
+            s.totalNanos = totalNanos.sum();
+            s.maxNanos = maxNanos.get();
+            s.calls = Math.max(calls.sum(), Arrays.stream(s.buckets).sum());
+            return s;
+        }
+    }
+
+    static int bucket(long nanos) {
+        int low = 0;
+        int high = BUCKET_BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_BOUNDS[mid] < nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static class Snapshot {
+        public String operation;
+        public long calls;
+        public long errors;
+        public long rows;
+        public long totalNanos;
+        public long maxNanos;
+        // Per-bucket (not cumulative) counts; the last one is the overflow bucket
+        public long[] buckets;
+
+        public double meanMillis() {
+            return calls == 0 ? 0 : totalNanos / 1e6 / calls;
+        }
+
+        // Upper bound of the bucket holding the given percentile, capped at the slowest call seen
+        public double percentileMillis(double percent) {
+            long rank = (long) Math.ceil(percent / 100.0 * calls);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && rank > 0) {
+                    return Math.min(BUCKET_BOUNDS[i], maxNanos) / 1e6;
+                }
+            }
+            return maxNanos / 1e6;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.transportcompany.repository;
 
 import com.transportcompany.entity.TransportCompany;
-import org.hibernate.Session;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,33 +11,87 @@ public class TransportCompanyRepository extends GenericRepository<TransportCompa
         super(TransportCompany.class);
     }
 
+    // Deletes the company and everything it owns with set-based statements, children first, in one
+    // transaction. Nothing is loaded, so the size of the company's object graph does not matter.
+    @Override
+    public void deleteById(Long id) {
+        inTransaction("Error deleting company", session -> {
+            session.createMutationQuery("DELETE FROM Transport t WHERE t.company.id = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            // Transports of other companies that still reference this company's staff, fleet or clients
+            session.createMutationQuery("DELETE FROM Transport t WHERE t.driver.id IN " +
+                            "(SELECT e.id FROM Employee e WHERE e.company.id = :id)")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            session.createMutationQuery("DELETE FROM Transport t WHERE t.vehicle.id IN " +
+                            "(SELECT v.id FROM Vehicle v WHERE v.company.id = :id)")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            session.createMutationQuery("DELETE FROM Transport t WHERE t.client.id IN " +
+                            "(SELECT c.id FROM Client c WHERE c.company.id = :id)")
+                    .setParameter("id", id)
+                    .executeUpdate();
+
+            for (String entity : new String[] {"Employee", "Vehicle", "Client"}) {
+                session.createMutationQuery("DELETE FROM " + entity + " x WHERE x.company.id = :id")
+                        .setParameter("id", id)
+                        .executeUpdate();
+            }
+            session.createMutationQuery("DELETE FROM TransportCompany WHERE id = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            return null;
+        });
+    }
+
     public Optional<TransportCompany> findByName(String name) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM TransportCompany WHERE name = :name", TransportCompany.class)
                     .setParameter("name", name)
                     .uniqueResultOptional();
-        }
+        });
     }
 
     public List<TransportCompany> findAllSortedByName() {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM TransportCompany ORDER BY name ASC", TransportCompany.class)
                     .list();
-        }
+        });
     }
 
     public List<TransportCompany> findAllSortedByRevenue() {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM TransportCompany ORDER BY revenue DESC", TransportCompany.class)
                     .list();
-        }
+        });
+    }
+
+    // Atomic read-modify-write in the database, so concurrent adjustments never overwrite each other
+    public boolean adjustRevenue(Long companyId, BigDecimal delta) {
+        return inTransaction("Error updating revenue", session -> session.createMutationQuery(
+                        "UPDATE TransportCompany SET revenue = revenue + :delta WHERE id = :id")
+                .setParameter("delta", delta)
+                .setParameter("id", companyId)
+                .executeUpdate() == 1);
+    }
+
+    // [name, employeeCount] without loading the company or its employees
+    public Optional<Object[]> findNameAndEmployeeCount(Long id) {
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT c.name, (SELECT COUNT(e.id) FROM Employee e WHERE e.company.id = c.id) " +
+                    "FROM TransportCompany c WHERE c.id = :id", Object[].class)
+                    .setParameter("id", id)
+                    .uniqueResultOptional();
+        });
     }
 
     public TransportCompany findByIdWithDetails(Long id) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT c FROM TransportCompany c " +
                     "LEFT JOIN FETCH c.employees " +
@@ -46,6 +100,6 @@ public class TransportCompanyRepository extends GenericRepository<TransportCompa
                     "WHERE c.id = :id", TransportCompany.class)
                     .setParameter("id", id)
                     .uniqueResult();
-        }
+        });
     }
 }
@@ -1,65 +1,464 @@
 package com.transportcompany.repository;
 
+import com.transportcompany.entity.DailyRevenue;
 import com.transportcompany.entity.Transport;
 import com.transportcompany.enums.TransportType;
-import org.hibernate.Session;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.postgresql.PGConnection;
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public class TransportRepository extends GenericRepository<Transport, Long> {
 
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    // allocationSize of transports_seq: each nextval reserves the ids (value - 49 .. value]
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final String DATE_PATTERN =
+            "'^[1-9][0-9]{3}-(0[1-9]|1[0-2])-(0[1-9]|[12][0-9]|3[01])$'";
+    private static final String STAGE_COLUMNS = "id, start_point, end_point, departure_date, arrival_date, " +
+            "transport_type, cargo_description, cargo_weight, passenger_count, price, paid, driver, vehicle, client";
+
     public TransportRepository() {
         super(Transport.class);
     }
 
+    // Transport owns no associations, so a single DELETE replaces load-and-remove
+    @Override
+    public void deleteById(Long id) {
+        inTransaction("Error deleting transport", session -> session.createMutationQuery(
+                        "DELETE FROM Transport WHERE id = :id")
+                .setParameter("id", id)
+                .executeUpdate());
+    }
+
+    // Locks the row and returns [company_id, departuredate, transporttype, price, paid], the fields
+    // daily_revenue is keyed and summed on, as they are before a change
+    public Optional<Object[]> lockRevenueKey(Long id) {
+        return inTransaction("Error locking transport", session -> session.createNativeQuery(
+                        "SELECT company_id, departuredate, transporttype, price, paid FROM transports " +
+                        "WHERE id = :id FOR UPDATE", Object[].class)
+                .setParameter("id", id)
+                .addSynchronizedEntityClass(Transport.class)
+                .uniqueResultOptional());
+    }
+
+    // Locks and returns up to limit paid transports of the company that arrived before cutoff, oldest
+    // id first, as [id, departuredate, arrivaldate, price, transporttype, driver_id, vehicle_id,
+    // client_id, startpoint, endpoint]
+    public List<Object[]> lockArchivable(Long companyId, LocalDate cutoff, int limit) {
+        return inTransaction("Error selecting transports to archive", session -> session.createNativeQuery(
+                        "SELECT id, departuredate, arrivaldate, price, transporttype, driver_id, vehicle_id, " +
+                        "client_id, startpoint, endpoint FROM transports " +
+                        "WHERE company_id = :companyId AND paid AND arrivaldate < :cutoff " +
+                        "ORDER BY id LIMIT :limit FOR UPDATE", Object[].class)
+                .setParameter("companyId", companyId)
+                .setParameter("cutoff", cutoff)
+                .setParameter("limit", limit)
+                .addSynchronizedEntityClass(Transport.class)
+                .list());
+    }
+
+    public void deleteAllByIds(Collection<Long> ids) {
+        inTransaction("Error deleting transports", session -> session.createMutationQuery(
+                        "DELETE FROM Transport WHERE id IN (:ids)")
+                .setParameterList("ids", ids)
+                .executeUpdate());
+    }
+
     public List<Transport> findByCompanyId(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE company.id = :companyId", Transport.class)
                     .setParameter("companyId", companyId)
                     .list();
-        }
+        });
     }
 
     public List<Transport> findByCompanyIdSortedByDestination(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE company.id = :companyId ORDER BY endPoint ASC", Transport.class)
                     .setParameter("companyId", companyId)
                     .list();
+        });
+    }
+
+    // [id, driver id, vehicle id, departureDate, arrivalDate] for every transport of the company
+    public List<Object[]> findBookingsByCompany(Long companyId) {
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT t.id, t.driver.id, t.vehicle.id, t.departureDate, t.arrivalDate " +
+                    "FROM Transport t WHERE t.company.id = :companyId", Object[].class)
+                    .setParameter("companyId", companyId)
+                    .list();
+        });
+    }
+
+    public Page<Transport> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return findPage("e.company.id = :companyId", Map.of("companyId", companyId),
+                "departureDate", true, after, size, Transport::getDepartureDate);
+    }
+
+    public Page<Transport> findPageByCompanyIdSortedByDestination(Long companyId, PageCursor after, int size) {
+        return findPage("e.company.id = :companyId", Map.of("companyId", companyId),
+                "endPoint", true, after, size, Transport::getEndPoint);
+    }
+
+    // Streams the export projection of a company's transports through a server-side cursor, one row
+    // at a time. Row layout: id, startPoint, endPoint, departureDate, arrivalDate, transportType,
+    // cargoDescription, cargoWeight, passengerCount, price, paid, driver first name, driver last name,
+    // vehicle registration number, client name. Returns the number of rows streamed.
+    public long forEachExportRow(Long companyId, Consumer<Object[]> action) {
+        return forEachExportRow(companyId, null, action);
+    }
+
+    // Same as above, restricted by the filter's non-null criteria
+    public long forEachExportRow(Long companyId, ExportFilter filter, Consumer<Object[]> action) {
+        StringBuilder hql = new StringBuilder(
+                "SELECT t.id, t.startPoint, t.endPoint, t.departureDate, t.arrivalDate, t.transportType, " +
+                "t.cargoDescription, t.cargoWeight, t.passengerCount, t.price, t.paid, " +
+                "d.firstName, d.lastName, v.registrationNumber, c.name " +
+                "FROM Transport t LEFT JOIN t.driver d LEFT JOIN t.vehicle v LEFT JOIN t.client c " +
+                "WHERE t.company.id = :companyId");
+        if (filter != null && filter.startDate != null) {
+            hql.append(" AND t.departureDate >= :startDate");
         }
+        if (filter != null && filter.endDate != null) {
+            hql.append(" AND t.arrivalDate <= :endDate");
+        }
+        if (filter != null && filter.transportType != null) {
+            hql.append(" AND t.transportType = :type");
+        }
+        hql.append(" ORDER BY t.id");
+
+        return inTransaction("Error exporting transports", session -> {
+            var query = session.createQuery(hql.toString(), Object[].class)
+                    .setParameter("companyId", companyId);
+            if (filter != null && filter.startDate != null) {
+                query.setParameter("startDate", filter.startDate);
+            }
+            if (filter != null && filter.endDate != null) {
+                query.setParameter("endDate", filter.endDate);
+            }
+            if (filter != null && filter.transportType != null) {
+                query.setParameter("type", filter.transportType);
+            }
+            try (ScrollableResults<Object[]> rows = query
+                    .setFetchSize(EXPORT_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                long count = 0;
+                while (rows.next()) {
+                    action.accept(rows.get());
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    // Streams [id, departureDate, arrivalDate, price, transportType, paid, driverId, vehicleId, clientId,
+    // endPoint] for every transport of the company, the columns TransportColumnStore holds
+    public long forEachColumnRow(Long companyId, Consumer<Object[]> action) {
+        return inTransaction("Error loading transports", session -> {
+            try (ScrollableResults<Object[]> rows = session.createQuery(
+                            "SELECT t.id, t.departureDate, t.arrivalDate, t.price, t.transportType, t.paid, " +
+                            "d.id, v.id, c.id, t.endPoint " +
+                            "FROM Transport t LEFT JOIN t.driver d LEFT JOIN t.vehicle v LEFT JOIN t.client c " +
+                            "WHERE t.company.id = :companyId", Object[].class)
+                    .setParameter("companyId", companyId)
+                    .setFetchSize(EXPORT_FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                long count = 0;
+                while (rows.next()) {
+                    action.accept(rows.get());
+                    count++;
+                }
+                return count;
+            }
+        });
+    }
+
+    // Rows of [key, transportCount, paidCount, paidRevenue, unpaidAmount], one per value of groupBy
+    public List<Object[]> getBreakdown(Long companyId, GroupBy groupBy, ReportFilter filter) {
+        StringBuilder hql = new StringBuilder("SELECT ").append(groupBy.path).append(", COUNT(t.id), " +
+                "COALESCE(SUM(CASE WHEN t.paid = true THEN 1 ELSE 0 END), 0), " +
+                "COALESCE(SUM(CASE WHEN t.paid = true THEN t.price ELSE 0 END), 0), " +
+                "COALESCE(SUM(CASE WHEN t.paid = false THEN t.price ELSE 0 END), 0) " +
+                "FROM Transport t WHERE t.company.id = :companyId");
+        if (filter.startDate != null) {
+            hql.append(" AND t.departureDate >= :startDate");
+        }
+        if (filter.endDate != null) {
+            hql.append(" AND t.arrivalDate <= :endDate");
+        }
+        if (filter.transportType != null) {
+            hql.append(" AND t.transportType = :type");
+        }
+        if (filter.paid != null) {
+            hql.append(" AND t.paid = :paid");
+        }
+        if (filter.driverId != null) {
+            hql.append(" AND t.driver.id = :driverId");
+        }
+        if (filter.destination != null) {
+            hql.append(" AND t.endPoint = :destination");
+        }
+        hql.append(" GROUP BY ").append(groupBy.path);
+
+        return withSession(session -> {
+            var query = session.createQuery(hql.toString(), Object[].class)
+                    .setParameter("companyId", companyId);
+            if (filter.startDate != null) {
+                query.setParameter("startDate", filter.startDate);
+            }
+            if (filter.endDate != null) {
+                query.setParameter("endDate", filter.endDate);
+            }
+            if (filter.transportType != null) {
+                query.setParameter("type", filter.transportType);
+            }
+            if (filter.paid != null) {
+                query.setParameter("paid", filter.paid);
+            }
+            if (filter.driverId != null) {
+                query.setParameter("driverId", filter.driverId);
+            }
+            if (filter.destination != null) {
+                query.setParameter("destination", filter.destination);
+            }
+            return query.list();
+        });
+    }
+
+    // Bulk-loads CSV rows in the export column layout (header already consumed) into a company:
+    // COPY into a per-run UNLOGGED staging table, resolve names and validate with set-based SQL,
+    // then insert every valid row with one INSERT ... SELECT. Rejected rows are passed to rejected as
+    // (row number, reason, the 14 raw fields). Returns the number of transports inserted.
+    public long copyImportCsv(Long companyId, Reader csvRows, Consumer<Object[]> rejected) {
+        String stage = "transport_import_" + UUID.randomUUID().toString().replace("-", "");
+        return inTransaction("Error importing transports", session -> session.doReturningWork(connection -> {
+            try (Statement st = connection.createStatement()) {
+                st.execute("CREATE UNLOGGED TABLE " + stage + " (row_no bigint GENERATED ALWAYS AS IDENTITY, " +
+                        "id text, start_point text, end_point text, departure_date text, arrival_date text, " +
+                        "transport_type text, cargo_description text, cargo_weight text, passenger_count text, " +
+                        "price text, paid text, driver text, vehicle text, client text, " +
+                        "driver_id bigint, vehicle_id bigint, client_id bigint, reason text)");
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                            "COPY " + stage + " (" + STAGE_COLUMNS + ") FROM STDIN WITH (FORMAT csv)", csvRows);
+                } catch (IOException e) {
+                    throw new SQLException("Error reading CSV rows", e);
+                }
+
+                // First id wins on duplicate names, as in the JSON import
+                executeForCompany(connection, "UPDATE " + stage + " s SET driver_id = e.id FROM " +
+                        "(SELECT firstname || ' ' || lastname AS name, MIN(id) AS id FROM employees " +
+                        "WHERE company_id = ? GROUP BY 1) e WHERE e.name = s.driver", companyId);
+                executeForCompany(connection, "UPDATE " + stage + " s SET vehicle_id = v.id FROM " +
+                        "(SELECT registrationnumber AS reg, MIN(id) AS id FROM vehicles " +
+                        "WHERE company_id = ? GROUP BY 1) v WHERE v.reg = s.vehicle", companyId);
+                executeForCompany(connection, "UPDATE " + stage + " s SET client_id = c.id FROM " +
+                        "(SELECT name, MIN(id) AS id FROM clients " +
+                        "WHERE company_id = ? GROUP BY 1) c WHERE c.name = s.client", companyId);
+
+                st.execute("UPDATE " + stage + " SET reason = CASE " +
+                        "WHEN coalesce(trim(start_point), '') = '' OR coalesce(trim(end_point), '') = '' " +
+                        "THEN 'Start and end point are required' " +
+                        "WHEN length(start_point) > 255 OR length(end_point) > 255 " +
+                        "THEN 'Start or end point is too long' " +
+                        "WHEN length(cargo_description) > 500 THEN 'Cargo description is too long' " +
+                        "WHEN coalesce(departure_date, '') !~ " + DATE_PATTERN +
+                        " OR coalesce(arrival_date, '') !~ " + DATE_PATTERN +
+                        " THEN 'Invalid departure or arrival date' " +
+                        "WHEN " + dayOutOfMonth("departure_date") + " OR " + dayOutOfMonth("arrival_date") +
+                        " THEN 'Invalid departure or arrival date' " +
+                        "WHEN arrival_date::date < departure_date::date " +
+                        "THEN 'Arrival date cannot be before departure date' " +
+                        "WHEN coalesce(transport_type, '') NOT IN (" + transportTypeList() + ") " +
+                        "THEN 'Unknown transport type' " +
+                        "WHEN coalesce(price, '') !~ '^[0-9]{1,8}(\\.[0-9]{1,2})?$' THEN 'Invalid price' " +
+                        "WHEN price::numeric <= 0 THEN 'Price must be positive' " +
+                        "WHEN cargo_weight !~ '^[0-9]+(\\.[0-9]+)?([eE][+-]?[0-9]{1,2})?$' " +
+                        "THEN 'Invalid cargo weight' " +
+                        "WHEN passenger_count !~ '^[0-9]{1,9}$' THEN 'Invalid passenger count' " +
+                        "WHEN coalesce(lower(paid), '') NOT IN ('true', 'false') " +
+                        "THEN 'Paid must be true or false' " +
+                        "WHEN driver IS NOT NULL AND driver_id IS NULL THEN 'Unknown driver ' || driver " +
+                        "WHEN vehicle IS NOT NULL AND vehicle_id IS NULL THEN 'Unknown vehicle ' || vehicle " +
+                        "WHEN client IS NOT NULL AND client_id IS NULL THEN 'Unknown client ' || client " +
+                        "END");
+
+                try (ResultSet rs = st.executeQuery("SELECT row_no, reason, " + STAGE_COLUMNS +
+                        " FROM " + stage + " WHERE reason IS NOT NULL ORDER BY row_no")) {
+                    while (rs.next()) {
+                        Object[] row = new Object[16];
+                        row[0] = rs.getLong(1);
+                        for (int i = 1; i < row.length; i++) {
+                            row[i] = rs.getString(i + 1);
+                        }
+                        rejected.accept(row);
+                    }
+                }
+
+                long valid;
+                try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + stage + " WHERE reason IS NULL")) {
+                    rs.next();
+                    valid = rs.getLong(1);
+                }
+                if (valid > 0) {
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "WITH valid AS (SELECT s.*, row_number() OVER (ORDER BY row_no) - 1 AS rn " +
+                            "FROM " + stage + " s WHERE reason IS NULL), " +
+                            "blocks AS (SELECT b, nextval('transports_seq') AS hi FROM generate_series(0, ?) b) " +
+                            "INSERT INTO transports (id, startpoint, endpoint, departuredate, arrivaldate, " +
+                            "transporttype, cargodescription, cargoweight, passengercount, price, paid, " +
+                            "company_id, driver_id, vehicle_id, client_id) " +
+                            "SELECT blocks.hi - " + (ID_BLOCK_SIZE - 1) + " + v.rn % " + ID_BLOCK_SIZE + ", " +
+                            "v.start_point, v.end_point, v.departure_date::date, v.arrival_date::date, " +
+                            "v.transport_type, NULLIF(v.cargo_description, ''), v.cargo_weight::double precision, " +
+                            "v.passenger_count::integer, v.price::numeric, lower(v.paid)::boolean, ?, " +
+                            "v.driver_id, v.vehicle_id, v.client_id " +
+                            "FROM valid v JOIN blocks ON blocks.b = v.rn / " + ID_BLOCK_SIZE)) {
+                        insert.setLong(1, (valid - 1) / ID_BLOCK_SIZE);
+                        insert.setLong(2, companyId);
+                        insert.executeUpdate();
+                    }
+
+                    // Paid rows count towards revenue, as markAsPaid would have done
+                    executeForCompany(connection, "UPDATE transport_companies SET revenue = revenue + " +
+                            "(SELECT coalesce(sum(price::numeric), 0) FROM " + stage +
+                            " WHERE reason IS NULL AND lower(paid) = 'true') WHERE id = ?", companyId);
+                    executeForCompany(connection, DailyRevenueRepository.upsertSql(
+                            "SELECT ?::bigint, departure_date::date, transport_type, " +
+                            "coalesce(sum(price::numeric) FILTER (WHERE lower(paid) = 'true'), 0), count(*) " +
+                            "FROM " + stage + " WHERE reason IS NULL GROUP BY departure_date::date, transport_type"),
+                            companyId);
+                }
+
+                st.execute("DROP TABLE " + stage);
+                return valid;
+            }
+        }));
+    }
+
+    private static void executeForCompany(Connection connection, String sql, Long companyId)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, companyId);
+            statement.executeUpdate();
+        }
+    }
+
+    // For a value already matching DATE_PATTERN: true when the day is past the end of its month
+    // (e.g. 2023-02-30), checked without a ::date cast that would abort the whole statement
+    private static String dayOutOfMonth(String column) {
+        return "substr(" + column + ", 9, 2)::int > extract(day from (substr(" + column + ", 1, 7) || '-01')::date " +
+                "+ interval '1 month' - interval '1 day')";
+    }
+
+    private static String transportTypeList() {
+        StringBuilder types = new StringBuilder();
+        for (TransportType type : TransportType.values()) {
+            if (!types.isEmpty()) {
+                types.append(", ");
+            }
+            types.append('\'').append(type.name()).append('\'');
+        }
+        return types.toString();
+    }
+
+    // Flips the paid flag only if it differs, and returns [price, company_id, departuredate, transporttype]
+    // of the row that changed.
+    // The conditional UPDATE takes the row lock, so of two concurrent callers exactly one sees the row.
+    public Optional<Object[]> setPaid(Long transportId, boolean paid) {
+        return inTransaction("Error updating paid status", session -> session.createNativeQuery(
+                        "UPDATE transports SET paid = :paid WHERE id = :id AND paid <> :paid " +
+                        "RETURNING price, company_id, departuredate, transporttype", Object[].class)
+                .setParameter("paid", paid)
+                .setParameter("id", transportId)
+                .addSynchronizedEntityClass(Transport.class)
+                .uniqueResultOptional());
+    }
+
+    // Marks every unpaid transport of the client as paid in one statement, optionally limited to
+    // the findByDateRange window, and returns [company_id, count, total price] per affected company.
+    // daily_revenue is updated by the same statement.
+    public List<Object[]> settleUnpaidByClient(Long clientId, LocalDate startDate, LocalDate endDate) {
+        StringBuilder sql = new StringBuilder(
+                "WITH settled AS (UPDATE transports SET paid = true WHERE client_id = :clientId AND paid = false");
+        if (startDate != null) {
+            sql.append(" AND departuredate >= :startDate");
+        }
+        if (endDate != null) {
+            sql.append(" AND arrivaldate <= :endDate");
+        }
+        sql.append(" RETURNING company_id, departuredate, transporttype, price), " +
+                "rolled AS (" + DailyRevenueRepository.upsertSql(
+                        "SELECT company_id, departuredate, transporttype, SUM(price), 0 FROM settled " +
+                        "WHERE company_id IS NOT NULL GROUP BY company_id, departuredate, transporttype") + ") " +
+                "SELECT company_id, COUNT(*), SUM(price) FROM settled GROUP BY company_id");
+
+        return inTransaction("Error settling client transports", session -> {
+            var query = session.createNativeQuery(sql.toString(), Object[].class)
+                    .setParameter("clientId", clientId)
+                    .addSynchronizedEntityClass(Transport.class)
+                    .addSynchronizedEntityClass(DailyRevenue.class);
+            if (startDate != null) {
+                query.setParameter("startDate", startDate);
+            }
+            if (endDate != null) {
+                query.setParameter("endDate", endDate);
+            }
+            return query.list();
+        });
     }
 
     public List<Transport> findByDriverId(Long driverId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE driver.id = :driverId", Transport.class)
                     .setParameter("driverId", driverId)
                     .list();
-        }
+        });
     }
 
     public List<Transport> findByClientId(Long clientId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE client.id = :clientId", Transport.class)
                     .setParameter("clientId", clientId)
                     .list();
-        }
+        });
     }
 
     public List<Transport> findUnpaidByClientId(Long clientId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE client.id = :clientId AND paid = false", Transport.class)
                     .setParameter("clientId", clientId)
                     .list();
-        }
+        });
     }
 
     public List<Transport> findByDateRange(Long companyId, LocalDate startDate, LocalDate endDate) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE company.id = :companyId " +
                     "AND departureDate >= :startDate AND arrivalDate <= :endDate", Transport.class)
@@ -67,11 +466,11 @@ public class TransportRepository extends GenericRepository<Transport, Long> {
                     .setParameter("startDate", startDate)
                     .setParameter("endDate", endDate)
                     .list();
-        }
+        });
     }
 
     public List<Transport> findByDestination(Long companyId, String destination) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE company.id = :companyId " +
                     "AND (LOWER(startPoint) LIKE LOWER(:dest) OR LOWER(endPoint) LIKE LOWER(:dest))",
@@ -79,43 +478,43 @@ public class TransportRepository extends GenericRepository<Transport, Long> {
                     .setParameter("companyId", companyId)
                     .setParameter("dest", "%" + destination + "%")
                     .list();
-        }
+        });
     }
 
     public List<Transport> findByTransportType(Long companyId, TransportType type) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Transport WHERE company.id = :companyId AND transportType = :type", Transport.class)
                     .setParameter("companyId", companyId)
                     .setParameter("type", type)
                     .list();
-        }
+        });
     }
 
     public BigDecimal getTotalRevenueByCompany(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             BigDecimal result = session.createQuery(
                     "SELECT COALESCE(SUM(price), 0) FROM Transport WHERE company.id = :companyId AND paid = true",
                     BigDecimal.class)
                     .setParameter("companyId", companyId)
                     .uniqueResult();
             return result != null ? result : BigDecimal.ZERO;
-        }
+        });
     }
 
     public BigDecimal getTotalRevenueByDriver(Long driverId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             BigDecimal result = session.createQuery(
                     "SELECT COALESCE(SUM(price), 0) FROM Transport WHERE driver.id = :driverId AND paid = true",
                     BigDecimal.class)
                     .setParameter("driverId", driverId)
                     .uniqueResult();
             return result != null ? result : BigDecimal.ZERO;
-        }
+        });
     }
 
     public BigDecimal getRevenueByDateRange(Long companyId, LocalDate startDate, LocalDate endDate) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             BigDecimal result = session.createQuery(
                     "SELECT COALESCE(SUM(price), 0) FROM Transport " +
                     "WHERE company.id = :companyId AND paid = true " +
@@ -125,24 +524,95 @@ public class TransportRepository extends GenericRepository<Transport, Long> {
                     .setParameter("endDate", endDate)
                     .uniqueResult();
             return result != null ? result : BigDecimal.ZERO;
-        }
+        });
     }
 
     public long countByCompany(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT COUNT(*) FROM Transport WHERE company.id = :companyId", Long.class)
                     .setParameter("companyId", companyId)
                     .uniqueResult();
-        }
+        });
+    }
+
+    public long countByIds(Collection<Long> ids) {
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT COUNT(*) FROM Transport WHERE id IN (:ids)", Long.class)
+                    .setParameterList("ids", ids)
+                    .uniqueResult();
+        });
+    }
+
+    // [totalCount, paidCount, paidRevenue, unpaidAmount] in a single pass over the company's transports
+    public Object[] getPaymentTotalsByCompany(Long companyId) {
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT COUNT(t.id), " +
+                    "COALESCE(SUM(CASE WHEN t.paid = true THEN 1 ELSE 0 END), 0), " +
+                    "COALESCE(SUM(CASE WHEN t.paid = true THEN t.price ELSE 0 END), 0), " +
+                    "COALESCE(SUM(CASE WHEN t.paid = false THEN t.price ELSE 0 END), 0) " +
+                    "FROM Transport t WHERE t.company.id = :companyId", Object[].class)
+                    .setParameter("companyId", companyId)
+                    .uniqueResult();
+        });
+    }
+
+    // Rows of [driverId, firstName, lastName, transportCount, paidRevenue], busiest drivers first. Only
+    // the company's own transports count, not ones another company booked the driver for, to match
+    // TransportColumnStore and TransportArchive.
+    public List<Object[]> getDriverStatistics(Long companyId) {
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT e.id, e.firstName, e.lastName, COUNT(t.id), " +
+                    "COALESCE(SUM(CASE WHEN t.paid = true THEN t.price ELSE 0 END), 0) " +
+                    "FROM Employee e LEFT JOIN e.transports t ON t.company.id = :companyId " +
+                    "WHERE e.company.id = :companyId " +
+                    "GROUP BY e.id, e.firstName, e.lastName " +
+                    "ORDER BY COUNT(t.id) DESC, e.id ASC", Object[].class)
+                    .setParameter("companyId", companyId)
+                    .list();
+        });
     }
 
     public long countByDriver(Long driverId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT COUNT(*) FROM Transport WHERE driver.id = :driverId", Long.class)
                     .setParameter("driverId", driverId)
                     .uniqueResult();
+        });
+    }
+
+    // Report criteria; null fields are not applied. The date range has the semantics of findByDateRange.
+    public static class ReportFilter {
+        public LocalDate startDate;
+        public LocalDate endDate;
+        public TransportType transportType;
+        public Boolean paid;
+        public Long driverId;
+        public String destination;
+    }
+
+    public enum GroupBy {
+        DRIVER("t.driver.id"),
+        VEHICLE("t.vehicle.id"),
+        CLIENT("t.client.id"),
+        DESTINATION("t.endPoint"),
+        TYPE("t.transportType");
+
+        private final String path;
+
+        GroupBy(String path) {
+            this.path = path;
         }
     }
+
+    // Export criteria; null fields are not applied. The date range has the semantics of findByDateRange.
+    public static class ExportFilter {
+        public LocalDate startDate;
+        public LocalDate endDate;
+        public TransportType transportType;
+    }
 }
@@ -0,0 +1,53 @@
+package com.transportcompany.repository;
+
+import com.transportcompany.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import java.util.function.Supplier;
+
+// Runs several repository calls on one Session and one transaction. Repository methods invoked
+// inside execute/run join the thread's current unit of work instead of opening their own session;
+// nested calls join the outermost one.
+public final class UnitOfWork {
+
+    private static final ThreadLocal<Session> currentSession = new ThreadLocal<>();
+
+    private UnitOfWork() {}
+
+    public static <R> R execute(Supplier<R> work) {
+        if (currentSession.get() != null) {
+            return work.get();
+        }
+
+        Transaction transaction = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            currentSession.set(session);
+            transaction = session.beginTransaction();
+            R result = work.get();
+            transaction.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            currentSession.remove();
+        }
+    }
+
+    public static void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static boolean isActive() {
+        return currentSession.get() != null;
+    }
+
+    static Session currentSession() {
+        return currentSession.get();
+    }
+}
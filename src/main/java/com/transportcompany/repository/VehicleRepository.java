@@ -2,8 +2,10 @@ package com.transportcompany.repository;
 
 import com.transportcompany.entity.Vehicle;
 import com.transportcompany.enums.VehicleType;
-import org.hibernate.Session;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class VehicleRepository extends GenericRepository<Vehicle, Long> {
@@ -13,40 +15,68 @@ public class VehicleRepository extends GenericRepository<Vehicle, Long> {
     }
 
     public List<Vehicle> findByCompanyId(Long companyId) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Vehicle WHERE company.id = :companyId", Vehicle.class)
                     .setParameter("companyId", companyId)
+                    .setCacheable(true)
                     .list();
-        }
+        });
+    }
+
+    public Map<String, Long> findIdsByRegistrationNumber(Long companyId) {
+        return withSession(session -> {
+            Map<String, Long> ids = new HashMap<>();
+            for (Object[] row : session.createQuery(
+                    "SELECT v.registrationNumber, v.id FROM Vehicle v WHERE v.company.id = :companyId",
+                    Object[].class)
+                    .setParameter("companyId", companyId)
+                    .list()) {
+                ids.put((String) row[0], (Long) row[1]);
+            }
+            return ids;
+        });
     }
 
     public Optional<Vehicle> findByRegistrationNumber(String registrationNumber) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Vehicle WHERE registrationNumber = :regNum", Vehicle.class)
                     .setParameter("regNum", registrationNumber)
                     .uniqueResultOptional();
+        });
+    }
+
+    // The given registration numbers that some vehicle already has
+    public List<String> findExistingRegistrationNumbers(Collection<String> registrationNumbers) {
+        if (registrationNumbers.isEmpty()) {
+            return List.of();
         }
+        return withSession(session -> {
+            return session.createQuery(
+                    "SELECT registrationNumber FROM Vehicle WHERE registrationNumber IN (:regNums)", String.class)
+                    .setParameterList("regNums", registrationNumbers)
+                    .list();
+        });
     }
 
     public List<Vehicle> findByVehicleType(Long companyId, VehicleType vehicleType) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "FROM Vehicle WHERE company.id = :companyId AND vehicleType = :type", Vehicle.class)
                     .setParameter("companyId", companyId)
                     .setParameter("type", vehicleType)
                     .list();
-        }
+        });
     }
 
     public Vehicle findByIdWithTransports(Long id) {
-        try (Session session = getSession()) {
+        return withSession(session -> {
             return session.createQuery(
                     "SELECT DISTINCT v FROM Vehicle v LEFT JOIN FETCH v.transports WHERE v.id = :id",
                     Vehicle.class)
                     .setParameter("id", id)
                     .uniqueResult();
-        }
+        });
     }
 }
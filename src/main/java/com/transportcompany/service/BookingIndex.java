@@ -0,0 +1,284 @@
+package com.transportcompany.service;
+
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.util.IntervalTree;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory index of when each driver and vehicle is booked, one interval tree per driver and per
+// vehicle over the [departureDate, arrivalDate] days of their transports. A company is loaded from
+// the database the first time it is asked for and is then kept current by TransportService; paths
+// that change transports in bulk invalidate it so the next use reloads.
+//
+// Creates and updates check and book while holding lock(companyId), which outlives invalidation, and
+// loads run under the same lock, so a load never starts while a booking is still being committed.
+// Each invalidation bumps the company's generation, and a load that raced with one is not published.
+public class BookingIndex {
+
+    private static final BookingIndex INSTANCE = new BookingIndex(new TransportRepository());
+    private static final int LOAD_ATTEMPTS = 3;
+
+    private final TransportRepository repository;
+    private final Map<Long, CompanyBookings> companies = new ConcurrentHashMap<>();
+    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    BookingIndex(TransportRepository repository) {
+        this.repository = repository;
+    }
+
+    public static BookingIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Held by callers across check-then-book, for as long as the booking's transaction runs
+    public Object lock(Long companyId) {
+        return locks.computeIfAbsent(companyId, id -> new Object());
+    }
+
+    public CompanyBookings forCompany(Long companyId) {
+        CompanyBookings bookings = companies.get(companyId);
+        if (bookings != null) {
+            return bookings;
+        }
+        synchronized (lock(companyId)) {
+            CompanyBookings loaded = null;
+            for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+                bookings = companies.get(companyId);
+                if (bookings != null) {
+                    return bookings;
+                }
+                long generation = generation(companyId).get();
+                loaded = load(companyId);
+                CompanyBookings candidate = loaded;
+                bookings = companies.compute(companyId, (id, current) -> current != null ? current
+                        : generation(id).get() == generation ? candidate : null);
+                if (bookings != null) {
+                    return bookings;
+                }
+            }
+            // Still being invalidated: serve this caller a private copy and let the next one load again
+            return loaded;
+        }
+    }
+
+    public void remove(Long transportId) {
+        for (CompanyBookings bookings : companies.values()) {
+            bookings.remove(transportId);
+        }
+    }
+
+    public void invalidate(Long companyId) {
+        companies.compute(companyId, (id, current) -> {
+            generation(id).incrementAndGet();
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        for (Long companyId : companies.keySet()) {
+            invalidate(companyId);
+        }
+    }
+
+    private AtomicLong generation(Long companyId) {
+        return generations.computeIfAbsent(companyId, id -> new AtomicLong());
+    }
+
+    private CompanyBookings load(Long companyId) {
+        CompanyBookings bookings = new CompanyBookings();
+        for (Object[] row : repository.findBookingsByCompany(companyId)) {
+            bookings.add((Long) row[0], (Long) row[1], (Long) row[2], (LocalDate) row[3], (LocalDate) row[4]);
+        }
+        return bookings;
+    }
+
+    // The questions DispatchService asks when ranking candidates for an order
+    public interface BookingView {
+        Set<Long> busyDrivers(LocalDate start, LocalDate end);
+
+        Set<Long> busyVehicles(LocalDate start, LocalDate end);
+
+        // Days each driver is booked inside [from, to]
+        Map<Long, Long> driverBookedDays(LocalDate from, LocalDate to);
+    }
+
+    // Bookings of one company. All methods lock the instance, so readers see each booking whole;
+    // callers that check and then book hold BookingIndex.lock across both steps.
+    public static class CompanyBookings implements BookingView {
+        private final Map<Long, IntervalTree<Long>> drivers = new HashMap<>();
+        private final Map<Long, IntervalTree<Long>> vehicles = new HashMap<>();
+        private final Map<Long, Booking> bookings = new HashMap<>();
+
+        // Ids of the driver's transports overlapping the window, other than excludeTransportId
+        public synchronized List<Long> driverConflicts(Long driverId, LocalDate start, LocalDate end,
+                                                       Long excludeTransportId) {
+            return conflicts(drivers.get(driverId), start, end, excludeTransportId);
+        }
+
+        public synchronized List<Long> vehicleConflicts(Long vehicleId, LocalDate start, LocalDate end,
+                                                        Long excludeTransportId) {
+            return conflicts(vehicles.get(vehicleId), start, end, excludeTransportId);
+        }
+
+        @Override
+        public synchronized Set<Long> busyDrivers(LocalDate start, LocalDate end) {
+            return busy(drivers, start, end);
+        }
+
+        @Override
+        public synchronized Set<Long> busyVehicles(LocalDate start, LocalDate end) {
+            return busy(vehicles, start, end);
+        }
+
+        @Override
+        public synchronized Map<Long, Long> driverBookedDays(LocalDate from, LocalDate to) {
+            return bookedDays(drivers, bookings, from, to);
+        }
+
+        // Unlocked copy of the bookings overlapping [from, to], for many threads to query at once
+        public synchronized Snapshot snapshot(LocalDate from, LocalDate to) {
+            long lo = from.toEpochDay();
+            long hi = to.toEpochDay();
+            Snapshot snapshot = new Snapshot();
+            bookings.forEach((transportId, booking) -> {
+                if (booking.start > hi || booking.end < lo) {
+                    return;
+                }
+                snapshot.bookings.put(transportId, booking);
+                if (booking.driverId != null) {
+                    snapshot.drivers.computeIfAbsent(booking.driverId, id -> new IntervalTree<>())
+                            .insert(booking.start, booking.end, transportId);
+                }
+                if (booking.vehicleId != null) {
+                    snapshot.vehicles.computeIfAbsent(booking.vehicleId, id -> new IntervalTree<>())
+                            .insert(booking.start, booking.end, transportId);
+                }
+            });
+            return snapshot;
+        }
+
+        public synchronized void add(Long transportId, Long driverId, Long vehicleId,
+                                     LocalDate start, LocalDate end) {
+            remove(transportId);
+            Booking booking = new Booking(driverId, vehicleId, start.toEpochDay(), end.toEpochDay());
+            bookings.put(transportId, booking);
+            if (driverId != null) {
+                drivers.computeIfAbsent(driverId, id -> new IntervalTree<>())
+                        .insert(booking.start, booking.end, transportId);
+            }
+            if (vehicleId != null) {
+                vehicles.computeIfAbsent(vehicleId, id -> new IntervalTree<>())
+                        .insert(booking.start, booking.end, transportId);
+            }
+        }
+
+        public synchronized void remove(Long transportId) {
+            Booking booking = bookings.remove(transportId);
+            if (booking == null) {
+                return;
+            }
+            removeFrom(drivers, booking.driverId, booking, transportId);
+            removeFrom(vehicles, booking.vehicleId, booking, transportId);
+        }
+
+        private static List<Long> conflicts(IntervalTree<Long> tree, LocalDate start, LocalDate end,
+                                            Long excludeTransportId) {
+            if (tree == null) {
+                return List.of();
+            }
+            List<Long> conflicts = new ArrayList<>();
+            tree.forEachOverlapping(start.toEpochDay(), end.toEpochDay(), transportId -> {
+                if (!Objects.equals(transportId, excludeTransportId)) {
+                    conflicts.add(transportId);
+                }
+            });
+            return conflicts;
+        }
+
+        private static Set<Long> busy(Map<Long, IntervalTree<Long>> trees, LocalDate start, LocalDate end) {
+            long from = start.toEpochDay();
+            long to = end.toEpochDay();
+            Set<Long> busy = new HashSet<>();
+            trees.forEach((id, tree) -> {
+                if (tree.overlaps(from, to)) {
+                    busy.add(id);
+                }
+            });
+            return busy;
+        }
+
+        private static Map<Long, Long> bookedDays(Map<Long, IntervalTree<Long>> drivers, Map<Long, Booking> bookings,
+                                                  LocalDate from, LocalDate to) {
+            long lo = from.toEpochDay();
+            long hi = to.toEpochDay();
+            Map<Long, Long> days = new HashMap<>();
+            drivers.forEach((driverId, tree) -> tree.forEachOverlapping(lo, hi, transportId -> {
+                Booking booking = bookings.get(transportId);
+                days.merge(driverId, Math.min(booking.end, hi) - Math.max(booking.start, lo) + 1, Long::sum);
+            }));
+            return days;
+        }
+
+        private static void removeFrom(Map<Long, IntervalTree<Long>> trees, Long key, Booking booking,
+                                       Long transportId) {
+            if (key == null) {
+                return;
+            }
+            IntervalTree<Long> tree = trees.get(key);
+            if (tree != null) {
+                tree.remove(booking.start, booking.end, transportId);
+                if (tree.isEmpty()) {
+                    trees.remove(key);
+                }
+            }
+        }
+    }
+
+    // Never modified after CompanyBookings.snapshot builds it, so reads need no lock. Only answers
+    // questions about days inside the window it was taken for.
+    public static final class Snapshot implements BookingView {
+        private final Map<Long, IntervalTree<Long>> drivers = new HashMap<>();
+        private final Map<Long, IntervalTree<Long>> vehicles = new HashMap<>();
+        private final Map<Long, Booking> bookings = new HashMap<>();
+
+        private Snapshot() {}
+
+        @Override
+        public Set<Long> busyDrivers(LocalDate start, LocalDate end) {
+            return CompanyBookings.busy(drivers, start, end);
+        }
+
+        @Override
+        public Set<Long> busyVehicles(LocalDate start, LocalDate end) {
+            return CompanyBookings.busy(vehicles, start, end);
+        }
+
+        @Override
+        public Map<Long, Long> driverBookedDays(LocalDate from, LocalDate to) {
+            return CompanyBookings.bookedDays(drivers, bookings, from, to);
+        }
+    }
+
+    private static class Booking {
+        private final Long driverId;
+        private final Long vehicleId;
+        private final long start;
+        private final long end;
+
+        private Booking(Long driverId, Long vehicleId, long start, long end) {
+            this.driverId = driverId;
+            this.vehicleId = vehicleId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
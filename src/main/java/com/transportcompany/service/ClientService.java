@@ -1,33 +1,52 @@
 package com.transportcompany.service;
 
 import com.transportcompany.entity.Client;
-import com.transportcompany.entity.TransportCompany;
 import com.transportcompany.repository.ClientRepository;
+import com.transportcompany.repository.DailyRevenueRepository;
+import com.transportcompany.repository.GenericRepository;
+import com.transportcompany.repository.Page;
+import com.transportcompany.repository.PageCursor;
 import com.transportcompany.repository.TransportCompanyRepository;
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.repository.UnitOfWork;
 import com.transportcompany.validation.ValidationException;
 import com.transportcompany.validation.ValidationUtil;
+import org.hibernate.exception.ConstraintViolationException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class ClientService {
 
     private final ClientRepository repository;
+    private final DailyRevenueRepository dailyRevenueRepository;
     private final TransportCompanyRepository companyRepository;
+    private final TransportRepository transportRepository;
 
     public ClientService() {
         this.repository = new ClientRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
         this.companyRepository = new TransportCompanyRepository();
+        this.transportRepository = new TransportRepository();
     }
 
     public Client create(Long companyId, String name, String contactPerson, String phone, String email) {
-        TransportCompany company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ValidationException("Company not found with id: " + companyId));
+        try {
+            return UnitOfWork.execute(() -> {
+                Client client = new Client(name, contactPerson, phone, email);
+                client.setCompany(companyRepository.getReference(companyId));
 
-        Client client = new Client(name, contactPerson, phone, email);
-        client.setCompany(company);
-
-        ValidationUtil.validate(client);
-        return repository.save(client);
+                ValidationUtil.validate(client);
+                return repository.save(client);
+            });
+        } catch (ConstraintViolationException e) {
+            if (!GenericRepository.isForeignKeyViolation(e)) {
+                throw e;
+            }
+            throw new ValidationException("Company not found with id: " + companyId, e);
+        }
     }
 
     public Client update(Client client) {
@@ -35,8 +54,36 @@ public class ClientService {
         return repository.update(client);
     }
 
+    // Pays all of the client's unpaid transports at once; startDate and endDate are optional.
+    // The paid flags and the company revenue commit together.
+    public Settlement settleClient(Long clientId, LocalDate startDate, LocalDate endDate) {
+        List<Long> companyIds = new ArrayList<>();
+        Settlement result = UnitOfWork.execute(() -> {
+            Settlement settlement = new Settlement();
+            for (Object[] row : transportRepository.settleUnpaidByClient(clientId, startDate, endDate)) {
+                long count = ((Number) row[1]).longValue();
+                BigDecimal amount = (BigDecimal) row[2];
+                if (row[0] != null) {
+                    companyIds.add(((Number) row[0]).longValue());
+                    companyRepository.adjustRevenue(((Number) row[0]).longValue(), amount);
+                }
+                settlement.transportCount += count;
+                settlement.amount = settlement.amount.add(amount);
+            }
+            return settlement;
+        });
+        companyIds.forEach(TransportColumnStore.getInstance()::invalidate);
+        return result;
+    }
+
+    // Removing it cascades to its transports
     public void delete(Long id) {
-        repository.deleteById(id);
+        UnitOfWork.run(() -> {
+            dailyRevenueRepository.subtractTransportsOfClient(id);
+            repository.deleteById(id);
+        });
+        BookingIndex.getInstance().invalidateAll();
+        TransportColumnStore.getInstance().invalidateAll();
     }
 
     public Optional<Client> findById(Long id) {
@@ -51,6 +98,10 @@ public class ClientService {
         return repository.findByCompanyId(companyId);
     }
 
+    public Page<Client> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return repository.findPageByCompanyId(companyId, after, size);
+    }
+
     public Optional<Client> findByNameAndCompany(String name, Long companyId) {
         return repository.findByNameAndCompany(name, companyId);
     }
@@ -62,4 +113,9 @@ public class ClientService {
     public long count() {
         return repository.count();
     }
+
+    public static class Settlement {
+        public long transportCount;
+        public BigDecimal amount = BigDecimal.ZERO;
+    }
 }
@@ -0,0 +1,450 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.Client;
+import com.transportcompany.entity.Employee;
+import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.entity.Vehicle;
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.enums.VehicleType;
+import com.transportcompany.repository.ClientRepository;
+import com.transportcompany.repository.EmployeeRepository;
+import com.transportcompany.repository.TransportCompanyRepository;
+import com.transportcompany.repository.UnitOfWork;
+import com.transportcompany.repository.VehicleRepository;
+import com.transportcompany.util.FileUtil;
+import com.transportcompany.validation.ValidationException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+// Synthetic companies for scale tests and benchmarks. Everything is drawn from Randoms seeded with
+// (seed, company index, chunk), so a seed always yields the same staff and transports however many
+// threads load them. Only names and registration numbers depend on the name prefix, so a seed can be
+// generated again under another name. Transports are streamed as CSV rows straight into the COPY import, one chunk per task.
+// Bookings are not checked, so drivers and vehicles may be double-booked.
+public class DataGenerator {
+
+    static final int CHUNK_SIZE = 50_000;
+
+    // Weighted towards the first entries: destinations follow a Zipf-like distribution
+    private static final String[] CITIES = {
+            "Sofia", "Plovdiv", "Varna", "Burgas", "Ruse", "Stara Zagora", "Pleven", "Sliven", "Dobrich",
+            "Shumen", "Pernik", "Haskovo", "Yambol", "Pazardzhik", "Blagoevgrad", "Veliko Tarnovo", "Vratsa",
+            "Gabrovo", "Asenovgrad", "Vidin", "Kazanlak", "Kyustendil", "Kardzhali", "Montana", "Dimitrovgrad",
+            "Targovishte", "Lovech", "Silistra", "Razgrad", "Dupnitsa", "Gorna Oryahovitsa", "Smolyan"
+    };
+    private static final double CITY_SKEW = 1.1;
+    private static final String[] FIRST_NAMES = {
+            "Ivan", "Georgi", "Dimitar", "Nikolay", "Petar", "Hristo", "Stoyan", "Todor", "Vasil", "Aleksandar",
+            "Maria", "Elena", "Yordanka", "Desislava", "Svetla", "Radostina", "Kalina", "Galina"
+    };
+    private static final String[] LAST_NAMES = {
+            "Ivanov", "Georgiev", "Dimitrov", "Petrov", "Nikolov", "Hristov", "Stoyanov", "Todorov", "Iliev",
+            "Atanasov", "Angelov", "Kolev", "Yordanov", "Marinov", "Popov", "Stefanov", "Mihaylov", "Kostov"
+    };
+    private static final String[] CLIENT_WORDS = {
+            "Balkan", "Danube", "Rila", "Pirin", "Thracian", "Black Sea", "Rhodope", "Struma", "Maritsa", "Vitosha"
+    };
+    private static final String[] CLIENT_KINDS = {
+            "Foods", "Logistics", "Building", "Textiles", "Pharma", "Motors", "Agro", "Trade", "Tours", "Schools"
+    };
+    private static final String[] CARGO = {"Pallets", "Building materials", "Produce", "Furniture", "Machinery"};
+    private static final String[] HAZARDOUS_CARGO = {"Diesel fuel", "Liquefied gas", "Solvents"};
+
+    private final TransportCompanyRepository companyRepository = new TransportCompanyRepository();
+    private final EmployeeRepository employeeRepository = new EmployeeRepository();
+    private final VehicleRepository vehicleRepository = new VehicleRepository();
+    private final ClientRepository clientRepository = new ClientRepository();
+    private final TransportService transportService = new TransportService();
+
+    public static class Config {
+        public long seed = 1;
+        public int companies = 1;
+        public int employeesPerCompany = 50;
+        public int vehiclesPerType = 10;
+        public int clientsPerCompany = 200;
+        public long transportsPerCompany = 100_000;
+        public LocalDate firstDay = LocalDate.of(2022, 1, 1);
+        public int days = 730;
+        // Share of transports paid by an average client; each client pays more or less than this
+        public double paidRatio = 0.8;
+        public int threads = Math.min(8, Runtime.getRuntime().availableProcessors());
+        // Companies are named "<prefix> <n>", or just the prefix when there is one
+        public String namePrefix = "Generated";
+    }
+
+    public static class Result {
+        public List<Long> companyIds = new ArrayList<>();
+        public long transports;
+        public long rejected;
+        public long millis;
+    }
+
+    public Result generate(Config config, LongConsumer progress) {
+        long started = System.currentTimeMillis();
+        Result result = new Result();
+        List<CompanyPlan> plans = new ArrayList<>();
+        for (int i = 0; i < config.companies; i++) {
+            CompanyPlan plan = plan(config, i);
+            if (companyRepository.findByName(plan.name).isPresent()) {
+                throw new ValidationException("Company '" + plan.name + "' already exists; delete it or use another " +
+                        "seed or name prefix");
+            }
+            List<String> taken = vehicleRepository.findExistingRegistrationNumbers(
+                    plan.vehicles.stream().map(vehicle -> vehicle.registrationNumber).toList());
+            if (!taken.isEmpty()) {
+                throw new ValidationException("Registration number " + taken.get(0) + " is already in use; " +
+                        "use another seed or name prefix");
+            }
+            plans.add(plan);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.threads));
+        try {
+            List<Future<Long>> companies = new ArrayList<>();
+            for (CompanyPlan plan : plans) {
+                companies.add(executor.submit(() -> createCompany(plan)));
+            }
+            for (Future<Long> company : companies) {
+                result.companyIds.add(company.get());
+            }
+
+            AtomicLong loaded = new AtomicLong();
+            List<Future<TransportService.BulkImportResult>> chunks = new ArrayList<>();
+            for (int i = 0; i < plans.size(); i++) {
+                CompanyPlan plan = plans.get(i);
+                long companyId = result.companyIds.get(i);
+                for (int chunk = 0; chunk < chunkCount(config); chunk++) {
+                    int index = chunk;
+                    chunks.add(executor.submit(() -> {
+                        StringWriter csv = new StringWriter();
+                        FileUtil.TransportCsvWriter writer = FileUtil.transportCsvRowWriter(csv);
+                        int rows = transportRows(config, plan, index, writer::write);
+                        writer.close();
+                        TransportService.BulkImportResult imported =
+                                transportService.bulkImportCsvRows(companyId, new StringReader(csv.toString()));
+                        progress.accept(loaded.addAndGet(rows));
+                        return imported;
+                    }));
+                }
+            }
+            for (Future<TransportService.BulkImportResult> chunk : chunks) {
+                TransportService.BulkImportResult imported = chunk.get();
+                result.transports += imported.imported;
+                result.rejected += imported.rejected;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime
+                    : new RuntimeException("Error generating data", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        result.millis = System.currentTimeMillis() - started;
+        return result;
+    }
+
+    private Long createCompany(CompanyPlan plan) {
+        return UnitOfWork.execute(() -> {
+            TransportCompany company = companyRepository.save(new TransportCompany(plan.name, plan.homeCity));
+            List<Employee> employees = new ArrayList<>();
+            for (DriverPlan driver : plan.drivers) {
+                Employee employee = new Employee(driver.firstName, driver.lastName, driver.salary);
+                employee.setQualifications(driver.qualifications);
+                employee.setCompany(company);
+                employees.add(employee);
+            }
+            employeeRepository.saveAll(employees);
+            List<Vehicle> vehicles = new ArrayList<>();
+            for (VehiclePlan plannedVehicle : plan.vehicles) {
+                Vehicle vehicle = new Vehicle(plannedVehicle.registrationNumber, plannedVehicle.type);
+                vehicle.setCapacity(plannedVehicle.capacity);
+                vehicle.setCompany(company);
+                vehicles.add(vehicle);
+            }
+            vehicleRepository.saveAll(vehicles);
+            List<Client> clients = new ArrayList<>();
+            for (ClientPlan plannedClient : plan.clients) {
+                Client client = new Client(plannedClient.name);
+                client.setCompany(company);
+                clients.add(client);
+            }
+            clientRepository.saveAll(clients);
+            return company.getId();
+        });
+    }
+
+    static int chunkCount(Config config) {
+        return (int) ((config.transportsPerCompany + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    // Staff of the company-th company; the same for a given seed
+    public static CompanyPlan plan(Config config, int company) {
+        Random random = new Random(mix(config.seed, company, -1));
+        CompanyPlan plan = new CompanyPlan();
+        plan.index = company;
+        plan.name = config.companies == 1 ? config.namePrefix : config.namePrefix + " " + (company + 1);
+        // Registration numbers are unique across companies, so they carry a hash of the company name
+        String registrationPrefix = "GEN" + Long.toString(config.seed, 36).toUpperCase() + "-" +
+                Integer.toUnsignedString(plan.name.hashCode(), 36).toUpperCase() + "-";
+        plan.homeCity = CITIES[company % 8];
+
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < config.employeesPerCompany; i++) {
+            DriverPlan driver = new DriverPlan();
+            driver.firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            driver.lastName = names.add(driver.firstName + " " + lastName) ? lastName : lastName + " " + (i + 1);
+            names.add(driver.getFullName());
+            // Every driver holds the standard licence; the first three cover passengers, heavy and
+            // hazardous work so every kind of transport has someone to drive it
+            driver.qualifications = EnumSet.of(DriverQualification.STANDARD);
+            if (i == 0 || random.nextDouble() < 0.30) {
+                driver.qualifications.add(DriverQualification.PASSENGER_TRANSPORT);
+            }
+            if (i == 1 || i == 2 || random.nextDouble() < 0.35) {
+                driver.qualifications.add(DriverQualification.HEAVY_CARGO);
+            }
+            if (i == 2 || random.nextDouble() < 0.15) {
+                driver.qualifications.add(DriverQualification.HAZARDOUS_MATERIALS);
+                if (i == 2 || random.nextDouble() < 0.70) {
+                    driver.qualifications.add(DriverQualification.FLAMMABLE_MATERIALS);
+                }
+            }
+            if (random.nextDouble() < 0.08) {
+                driver.qualifications.add(DriverQualification.SPECIAL_CARGO);
+            }
+            driver.salary = BigDecimal.valueOf(180_000 + 25_000L * driver.qualifications.size()
+                    + random.nextInt(40_000), 2);
+            plan.drivers.add(driver);
+        }
+
+        for (VehicleType type : VehicleType.values()) {
+            List<VehiclePlan> ofType = new ArrayList<>();
+            for (int i = 0; i < config.vehiclesPerType; i++) {
+                VehiclePlan vehicle = new VehiclePlan();
+                vehicle.registrationNumber = registrationPrefix + type.name().substring(0, 2) + i;
+                vehicle.type = type;
+                vehicle.capacity = switch (type) {
+                    case BUS -> 30 + random.nextInt(31);
+                    case VAN -> 8 + random.nextInt(9);
+                    case CAR -> 4;
+                    case TRUCK -> 12 + random.nextInt(13);
+                    case TANKER -> 20 + random.nextInt(11);
+                };
+                plan.vehicles.add(vehicle);
+                ofType.add(vehicle);
+            }
+            plan.vehiclesByType.put(type, ofType);
+        }
+
+        names.clear();
+        for (int i = 0; i < config.clientsPerCompany; i++) {
+            ClientPlan client = new ClientPlan();
+            String name = CLIENT_WORDS[random.nextInt(CLIENT_WORDS.length)] + " " +
+                    CLIENT_KINDS[random.nextInt(CLIENT_KINDS.length)];
+            client.name = names.add(name) ? name : name + " " + (i + 1);
+            names.add(client.name);
+            // Most clients pay about as often as paidRatio; a tail pays much less
+            double lateness = Math.pow(random.nextDouble(), 3);
+            client.paidRatio = Math.max(0, Math.min(1, config.paidRatio + 0.25 - lateness));
+            plan.clients.add(client);
+        }
+
+        for (DriverPlan driver : plan.drivers) {
+            if (driver.qualifications.contains(DriverQualification.PASSENGER_TRANSPORT)) {
+                plan.passengerDrivers.add(driver);
+            }
+            if (driver.qualifications.contains(DriverQualification.HEAVY_CARGO)) {
+                plan.heavyDrivers.add(driver);
+            }
+            // Tanker loads are flammable and usually above the heavy cargo weight
+            if (driver.qualifications.containsAll(EnumSet.of(DriverQualification.HAZARDOUS_MATERIALS,
+                    DriverQualification.FLAMMABLE_MATERIALS, DriverQualification.HEAVY_CARGO))) {
+                plan.hazardousDrivers.add(driver);
+            }
+        }
+        return plan;
+    }
+
+    // Emits the chunk-th chunk of the company's transports in the TransportRepository.forEachExportRow
+    // layout and returns how many it emitted
+    static int transportRows(Config config, CompanyPlan plan, int chunk, Consumer<Object[]> action) {
+        long first = (long) chunk * CHUNK_SIZE;
+        int rows = (int) Math.min(CHUNK_SIZE, config.transportsPerCompany - first);
+        Random random = new Random(mix(config.seed, plan.index, chunk));
+        double[] cityWeights = zipfCumulative(CITIES.length);
+        double[] clientWeights = zipfCumulative(plan.clients.size());
+        for (int i = 0; i < rows; i++) {
+            action.accept(transportRow(config, plan, first + i + 1, random, cityWeights, clientWeights));
+        }
+        return rows;
+    }
+
+    private static Object[] transportRow(Config config, CompanyPlan plan, long id, Random random,
+                                         double[] cityWeights, double[] clientWeights) {
+        String start = random.nextDouble() < 0.6 ? plan.homeCity : CITIES[pick(cityWeights, random)];
+        String end;
+        do {
+            end = CITIES[pick(cityWeights, random)];
+        } while (end.equals(start));
+
+        // Volume grows over the period and drops at weekends
+        LocalDate departure;
+        do {
+            departure = config.firstDay.plusDays((int) (config.days * Math.sqrt(random.nextDouble())));
+        } while (departure.getDayOfWeek().compareTo(DayOfWeek.SATURDAY) >= 0 && random.nextDouble() < 0.7);
+        LocalDate arrival = departure.plusDays(random.nextDouble() < 0.7 ? 0 : 1 + random.nextInt(2));
+
+        boolean passengers = random.nextDouble() < 0.3;
+        DriverPlan driver;
+        VehiclePlan vehicle;
+        String cargo = null;
+        Double weight = null;
+        Integer passengerCount = null;
+        long cents;
+        if (passengers) {
+            vehicle = pickVehicle(plan, random, VehicleType.BUS, VehicleType.BUS, VehicleType.VAN, VehicleType.CAR);
+            driver = pickDriver(plan.passengerDrivers, plan, random);
+            passengerCount = 1 + random.nextInt(vehicle.capacity);
+            cents = 2_000 + passengerCount * (1_500L + random.nextInt(2_000));
+        } else if (random.nextDouble() < 0.08) {
+            vehicle = pickVehicle(plan, random, VehicleType.TANKER);
+            driver = pickDriver(plan.hazardousDrivers, plan, random);
+            cargo = HAZARDOUS_CARGO[random.nextInt(HAZARDOUS_CARGO.length)];
+            weight = (double) (8_000 + random.nextInt(vehicle.capacity * 1_000 - 7_999));
+            cents = 60_000 + (long) (weight * (4 + random.nextInt(4)));
+        } else {
+            vehicle = pickVehicle(plan, random, VehicleType.TRUCK, VehicleType.TRUCK, VehicleType.VAN);
+            int maxKg = vehicle.type == VehicleType.VAN ? 1_500 : vehicle.capacity * 1_000;
+            // Mostly light loads with a long tail up to the vehicle's capacity
+            weight = (double) Math.max(50, (int) (maxKg * Math.pow(random.nextDouble(), 2)));
+            driver = weight > DispatchService.HEAVY_CARGO_KG
+                    ? pickDriver(plan.heavyDrivers, plan, random)
+                    : plan.drivers.get(random.nextInt(plan.drivers.size()));
+            cargo = CARGO[random.nextInt(CARGO.length)];
+            cents = 15_000 + (long) (weight * (2 + random.nextInt(3)));
+        }
+
+        ClientPlan client = plan.clients.isEmpty() ? null : plan.clients.get(pick(clientWeights, random));
+        double paidRatio = client != null ? client.paidRatio : config.paidRatio;
+        // The last month is still largely outstanding
+        if (departure.isAfter(config.firstDay.plusDays(config.days - 30L))) {
+            paidRatio /= 2;
+        }
+        return new Object[] {
+                id, start, end, departure, arrival,
+                passengers ? TransportType.PASSENGERS : TransportType.GOODS,
+                cargo, weight, passengerCount,
+                BigDecimal.valueOf(cents, 2),
+                random.nextDouble() < paidRatio,
+                driver != null ? driver.firstName : null, driver != null ? driver.lastName : null,
+                vehicle != null ? vehicle.registrationNumber : null,
+                client != null ? client.name : null
+        };
+    }
+
+    private static DriverPlan pickDriver(List<DriverPlan> qualified, CompanyPlan plan, Random random) {
+        List<DriverPlan> from = qualified.isEmpty() ? plan.drivers : qualified;
+        return from.isEmpty() ? null : from.get(random.nextInt(from.size()));
+    }
+
+    // Repeat a type to make it more likely
+    private static VehiclePlan pickVehicle(CompanyPlan plan, Random random, VehicleType... types) {
+        List<VehiclePlan> ofType = plan.vehiclesByType.get(types[random.nextInt(types.length)]);
+        if (ofType == null || ofType.isEmpty()) {
+            return plan.vehicles.isEmpty() ? fallbackVehicle() : plan.vehicles.get(random.nextInt(plan.vehicles.size()));
+        }
+        return ofType.get(random.nextInt(ofType.size()));
+    }
+
+    // A company generated without vehicles still needs a capacity to size loads by
+    private static VehiclePlan fallbackVehicle() {
+        VehiclePlan vehicle = new VehiclePlan();
+        vehicle.type = VehicleType.TRUCK;
+        vehicle.capacity = 20;
+        return vehicle;
+    }
+
+    private static double[] zipfCumulative(int n) {
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, CITY_SKEW);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    // SplitMix64 finaliser over the inputs, so neighbouring seeds give unrelated streams
+    private static long mix(long seed, long company, long chunk) {
+        long z = seed * 0x9E3779B97F4A7C15L + company * 0xBF58476D1CE4E5B9L + chunk * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static class CompanyPlan {
+        int index;
+        public String name;
+        public String homeCity;
+        public final List<DriverPlan> drivers = new ArrayList<>();
+        public final List<VehiclePlan> vehicles = new ArrayList<>();
+        public final List<ClientPlan> clients = new ArrayList<>();
+        final Map<VehicleType, List<VehiclePlan>> vehiclesByType = new EnumMap<>(VehicleType.class);
+        final List<DriverPlan> passengerDrivers = new ArrayList<>();
+        final List<DriverPlan> heavyDrivers = new ArrayList<>();
+        final List<DriverPlan> hazardousDrivers = new ArrayList<>();
+    }
+
+    public static class DriverPlan {
+        public String firstName;
+        public String lastName;
+        public BigDecimal salary;
+        public Set<DriverQualification> qualifications;
+
+        public String getFullName() {
+            return firstName + " " + lastName;
+        }
+    }
+
+    public static class VehiclePlan {
+        public String registrationNumber;
+        public VehicleType type;
+        public int capacity;
+    }
+
+    public static class ClientPlan {
+        public String name;
+        public double paidRatio;
+    }
+}
@@ -0,0 +1,287 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.Employee;
+import com.transportcompany.entity.QualificationSetConverter;
+import com.transportcompany.entity.Vehicle;
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.enums.VehicleType;
+import com.transportcompany.repository.EmployeeRepository;
+import com.transportcompany.repository.VehicleRepository;
+import com.transportcompany.validation.ValidationException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+// Picks drivers and vehicles for orders. A driver qualifies when they hold every qualification the
+// order needs and are free for its dates; a vehicle when its type suits the transport, it has the
+// capacity and it is free. Qualified candidates are ranked by cost, lowest first: the driver's booked
+// days around the order plus the qualifications they hold but the order does not need (keeps
+// specialists available), and the vehicle's unused share of capacity. Everything is worked out from
+// the cached company lists and the BookingIndex, with no query per candidate.
+public class DispatchService {
+
+    // PASSENGER_TRANSPORT is needed above this many passengers
+    static final int PASSENGER_QUALIFICATION_THRESHOLD = 12;
+    // HEAVY_CARGO is needed above this cargo weight, in kg
+    static final double HEAVY_CARGO_KG = 12_000;
+    // Workload counts the days a driver is booked this many days either side of the order
+    static final int WORKLOAD_WINDOW_DAYS = 30;
+    // Cost of an entirely unused vehicle, in booked driver-days; unknown capacity costs the same
+    static final double VEHICLE_SLACK_COST = 10;
+
+    private static final Set<VehicleType> PASSENGER_VEHICLES =
+            EnumSet.of(VehicleType.BUS, VehicleType.VAN, VehicleType.CAR);
+    private static final Set<VehicleType> GOODS_VEHICLES =
+            EnumSet.of(VehicleType.TRUCK, VehicleType.TANKER, VehicleType.VAN);
+
+    private static final Comparator<Scored<?>> BY_COST =
+            Comparator.<Scored<?>>comparingDouble(s -> s.cost).thenComparing(s -> s.id);
+
+    private final EmployeeRepository employeeRepository;
+    private final VehicleRepository vehicleRepository;
+    private final BookingIndex bookingIndex = BookingIndex.getInstance();
+
+    public DispatchService() {
+        this.employeeRepository = new EmployeeRepository();
+        this.vehicleRepository = new VehicleRepository();
+    }
+
+    // Best (driver, vehicle) pairs for one order, at most limit of them
+    public List<Candidate> suggest(Long companyId, Order order, int limit) {
+        validate(order);
+        return rank(order, employeeRepository.findByCompanyId(companyId),
+                vehicleRepository.findByCompanyId(companyId), bookingIndex.forCompany(companyId), limit);
+    }
+
+    // One assignment per order, in the same order; orders that could not be staffed have no driver
+    // or vehicle. Nothing is booked: create each transport through TransportService, which re-checks.
+    public List<Assignment> assignAll(Long companyId, List<Order> orders) {
+        orders.forEach(DispatchService::validate);
+        return assign(orders, employeeRepository.findByCompanyId(companyId),
+                vehicleRepository.findByCompanyId(companyId), bookingIndex.forCompany(companyId));
+    }
+
+    public static Set<DriverQualification> requiredQualifications(Order order) {
+        Set<DriverQualification> required = EnumSet.noneOf(DriverQualification.class);
+        if (order.qualifications != null) {
+            required.addAll(order.qualifications);
+        }
+        if (order.transportType == TransportType.PASSENGERS && order.passengerCount != null
+                && order.passengerCount > PASSENGER_QUALIFICATION_THRESHOLD) {
+            required.add(DriverQualification.PASSENGER_TRANSPORT);
+        }
+        if (order.transportType == TransportType.GOODS && order.cargoWeight != null
+                && order.cargoWeight > HEAVY_CARGO_KG) {
+            required.add(DriverQualification.HEAVY_CARGO);
+        }
+        return required;
+    }
+
+    static List<Candidate> rank(Order order, List<Employee> employees, List<Vehicle> vehicles,
+                                BookingIndex.CompanyBookings bookings, int limit) {
+        List<Scored<Employee>> drivers = rankDrivers(order, employees, bookings);
+        List<Scored<Vehicle>> fleet = rankVehicles(order, vehicles, bookings);
+
+        // Costs add up, so the best pairs are all among the best limit drivers and best limit vehicles
+        List<Candidate> pairs = new ArrayList<>();
+        for (Scored<Employee> driver : drivers.subList(0, Math.min(limit, drivers.size()))) {
+            for (Scored<Vehicle> vehicle : fleet.subList(0, Math.min(limit, fleet.size()))) {
+                pairs.add(new Candidate(driver.item, vehicle.item, driver.cost + vehicle.cost));
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(c -> c.cost));
+        return pairs.size() > limit ? new ArrayList<>(pairs.subList(0, limit)) : pairs;
+    }
+
+    static List<Assignment> assign(List<Order> orders, List<Employee> employees, List<Vehicle> vehicles,
+                                   BookingIndex.CompanyBookings bookings) {
+        // Rank every order on its own, in parallel, against one unlocked copy of the bookings that
+        // covers every order's workload window
+        BookingIndex.BookingView existing = orders.isEmpty() ? bookings : bookings.snapshot(
+                orders.stream().map(o -> o.departureDate).min(Comparator.naturalOrder()).get()
+                        .minusDays(WORKLOAD_WINDOW_DAYS),
+                orders.stream().map(o -> o.arrivalDate).max(Comparator.naturalOrder()).get()
+                        .plusDays(WORKLOAD_WINDOW_DAYS));
+        List<Ranking> rankings = orders.parallelStream()
+                .map(order -> new Ranking(order, rankDrivers(order, employees, existing),
+                        rankVehicles(order, vehicles, existing)))
+                .toList();
+
+        // Then hand out drivers and vehicles one order at a time, fewest options first, so that no two
+        // orders in overlapping periods share a driver or a vehicle
+        Integer[] sequence = new Integer[rankings.size()];
+        Arrays.setAll(sequence, i -> i);
+        Arrays.sort(sequence, Comparator.comparingInt(i -> rankings.get(i).options()));
+
+        BookingIndex.CompanyBookings taken = new BookingIndex.CompanyBookings();
+        Assignment[] assignments = new Assignment[rankings.size()];
+        for (int i : sequence) {
+            Ranking ranking = rankings.get(i);
+            Order order = ranking.order;
+            Employee driver = firstOf(ranking.drivers, d ->
+                    taken.driverConflicts(d.getId(), order.departureDate, order.arrivalDate, null).isEmpty());
+            Vehicle vehicle = firstOf(ranking.vehicles, v ->
+                    taken.vehicleConflicts(v.getId(), order.departureDate, order.arrivalDate, null).isEmpty());
+            if (driver != null && vehicle != null) {
+                taken.add((long) i, driver.getId(), vehicle.getId(), order.departureDate, order.arrivalDate);
+                assignments[i] = new Assignment(order, driver, vehicle);
+            } else {
+                assignments[i] = new Assignment(order, null, null);
+            }
+        }
+        return Arrays.asList(assignments);
+    }
+
+    private static List<Scored<Employee>> rankDrivers(Order order, List<Employee> employees,
+                                                      BookingIndex.BookingView bookings) {
+        int required = QualificationSetConverter.toMask(requiredQualifications(order));
+        Set<Long> busy = bookings.busyDrivers(order.departureDate, order.arrivalDate);
+        Map<Long, Long> bookedDays = bookings.driverBookedDays(
+                order.departureDate.minusDays(WORKLOAD_WINDOW_DAYS), order.arrivalDate.plusDays(WORKLOAD_WINDOW_DAYS));
+
+        List<Scored<Employee>> ranked = new ArrayList<>();
+        for (Employee employee : employees) {
+            int mask = QualificationSetConverter.toMask(employee.getQualifications());
+            if ((mask & required) != required || busy.contains(employee.getId())) {
+                continue;
+            }
+            double cost = bookedDays.getOrDefault(employee.getId(), 0L) + Integer.bitCount(mask & ~required);
+            ranked.add(new Scored<>(employee, employee.getId(), cost));
+        }
+        ranked.sort(BY_COST);
+        return ranked;
+    }
+
+    private static List<Scored<Vehicle>> rankVehicles(Order order, List<Vehicle> vehicles,
+                                                      BookingIndex.BookingView bookings) {
+        Set<VehicleType> types = order.transportType == TransportType.PASSENGERS ? PASSENGER_VEHICLES : GOODS_VEHICLES;
+        double load = load(order);
+        Set<Long> busy = bookings.busyVehicles(order.departureDate, order.arrivalDate);
+
+        List<Scored<Vehicle>> ranked = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            if (!types.contains(vehicle.getVehicleType()) || busy.contains(vehicle.getId())) {
+                continue;
+            }
+            Integer capacity = vehicle.getCapacity();
+            double cost;
+            if (load <= 0) {
+                cost = 0;
+            } else if (capacity == null) {
+                cost = VEHICLE_SLACK_COST;
+            } else if (capacity < load) {
+                continue;
+            } else {
+                cost = VEHICLE_SLACK_COST * (capacity - load) / capacity;
+            }
+            ranked.add(new Scored<>(vehicle, vehicle.getId(), cost));
+        }
+        ranked.sort(BY_COST);
+        return ranked;
+    }
+
+    // In the unit of Vehicle.capacity: seats for passengers, tons for goods
+    private static double load(Order order) {
+        if (order.transportType == TransportType.PASSENGERS) {
+            return order.passengerCount != null ? order.passengerCount : 0;
+        }
+        return order.cargoWeight != null ? order.cargoWeight / 1000 : 0;
+    }
+
+    private static <T> T firstOf(List<Scored<T>> ranked, Predicate<T> available) {
+        for (Scored<T> scored : ranked) {
+            if (available.test(scored.item)) {
+                return scored.item;
+            }
+        }
+        return null;
+    }
+
+    private static void validate(Order order) {
+        if (order.departureDate == null || order.arrivalDate == null || order.transportType == null) {
+            throw new ValidationException("Departure date, arrival date and transport type are required");
+        }
+        if (order.arrivalDate.isBefore(order.departureDate)) {
+            throw new ValidationException("Arrival date cannot be before departure date");
+        }
+    }
+
+    public static class Order {
+        public LocalDate departureDate;
+        public LocalDate arrivalDate;
+        public TransportType transportType;
+        public Double cargoWeight;
+        public Integer passengerCount;
+        // Needed on top of those implied by passengers and weight, e.g. HAZARDOUS_MATERIALS
+        public Set<DriverQualification> qualifications = EnumSet.noneOf(DriverQualification.class);
+
+        public Order(LocalDate departureDate, LocalDate arrivalDate, TransportType transportType) {
+            this.departureDate = departureDate;
+            this.arrivalDate = arrivalDate;
+            this.transportType = transportType;
+        }
+    }
+
+    public static class Candidate {
+        public final Employee driver;
+        public final Vehicle vehicle;
+        public final double cost;
+
+        private Candidate(Employee driver, Vehicle vehicle, double cost) {
+            this.driver = driver;
+            this.vehicle = vehicle;
+            this.cost = cost;
+        }
+    }
+
+    public static class Assignment {
+        public final Order order;
+        public final Employee driver;
+        public final Vehicle vehicle;
+
+        private Assignment(Order order, Employee driver, Vehicle vehicle) {
+            this.order = order;
+            this.driver = driver;
+            this.vehicle = vehicle;
+        }
+
+        public boolean isAssigned() {
+            return driver != null;
+        }
+    }
+
+    private static class Scored<T> {
+        private final T item;
+        private final Long id;
+        private final double cost;
+
+        private Scored(T item, Long id, double cost) {
+            this.item = item;
+            this.id = id;
+            this.cost = cost;
+        }
+    }
+
+    private static class Ranking {
+        private final Order order;
+        private final List<Scored<Employee>> drivers;
+        private final List<Scored<Vehicle>> vehicles;
+
+        private Ranking(Order order, List<Scored<Employee>> drivers, List<Scored<Vehicle>> vehicles) {
+            this.order = order;
+            this.drivers = drivers;
+            this.vehicles = vehicles;
+        }
+
+        private int options() {
+            return Math.min(drivers.size(), vehicles.size());
+        }
+    }
+}
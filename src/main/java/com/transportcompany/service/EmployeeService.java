@@ -1,12 +1,17 @@
 package com.transportcompany.service;
 
 import com.transportcompany.entity.Employee;
-import com.transportcompany.entity.TransportCompany;
 import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.repository.DailyRevenueRepository;
 import com.transportcompany.repository.EmployeeRepository;
+import com.transportcompany.repository.GenericRepository;
+import com.transportcompany.repository.Page;
+import com.transportcompany.repository.PageCursor;
 import com.transportcompany.repository.TransportCompanyRepository;
+import com.transportcompany.repository.UnitOfWork;
 import com.transportcompany.validation.ValidationException;
 import com.transportcompany.validation.ValidationUtil;
+import org.hibernate.exception.ConstraintViolationException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
@@ -15,24 +20,32 @@ import java.util.Set;
 public class EmployeeService {
 
     private final EmployeeRepository repository;
+    private final DailyRevenueRepository dailyRevenueRepository;
     private final TransportCompanyRepository companyRepository;
 
     public EmployeeService() {
         this.repository = new EmployeeRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
         this.companyRepository = new TransportCompanyRepository();
     }
 
     public Employee create(Long companyId, String firstName, String lastName, BigDecimal salary,
                            Set<DriverQualification> qualifications) {
-        TransportCompany company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ValidationException("Company not found with id: " + companyId));
-
-        Employee employee = new Employee(firstName, lastName, salary);
-        employee.setQualifications(qualifications);
-        employee.setCompany(company);
-
-        ValidationUtil.validate(employee);
-        return repository.save(employee);
+        try {
+            return UnitOfWork.execute(() -> {
+                Employee employee = new Employee(firstName, lastName, salary);
+                employee.setQualifications(qualifications);
+                employee.setCompany(companyRepository.getReference(companyId));
+
+                ValidationUtil.validate(employee);
+                return repository.save(employee);
+            });
+        } catch (ConstraintViolationException e) {
+            if (!GenericRepository.isForeignKeyViolation(e)) {
+                throw e;
+            }
+            throw new ValidationException("Company not found with id: " + companyId, e);
+        }
     }
 
     public Employee update(Employee employee) {
@@ -40,8 +53,14 @@ public class EmployeeService {
         return repository.update(employee);
     }
 
+    // Removing it cascades to its transports
     public void delete(Long id) {
-        repository.deleteById(id);
+        UnitOfWork.run(() -> {
+            dailyRevenueRepository.subtractTransportsOfDriver(id);
+            repository.deleteById(id);
+        });
+        BookingIndex.getInstance().invalidateAll();
+        TransportColumnStore.getInstance().invalidateAll();
     }
 
     public Optional<Employee> findById(Long id) {
@@ -56,6 +75,15 @@ public class EmployeeService {
         return repository.findByCompanyId(companyId);
     }
 
+    public Page<Employee> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return repository.findPageByCompanyId(companyId, after, size);
+    }
+
+    public Page<Employee> findPageByCompanyIdSortedBySalary(Long companyId, boolean ascending,
+                                                           PageCursor after, int size) {
+        return repository.findPageByCompanyIdSortedBySalary(companyId, ascending, after, size);
+    }
+
     public List<Employee> findByCompanyIdSortedBySalary(Long companyId, boolean ascending) {
         return repository.findByCompanyIdSortedBySalary(companyId, ascending);
     }
@@ -64,26 +92,26 @@ public class EmployeeService {
         return repository.findByQualification(companyId, qualification);
     }
 
+    public List<Employee> findByAnyQualification(Long companyId, Set<DriverQualification> qualifications) {
+        return repository.findByAnyQualification(companyId, qualifications);
+    }
+
+    public List<Employee> findByAllQualifications(Long companyId, Set<DriverQualification> qualifications) {
+        return repository.findByAllQualifications(companyId, qualifications);
+    }
+
     public List<Employee> findBySalaryRange(Long companyId, BigDecimal minSalary, BigDecimal maxSalary) {
         return repository.findBySalaryRange(companyId, minSalary, maxSalary);
     }
 
     public void addQualification(Long employeeId, DriverQualification qualification) {
-        Optional<Employee> employeeOpt = repository.findById(employeeId);
-        if (employeeOpt.isPresent()) {
-            Employee employee = employeeOpt.get();
-            employee.addQualification(qualification);
-            repository.update(employee);
-        }
+        UnitOfWork.run(() -> repository.findById(employeeId)
+                .ifPresent(employee -> employee.addQualification(qualification)));
     }
 
     public void removeQualification(Long employeeId, DriverQualification qualification) {
-        Optional<Employee> employeeOpt = repository.findById(employeeId);
-        if (employeeOpt.isPresent()) {
-            Employee employee = employeeOpt.get();
-            employee.removeQualification(qualification);
-            repository.update(employee);
-        }
+        UnitOfWork.run(() -> repository.findById(employeeId)
+                .ifPresent(employee -> employee.removeQualification(qualification)));
     }
 
     public long count() {
@@ -1,11 +1,15 @@
 package com.transportcompany.service;
 
+import com.transportcompany.entity.Client;
 import com.transportcompany.entity.Employee;
 import com.transportcompany.entity.Transport;
-import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.entity.Vehicle;
+import com.transportcompany.repository.ClientRepository;
+import com.transportcompany.repository.DailyRevenueRepository;
 import com.transportcompany.repository.EmployeeRepository;
 import com.transportcompany.repository.TransportCompanyRepository;
 import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.repository.VehicleRepository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
@@ -14,47 +18,155 @@ import java.util.stream.Collectors;
 public class ReportService {
 
     private final TransportRepository transportRepository;
-    private final EmployeeRepository employeeRepository;
     private final TransportCompanyRepository companyRepository;
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final EmployeeRepository employeeRepository;
+    private final VehicleRepository vehicleRepository;
+    private final ClientRepository clientRepository;
+    private final TransportColumnStore columnStore;
+    private final TransportArchive archive = TransportArchive.getInstance();
 
     public ReportService() {
+        this(TransportColumnStore.getInstance());
+    }
+
+    ReportService(TransportColumnStore columnStore) {
+        this.columnStore = columnStore;
         this.transportRepository = new TransportRepository();
-        this.employeeRepository = new EmployeeRepository();
         this.companyRepository = new TransportCompanyRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
+        this.employeeRepository = new EmployeeRepository();
+        this.vehicleRepository = new VehicleRepository();
+        this.clientRepository = new ClientRepository();
     }
 
+    // Reports below count archived transports (see TransportArchive) together with live ones
+
     // Report: Total transports count for a company
     public long getTotalTransportsCount(Long companyId) {
-        return transportRepository.countByCompany(companyId);
+        return transportRepository.countByCompany(companyId) + archive.totals(companyId, null).transportCount;
     }
 
     // Report: Total revenue for a company
     public BigDecimal getTotalRevenue(Long companyId) {
-        return transportRepository.getTotalRevenueByCompany(companyId);
+        return dailyRevenueRepository.sumPaidAmount(companyId, null, null)
+                .add(archive.paidRevenue(companyId, null, null));
     }
 
-    // Report: Company revenue for a specific period
+    // Report: Company revenue for a specific period, by departure date; one rollup row per day and type
     public BigDecimal getRevenueForPeriod(Long companyId, LocalDate startDate, LocalDate endDate) {
-        return transportRepository.getRevenueByDateRange(companyId, startDate, endDate);
+        return dailyRevenueRepository.sumPaidAmount(companyId, startDate, endDate)
+                .add(archive.paidRevenue(companyId, startDate, endDate));
+    }
+
+    // Recomputes the revenue rollup from the transports; companyId null rebuilds every company
+    public void rebuildRevenueRollup(Long companyId) {
+        dailyRevenueRepository.rebuild(companyId);
     }
 
     // Report: Driver statistics (transports count and revenue)
     public List<DriverReport> getDriverStatistics(Long companyId) {
-        List<Employee> employees = employeeRepository.findByCompanyId(companyId);
+        List<DriverReport> reports;
+        if (columnStore.isEnabled()) {
+            reports = getDriverStatisticsFromColumns(companyId);
+        } else {
+            reports = new ArrayList<>();
+            for (Object[] row : transportRepository.getDriverStatistics(companyId)) {
+                reports.add(new DriverReport(
+                        (Long) row[0],
+                        row[1] + " " + row[2],
+                        ((Number) row[3]).longValue(),
+                        toBigDecimal(row[4])));
+            }
+        }
+
+        Map<Object, TransportColumnStore.Totals> archived =
+                archive.groupBy(companyId, TransportRepository.GroupBy.DRIVER, null);
+        if (!archived.isEmpty()) {
+            for (DriverReport report : reports) {
+                TransportColumnStore.Totals totals = archived.get(report.driverId);
+                if (totals != null) {
+                    report.transportCount += totals.transportCount;
+                    report.totalRevenue = report.totalRevenue.add(totals.paidRevenue);
+                }
+            }
+            reports.sort(Comparator.comparingLong((DriverReport r) -> r.transportCount).reversed()
+                    .thenComparing(r -> r.driverId));
+        }
+        return reports;
+    }
+
+    // Same rows as TransportRepository.getDriverStatistics: the company's own transports, busiest drivers first
+    private List<DriverReport> getDriverStatisticsFromColumns(Long companyId) {
+        Map<Object, TransportColumnStore.Totals> byDriver = columnStore.forCompany(companyId)
+                .groupBy(TransportRepository.GroupBy.DRIVER, null);
         List<DriverReport> reports = new ArrayList<>();
+        for (Employee e : employeeRepository.findByCompanyId(companyId)) {
+            TransportColumnStore.Totals totals = byDriver.get(e.getId());
+            reports.add(totals != null
+                    ? new DriverReport(e.getId(), e.getFullName(), totals.transportCount, totals.paidRevenue)
+                    : new DriverReport(e.getId(), e.getFullName(), 0, BigDecimal.ZERO));
+        }
+        reports.sort(Comparator.comparingLong((DriverReport r) -> r.transportCount).reversed()
+                .thenComparing(r -> r.driverId));
+        return reports;
+    }
 
-        for (Employee employee : employees) {
-            DriverReport report = new DriverReport();
-            report.driverId = employee.getId();
-            report.driverName = employee.getFullName();
-            report.transportCount = transportRepository.countByDriver(employee.getId());
-            report.totalRevenue = transportRepository.getTotalRevenueByDriver(employee.getId());
-            reports.add(report);
+    // Report: Transport count and revenue per driver, vehicle, client, destination or type, largest
+    // paid revenue first. Served from TransportColumnStore when it is enabled.
+    public List<BreakdownRow> getBreakdown(Long companyId, TransportRepository.GroupBy groupBy,
+                                           TransportRepository.ReportFilter filter) {
+        List<BreakdownRow> rows = new ArrayList<>();
+        if (columnStore.isEnabled()) {
+            columnStore.forCompany(companyId).groupBy(groupBy, filter).forEach((key, totals) -> rows.add(
+                    new BreakdownRow(key, totals.transportCount, totals.paidCount, totals.paidRevenue,
+                            totals.unpaidAmount)));
+        } else {
+            for (Object[] row : transportRepository.getBreakdown(companyId, groupBy, filter)) {
+                rows.add(new BreakdownRow(row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue(),
+                        toBigDecimal(row[3]), toBigDecimal(row[4])));
+            }
         }
+        Map<Object, TransportColumnStore.Totals> archived = archive.groupBy(companyId, groupBy, filter);
+        for (BreakdownRow row : rows) {
+            TransportColumnStore.Totals totals = archived.remove(row.key);
+            if (totals != null) {
+                row.transportCount += totals.transportCount;
+                row.paidCount += totals.paidCount;
+                row.paidRevenue = row.paidRevenue.add(totals.paidRevenue);
+            }
+        }
+        archived.forEach((key, totals) -> rows.add(new BreakdownRow(key, totals.transportCount, totals.paidCount,
+                totals.paidRevenue, totals.unpaidAmount)));
+
+        Map<Long, String> labels = switch (groupBy) {
+            case DRIVER -> employeeRepository.findByCompanyId(companyId).stream()
+                    .collect(Collectors.toMap(Employee::getId, Employee::getFullName));
+            case VEHICLE -> vehicleRepository.findByCompanyId(companyId).stream()
+                    .collect(Collectors.toMap(Vehicle::getId, Vehicle::getRegistrationNumber));
+            case CLIENT -> clientRepository.findByCompanyId(companyId).stream()
+                    .collect(Collectors.toMap(Client::getId, Client::getName));
+            default -> Map.of();
+        };
+        for (BreakdownRow row : rows) {
+            if (row.key == null) {
+                row.label = "(none)";
+            } else if (row.key instanceof Long id) {
+                row.label = labels.getOrDefault(id, "#" + id);
+            } else {
+                row.label = row.key.toString();
+            }
+        }
+        rows.sort(Comparator.comparing((BreakdownRow r) -> r.paidRevenue).reversed()
+                .thenComparing(r -> r.label));
+        return rows;
+    }
 
-        return reports.stream()
-                .sorted((a, b) -> Long.compare(b.transportCount, a.transportCount))
-                .collect(Collectors.toList());
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
     }
 
     // Report: Revenue by driver
@@ -76,25 +188,32 @@ public class ReportService {
 
     // Report: Summary for company
     public CompanySummary getCompanySummary(Long companyId) {
-        Optional<TransportCompany> companyOpt = companyRepository.findById(companyId);
-        if (companyOpt.isEmpty()) {
+        Optional<Object[]> header = companyRepository.findNameAndEmployeeCount(companyId);
+        if (header.isEmpty()) {
             return null;
         }
 
-        TransportCompany company = companyOpt.get();
         CompanySummary summary = new CompanySummary();
-        summary.companyName = company.getName();
-        summary.totalTransports = transportRepository.countByCompany(companyId);
-        summary.totalRevenue = transportRepository.getTotalRevenueByCompany(companyId);
-        summary.employeeCount = employeeRepository.findByCompanyId(companyId).size();
-
-        List<Transport> transports = transportRepository.findByCompanyId(companyId);
-        summary.paidTransports = transports.stream().filter(Transport::isPaid).count();
-        summary.unpaidTransports = transports.stream().filter(t -> !t.isPaid()).count();
-        summary.totalUnpaidAmount = transports.stream()
-                .filter(t -> !t.isPaid())
-                .map(Transport::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        summary.companyName = (String) header.get()[0];
+        summary.employeeCount = ((Number) header.get()[1]).intValue();
+        if (columnStore.isEnabled()) {
+            TransportColumnStore.Totals totals = columnStore.forCompany(companyId).totals(null);
+            summary.totalTransports = totals.transportCount;
+            summary.paidTransports = totals.paidCount;
+            summary.totalRevenue = totals.paidRevenue;
+            summary.totalUnpaidAmount = totals.unpaidAmount;
+        } else {
+            Object[] totals = transportRepository.getPaymentTotalsByCompany(companyId);
+            summary.totalTransports = ((Number) totals[0]).longValue();
+            summary.paidTransports = ((Number) totals[1]).longValue();
+            summary.totalRevenue = toBigDecimal(totals[2]);
+            summary.totalUnpaidAmount = toBigDecimal(totals[3]);
+        }
+        TransportColumnStore.Totals archived = archive.totals(companyId, null);
+        summary.totalTransports += archived.transportCount;
+        summary.paidTransports += archived.paidCount;
+        summary.totalRevenue = summary.totalRevenue.add(archived.paidRevenue);
+        summary.unpaidTransports = summary.totalTransports - summary.paidTransports;
 
         return summary;
     }
@@ -143,6 +262,15 @@ public class ReportService {
         public long transportCount;
         public BigDecimal totalRevenue;
 
+        public DriverReport() {}
+
+        public DriverReport(Long driverId, String driverName, long transportCount, BigDecimal totalRevenue) {
+            this.driverId = driverId;
+            this.driverName = driverName;
+            this.transportCount = transportCount;
+            this.totalRevenue = totalRevenue;
+        }
+
         @Override
         public String toString() {
             return String.format("Driver: %s, Transports: %d, Revenue: %.2f",
@@ -150,6 +278,24 @@ public class ReportService {
         }
     }
 
+    public static class BreakdownRow {
+        public Object key;
+        public String label;
+        public long transportCount;
+        public long paidCount;
+        public BigDecimal paidRevenue;
+        public BigDecimal unpaidAmount;
+
+        public BreakdownRow(Object key, long transportCount, long paidCount, BigDecimal paidRevenue,
+                            BigDecimal unpaidAmount) {
+            this.key = key;
+            this.transportCount = transportCount;
+            this.paidCount = paidCount;
+            this.paidRevenue = paidRevenue;
+            this.unpaidAmount = unpaidAmount;
+        }
+    }
+
     public static class CompanySummary {
         public String companyName;
         public long totalTransports;
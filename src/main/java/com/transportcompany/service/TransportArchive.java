@@ -0,0 +1,568 @@
+package com.transportcompany.service;
+
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// Append-only column files of archived transports, one file per company under the directory named by
+// -Dtransport.archive.dir (default "archive"). Each archive run appends a block:
+//
+//   ids, price cents, driver, vehicle and client ids   long[rows] each, 0 for none
+//   departure and arrival epoch days                   int[rows] each
+//   start and end point codes                          int[rows] each, into the block's dictionary
+//   transport type ordinals                            byte[rows], padded to 8 bytes
+//   dictionary                                         int count, then (int length, UTF-8 bytes)...
+//   footer                                             FOOTER_MAGIC, rows, min/max departure and arrival
+//                                                      day, previous footer, block start, dictionary
+//   trailer                                            footer offset, TRAILER_MAGIC, VERSION
+//
+// Readers start at the trailer and follow the footer chain, skipping blocks whose day range cannot
+// match, and read the columns of the rest through FileChannel.map. Only paid transports are archived,
+// so every archived row counts as paid revenue.
+//
+// A block is pending until the transaction that deletes its live rows commits: readers stop at the
+// committed length kept in company-<id>.tca.committed, which a Writer moves past the block only after
+// that commit. A block left pending by a crash is kept or cut off by the next run for the company,
+// depending on whether its rows are still live. Between the delete committing and the mark, readers
+// briefly see neither copy of the batch.
+public class TransportArchive {
+
+    static final int FOOTER_MAGIC = 0x54434642;
+    static final int TRAILER_MAGIC = 0x54434131;
+    static final int VERSION = 1;
+    static final int FOOTER_SIZE = 48;
+    static final int TRAILER_SIZE = 16;
+
+    private static final TransportArchive INSTANCE =
+            new TransportArchive(Path.of(System.getProperty("transport.archive.dir", "archive")));
+
+    private final Path directory;
+    // Opening a writer and deleting exclude readers in this process. A run holds its company's run lock
+    // and the file lock until its writer closes, so no other process appends or recovers meanwhile.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Mapped> mapped = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> runLocks = new ConcurrentHashMap<>();
+
+    TransportArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    public static TransportArchive getInstance() {
+        return INSTANCE;
+    }
+
+    // Holds the company's archive for one archive run, against writers in this process and in others,
+    // until it is closed
+    public Writer openWriter(Long companyId) {
+        ReentrantLock runLock = runLocks.computeIfAbsent(companyId, id -> new ReentrantLock());
+        runLock.lock();
+        FileChannel channel = null;
+        try {
+            lock.writeLock().lock();
+            try {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(path(companyId), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock fileLock = channel.lock();
+                // Files written before commit marks existed are committed up to their end
+                if (!Files.exists(committedPath(companyId))) {
+                    writeCommitted(companyId, channel.size());
+                }
+                return new Writer(companyId, channel, fileLock, runLock);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            runLock.unlock();
+            throw e instanceof IOException ? new RuntimeException("Error opening transport archive", e)
+                    : (RuntimeException) e;
+        }
+    }
+
+    public void delete(Long companyId) {
+        lock.writeLock().lock();
+        try {
+            mapped.remove(companyId);
+            Files.deleteIfExists(path(companyId));
+            Files.deleteIfExists(committedPath(companyId));
+        } catch (IOException e) {
+            throw new RuntimeException("Error deleting transport archive", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Paid revenue of the archived transports departing in [startDate, endDate]; either bound may be null
+    public BigDecimal paidRevenue(Long companyId, LocalDate startDate, LocalDate endDate) {
+        int from = startDate != null ? (int) startDate.toEpochDay() : Integer.MIN_VALUE;
+        int to = endDate != null ? (int) endDate.toEpochDay() : Integer.MAX_VALUE;
+        long cents = 0;
+        for (Block block : blocks(companyId)) {
+            if (block.maxDeparture < from || block.minDeparture > to) {
+                continue;
+            }
+            boolean whole = block.minDeparture >= from && block.maxDeparture <= to;
+            for (int i = 0; i < block.rows; i++) {
+                if (whole || (block.departure.get(i) >= from && block.departure.get(i) <= to)) {
+                    cents += block.cents.get(i);
+                }
+            }
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public TransportColumnStore.Totals totals(Long companyId, TransportRepository.ReportFilter filter) {
+        long[] sums = sums(companyId, null, filter).getOrDefault(null, new long[2]);
+        return new TransportColumnStore.Totals(sums[0], sums[0], sums[1], 0);
+    }
+
+    // Archived transports per group, as TransportColumnStore.CompanyColumns.groupBy returns them
+    public Map<Object, TransportColumnStore.Totals> groupBy(Long companyId, TransportRepository.GroupBy groupBy,
+                                                            TransportRepository.ReportFilter filter) {
+        Map<Object, TransportColumnStore.Totals> result = new LinkedHashMap<>();
+        sums(companyId, groupBy, filter).forEach((key, group) ->
+                result.put(key, new TransportColumnStore.Totals(group[0], group[0], group[1], 0)));
+        return result;
+    }
+
+    // [count, cents] per key; a null groupBy puts every match under the null key
+    private Map<Object, long[]> sums(Long companyId, TransportRepository.GroupBy groupBy,
+                                     TransportRepository.ReportFilter filter) {
+        Map<Object, long[]> sums = new HashMap<>();
+        if (filter != null && Boolean.FALSE.equals(filter.paid)) {
+            return sums;
+        }
+        int from = filter != null && filter.startDate != null ? (int) filter.startDate.toEpochDay() : Integer.MIN_VALUE;
+        int to = filter != null && filter.endDate != null ? (int) filter.endDate.toEpochDay() : Integer.MAX_VALUE;
+        int type = filter != null && filter.transportType != null ? filter.transportType.ordinal() : -1;
+        long driver = filter != null && filter.driverId != null ? filter.driverId : -1;
+        TransportType[] types = TransportType.values();
+
+        for (Block block : blocks(companyId)) {
+            if (block.maxDeparture < from || block.minArrival > to) {
+                continue;
+            }
+            int destination = -1;
+            if (filter != null && filter.destination != null) {
+                destination = block.code(filter.destination);
+                if (destination < 0) {
+                    continue;
+                }
+            }
+            for (int i = 0; i < block.rows; i++) {
+                if (block.departure.get(i) < from || block.arrival.get(i) > to
+                        || (type >= 0 && block.types.get(i) != type)
+                        || (driver >= 0 && block.driver.get(i) != driver)
+                        || (destination >= 0 && block.end.get(i) != destination)) {
+                    continue;
+                }
+                Object key = groupBy == null ? null : switch (groupBy) {
+                    case DRIVER -> id(block.driver.get(i));
+                    case VEHICLE -> id(block.vehicle.get(i));
+                    case CLIENT -> id(block.client.get(i));
+                    case DESTINATION -> block.dictionary[block.end.get(i)];
+                    case TYPE -> types[block.types.get(i)];
+                };
+                long[] group = sums.computeIfAbsent(key, k -> new long[2]);
+                group[0]++;
+                group[1] += block.cents.get(i);
+            }
+        }
+        return sums;
+    }
+
+    private static Long id(long value) {
+        return value == 0 ? null : value;
+    }
+
+    // Newest committed block first. Blocks are immutable, so a file whose committed length only grew
+    // keeps its mapped blocks and maps just the new ones.
+    List<Block> blocks(Long companyId) {
+        lock.readLock().lock();
+        try {
+            Path file = path(companyId);
+            if (!Files.exists(file)) {
+                return List.of();
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = committedLength(companyId, channel);
+                if (size == 0) {
+                    return List.of();
+                }
+                Mapped known = mapped.get(companyId);
+                if (known != null && known.size == size) {
+                    return known.blocks;
+                }
+                long knownSize = known != null ? known.size : 0;
+                List<Block> blocks = new ArrayList<>();
+                for (long footer = readTrailer(channel, size); footer >= knownSize; ) {
+                    ByteBuffer bytes = ByteBuffer.allocate(FOOTER_SIZE);
+                    readFully(channel, bytes, footer);
+                    if (bytes.getInt(0) != FOOTER_MAGIC) {
+                        throw new IllegalStateException("Corrupt transport archive block at " + footer + " in " + file);
+                    }
+                    Block block = new Block(channel, bytes, footer);
+                    blocks.add(block);
+                    footer = block.previousFooter;
+                    if (footer < 0) {
+                        break;
+                    }
+                }
+                if (known != null) {
+                    blocks.addAll(known.blocks);
+                }
+                List<Block> result = List.copyOf(blocks);
+                mapped.put(companyId, new Mapped(size, result));
+                return result;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading transport archive", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Path path(Long companyId) {
+        return directory.resolve("company-" + companyId + ".tca");
+    }
+
+    private Path committedPath(Long companyId) {
+        return directory.resolve("company-" + companyId + ".tca.committed");
+    }
+
+    private long committedLength(Long companyId, FileChannel channel) throws IOException {
+        Path committed = committedPath(companyId);
+        if (!Files.exists(committed)) {
+            return channel.size();
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(committed)).getLong();
+    }
+
+    // Replaces the mark in one rename, so readers see either the old length or the new one
+    private void writeCommitted(Long companyId, long length) throws IOException {
+        Path temp = Files.createTempFile(directory, "company-" + companyId, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.allocate(Long.BYTES).putLong(0, length);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, committedPath(companyId), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long readTrailer(FileChannel channel, long size) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        if (size < TRAILER_SIZE) {
+            throw new IllegalStateException("Corrupt transport archive: " + size + " bytes");
+        }
+        readFully(channel, trailer, size - TRAILER_SIZE);
+        if (trailer.getInt(8) != TRAILER_MAGIC || trailer.getInt(12) != VERSION) {
+            throw new IllegalStateException("Corrupt or unsupported transport archive trailer");
+        }
+        return trailer.getLong(0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalStateException("Truncated transport archive");
+            }
+        }
+    }
+
+    // One block, footer and trailer to be written at file offset start
+    static ByteBuffer encode(List<Object[]> rows, long start, long previousFooter) {
+        int n = rows.size();
+        Map<String, Integer> codes = new HashMap<>();
+        List<byte[]> dictionary = new ArrayList<>();
+        int[] startCodes = new int[n];
+        int[] endCodes = new int[n];
+        int dictionaryBytes = 4;
+        for (int i = 0; i < n; i++) {
+            for (int side = 0; side < 2; side++) {
+                String point = (String) rows.get(i)[8 + side];
+                Integer code = codes.get(point);
+                if (code == null) {
+                    code = dictionary.size();
+                    codes.put(point, code);
+                    byte[] bytes = point.getBytes(StandardCharsets.UTF_8);
+                    dictionary.add(bytes);
+                    dictionaryBytes += 4 + bytes.length;
+                }
+                (side == 0 ? startCodes : endCodes)[i] = code;
+            }
+        }
+
+        int dictionaryOffset = align(n * 57);
+        int footerOffset = dictionaryOffset + align(dictionaryBytes);
+        ByteBuffer block = ByteBuffer.allocate(footerOffset + FOOTER_SIZE + TRAILER_SIZE);
+        LongBuffer longs = block.slice(0, n * 40).asLongBuffer();
+        IntBuffer ints = block.slice(n * 40, n * 16).asIntBuffer();
+        int minDeparture = Integer.MAX_VALUE;
+        int maxDeparture = Integer.MIN_VALUE;
+        int minArrival = Integer.MAX_VALUE;
+        int maxArrival = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            int departure = (int) toLocalDate(row[1]).toEpochDay();
+            int arrival = (int) toLocalDate(row[2]).toEpochDay();
+            longs.put(i, ((Number) row[0]).longValue());
+            longs.put(n + i, ((BigDecimal) row[3]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+            longs.put(2 * n + i, row[5] != null ? ((Number) row[5]).longValue() : 0);
+            longs.put(3 * n + i, row[6] != null ? ((Number) row[6]).longValue() : 0);
+            longs.put(4 * n + i, row[7] != null ? ((Number) row[7]).longValue() : 0);
+            ints.put(i, departure);
+            ints.put(n + i, arrival);
+            ints.put(2 * n + i, startCodes[i]);
+            ints.put(3 * n + i, endCodes[i]);
+            block.put(n * 56 + i, (byte) TransportType.valueOf(row[4].toString()).ordinal());
+            minDeparture = Math.min(minDeparture, departure);
+            maxDeparture = Math.max(maxDeparture, departure);
+            minArrival = Math.min(minArrival, arrival);
+            maxArrival = Math.max(maxArrival, arrival);
+        }
+
+        block.position(dictionaryOffset);
+        block.putInt(dictionary.size());
+        for (byte[] bytes : dictionary) {
+            block.putInt(bytes.length).put(bytes);
+        }
+        block.position(footerOffset);
+        block.putInt(FOOTER_MAGIC).putInt(n)
+                .putInt(minDeparture).putInt(maxDeparture).putInt(minArrival).putInt(maxArrival)
+                .putLong(previousFooter).putLong(start).putLong(start + dictionaryOffset)
+                .putLong(start + footerOffset).putInt(TRAILER_MAGIC).putInt(VERSION);
+        return block.clear();
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private record Mapped(long size, List<Block> blocks) {}
+
+    // One archive run's hold on a company's file. Each append leaves a pending block that commit
+    // publishes to readers and discard cuts off.
+    public class Writer implements Closeable {
+        private final Long companyId;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+        private final ReentrantLock runLock;
+        private long committed;
+
+        private Writer(Long companyId, FileChannel channel, FileLock fileLock, ReentrantLock runLock)
+                throws IOException {
+            this.companyId = companyId;
+            this.channel = channel;
+            this.fileLock = fileLock;
+            this.runLock = runLock;
+            this.committed = committedLength(companyId, channel);
+        }
+
+        // Settles a block left pending by an earlier run: committed if isCommitted says its rows are no
+        // longer live, cut off otherwise or if it was not written out whole. Returns whether it was kept.
+        public boolean recover(Predicate<List<Long>> isCommitted) {
+            try {
+                long size = channel.size();
+                if (size == committed) {
+                    return false;
+                }
+                List<Long> ids = pendingIds(size);
+                if (ids != null && isCommitted.test(ids)) {
+                    commit();
+                    return true;
+                }
+                discard();
+                return false;
+            } catch (IOException e) {
+                throw new RuntimeException("Error recovering transport archive", e);
+            }
+        }
+
+        // rows as TransportRepository.lockArchivable returns them
+        public void append(List<Object[]> rows) {
+            try {
+                if (channel.size() != committed) {
+                    throw new IllegalStateException("Transport archive of company " + companyId +
+                            " has an uncommitted block");
+                }
+                ByteBuffer block = encode(rows, committed, committed == 0 ? -1 : readTrailer(channel, committed));
+                while (block.hasRemaining()) {
+                    channel.write(block, committed + block.position());
+                }
+                channel.force(true);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing transport archive", e);
+            }
+        }
+
+        // Call once the transaction that removed the appended rows from the live table has committed
+        public void commit() {
+            try {
+                long size = channel.size();
+                writeCommitted(companyId, size);
+                committed = size;
+            } catch (IOException e) {
+                throw new RuntimeException("Error committing transport archive", e);
+            }
+        }
+
+        // Drops everything appended since the last commit
+        public void discard() {
+            try {
+                channel.truncate(committed);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new RuntimeException("Error truncating transport archive", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                try {
+                    fileLock.release();
+                } finally {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error closing transport archive", e);
+            } finally {
+                runLock.unlock();
+            }
+        }
+
+        // Ids of the one whole block between the committed length and size, or null if there is none
+        private List<Long> pendingIds(long size) throws IOException {
+            if (size - committed < FOOTER_SIZE + TRAILER_SIZE) {
+                return null;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, size - TRAILER_SIZE);
+            long footer = trailer.getLong(0);
+            if (trailer.getInt(8) != TRAILER_MAGIC || trailer.getInt(12) != VERSION
+                    || footer < committed || footer != size - TRAILER_SIZE - FOOTER_SIZE) {
+                return null;
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(FOOTER_SIZE);
+            readFully(channel, bytes, footer);
+            int rows = bytes.getInt(4);
+            if (bytes.getInt(0) != FOOTER_MAGIC || bytes.getLong(32) != committed || rows < 0
+                    || committed + (long) rows * 57 > footer) {
+                return null;
+            }
+            ByteBuffer ids = ByteBuffer.allocate(rows * Long.BYTES);
+            readFully(channel, ids, committed);
+            List<Long> result = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                result.add(ids.getLong(i * Long.BYTES));
+            }
+            return result;
+        }
+    }
+
+    // One block's footer, its columns as views of a read-only mapping, and its decoded dictionary
+    static class Block {
+        final int rows;
+        final int minDeparture;
+        final int maxDeparture;
+        final int minArrival;
+        final int maxArrival;
+        final long previousFooter;
+        final LongBuffer ids;
+        final LongBuffer cents;
+        final LongBuffer driver;
+        final LongBuffer vehicle;
+        final LongBuffer client;
+        final IntBuffer departure;
+        final IntBuffer arrival;
+        final IntBuffer start;
+        final IntBuffer end;
+        final ByteBuffer types;
+        final String[] dictionary;
+
+        private Block(FileChannel channel, ByteBuffer footer, long footerOffset) throws IOException {
+            rows = footer.getInt(4);
+            minDeparture = footer.getInt(8);
+            maxDeparture = footer.getInt(12);
+            minArrival = footer.getInt(16);
+            maxArrival = footer.getInt(20);
+            previousFooter = footer.getLong(24);
+            long blockStart = footer.getLong(32);
+            long dictionaryOffset = footer.getLong(40);
+
+            ByteBuffer columns = channel.map(FileChannel.MapMode.READ_ONLY, blockStart, (long) rows * 57);
+            ids = columns.slice(0, rows * 8).asLongBuffer();
+            cents = columns.slice(rows * 8, rows * 8).asLongBuffer();
+            driver = columns.slice(rows * 16, rows * 8).asLongBuffer();
+            vehicle = columns.slice(rows * 24, rows * 8).asLongBuffer();
+            client = columns.slice(rows * 32, rows * 8).asLongBuffer();
+            departure = columns.slice(rows * 40, rows * 4).asIntBuffer();
+            arrival = columns.slice(rows * 44, rows * 4).asIntBuffer();
+            start = columns.slice(rows * 48, rows * 4).asIntBuffer();
+            end = columns.slice(rows * 52, rows * 4).asIntBuffer();
+            types = columns.slice(rows * 56, rows);
+
+            ByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset,
+                    footerOffset - dictionaryOffset);
+            dictionary = new String[names.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                byte[] bytes = new byte[names.getInt()];
+                names.get(bytes);
+                dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        // Dictionary code of value, or -1 if no row of the block has it
+        int code(String value) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.Transport;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+// Optional in-memory column store of each company's transports, switched on with
+// -Dtransport.analytics=true. Every field is a primitive array: epoch days, price in cents, the type
+// ordinal, a paid bitset, and dense int codes for drivers, vehicles, clients and destinations, so a
+// group-by indexes plain arrays. Reports scan it in fork-join segments instead of loading entities.
+// A company is loaded with one scroll the first time it is reported on; TransportService applies
+// single-row changes to loaded companies, and bulk changes invalidate them so they reload.
+//
+// The scroll runs outside the companies map, one load per company at a time. Every change bumps the
+// company's generation inside companies.compute, so it either reaches a published entry or stops a
+// load that overlapped it from being published; after LOAD_ATTEMPTS such loads the caller gets an
+// unpublished copy instead of retrying for as long as writes keep coming.
+public class TransportColumnStore {
+
+    static final int SEGMENT_SIZE = 1 << 16;
+    private static final int LOAD_ATTEMPTS = 3;
+
+    private static final TransportColumnStore INSTANCE = new TransportColumnStore(
+            new TransportRepository(), Boolean.getBoolean("transport.analytics"));
+
+    private final TransportRepository repository;
+    private final boolean enabled;
+    private final Map<Long, CompanyColumns> companies = new ConcurrentHashMap<>();
+    private final Map<Long, Object> loadLocks = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    TransportColumnStore(TransportRepository repository, boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    public static TransportColumnStore getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompanyColumns forCompany(Long companyId) {
+        CompanyColumns columns = companies.get(companyId);
+        if (columns != null) {
+            return columns;
+        }
+        synchronized (loadLocks.computeIfAbsent(companyId, id -> new Object())) {
+            CompanyColumns loaded = null;
+            for (int attempt = 0; attempt < LOAD_ATTEMPTS; attempt++) {
+                columns = companies.get(companyId);
+                if (columns != null) {
+                    return columns;
+                }
+                long generation = generation(companyId).get();
+                loaded = load(companyId);
+                CompanyColumns candidate = loaded;
+                columns = companies.compute(companyId, (id, current) -> current != null ? current
+                        : generation(id).get() == generation ? candidate : null);
+                if (columns != null) {
+                    return columns;
+                }
+            }
+            // Still changing: serve this caller a private copy and let the next one load again
+            return loaded;
+        }
+    }
+
+    public void saved(Transport transport) {
+        if (!enabled || transport.getCompany() == null) {
+            return;
+        }
+        changed(transport.getCompany().getId(), columns -> columns.put(transport.getId(),
+                transport.getDepartureDate(), transport.getArrivalDate(),
+                transport.getPrice(), transport.getTransportType(), transport.isPaid(),
+                transport.getDriver() != null ? transport.getDriver().getId() : null,
+                transport.getVehicle() != null ? transport.getVehicle().getId() : null,
+                transport.getClient() != null ? transport.getClient().getId() : null,
+                transport.getEndPoint()));
+    }
+
+    public void paidChanged(Long companyId, Long transportId, boolean paid) {
+        changed(companyId, columns -> columns.setPaid(transportId, paid));
+    }
+
+    // The owning company is not known, so every loaded or loading company counts as changed
+    public void deleted(Long transportId) {
+        for (Long companyId : generations.keySet()) {
+            changed(companyId, columns -> columns.remove(transportId));
+        }
+    }
+
+    public void invalidate(Long companyId) {
+        companies.compute(companyId, (id, current) -> {
+            generation(id).incrementAndGet();
+            return null;
+        });
+    }
+
+    // Covers companies still loading as well as loaded ones
+    public void invalidateAll() {
+        for (Long companyId : generations.keySet()) {
+            invalidate(companyId);
+        }
+    }
+
+    private void changed(Long companyId, Consumer<CompanyColumns> change) {
+        companies.compute(companyId, (id, current) -> {
+            generation(id).incrementAndGet();
+            if (current != null) {
+                change.accept(current);
+            }
+            return current;
+        });
+    }
+
+    private AtomicLong generation(Long companyId) {
+        return generations.computeIfAbsent(companyId, id -> new AtomicLong());
+    }
+
+    private CompanyColumns load(Long companyId) {
+        CompanyColumns columns = new CompanyColumns();
+        repository.forEachColumnRow(companyId, row -> columns.put((Long) row[0], (LocalDate) row[1],
+                (LocalDate) row[2], (BigDecimal) row[3], (TransportType) row[4], (Boolean) row[5],
+                (Long) row[6], (Long) row[7], (Long) row[8], (String) row[9]));
+        return columns;
+    }
+
+    // One company's transports. Readers share the lock, including the segments of a parallel scan.
+    public static class CompanyColumns {
+        private static final TransportType[] TYPES = TransportType.values();
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Integer> rows = new HashMap<>();
+        private final Dictionary<Long> drivers = new Dictionary<>();
+        private final Dictionary<Long> vehicles = new Dictionary<>();
+        private final Dictionary<Long> clients = new Dictionary<>();
+        private final Dictionary<String> destinations = new Dictionary<>();
+
+        private int size;
+        private long[] ids = new long[16];
+        private int[] departure = new int[16];
+        private int[] arrival = new int[16];
+        private long[] priceCents = new long[16];
+        private byte[] type = new byte[16];
+        private long[] paid = new long[1];
+        private int[] driver = new int[16];
+        private int[] vehicle = new int[16];
+        private int[] client = new int[16];
+        private int[] destination = new int[16];
+
+        CompanyColumns() {}
+
+        public int size() {
+            lock.readLock().lock();
+            try {
+                return size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Adds the transport, or overwrites it if already present
+        void put(Long id, LocalDate departureDate, LocalDate arrivalDate, BigDecimal price, TransportType transportType,
+                 boolean isPaid, Long driverId, Long vehicleId, Long clientId, String endPoint) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = rows.get(id);
+                int i;
+                if (existing != null) {
+                    i = existing;
+                } else {
+                    i = size++;
+                    ensureCapacity(size);
+                    rows.put(id, i);
+                }
+                ids[i] = id;
+                departure[i] = (int) departureDate.toEpochDay();
+                arrival[i] = (int) arrivalDate.toEpochDay();
+                priceCents[i] = price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                type[i] = (byte) transportType.ordinal();
+                setBit(i, isPaid);
+                driver[i] = drivers.encode(driverId);
+                vehicle[i] = vehicles.encode(vehicleId);
+                client[i] = clients.encode(clientId);
+                destination[i] = destinations.encode(endPoint);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        boolean setPaid(Long id, boolean isPaid) {
+            lock.writeLock().lock();
+            try {
+                Integer i = rows.get(id);
+                if (i == null) {
+                    return false;
+                }
+                setBit(i, isPaid);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Moves the last row into the freed slot
+        boolean remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                Integer removed = rows.remove(id);
+                if (removed == null) {
+                    return false;
+                }
+                int i = removed;
+                int last = --size;
+                if (i != last) {
+                    ids[i] = ids[last];
+                    departure[i] = departure[last];
+                    arrival[i] = arrival[last];
+                    priceCents[i] = priceCents[last];
+                    type[i] = type[last];
+                    setBit(i, isPaid(last));
+                    driver[i] = driver[last];
+                    vehicle[i] = vehicle[last];
+                    client[i] = client[last];
+                    destination[i] = destination[last];
+                    rows.put(ids[i], i);
+                }
+                setBit(last, false);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        public Totals totals(TransportRepository.ReportFilter filter) {
+            Map<Object, Totals> result = aggregate(null, filter);
+            return result.isEmpty() ? new Totals(0, 0, 0, 0) : result.get(null);
+        }
+
+        // Totals per value of groupBy, for the rows matching filter; transports without a driver,
+        // vehicle or client are grouped under a null key
+        public Map<Object, Totals> groupBy(TransportRepository.GroupBy groupBy, TransportRepository.ReportFilter filter) {
+            return aggregate(groupBy, filter);
+        }
+
+        private Map<Object, Totals> aggregate(TransportRepository.GroupBy groupBy,
+                                              TransportRepository.ReportFilter filter) {
+            lock.readLock().lock();
+            try {
+                Scan scan = compile(groupBy, filter);
+                if (scan == null) {
+                    return new LinkedHashMap<>();
+                }
+                int segments = (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+                long[][] sums = segments <= 1
+                        ? scan(scan, 0, size)
+                        : IntStream.range(0, segments).parallel()
+                                .mapToObj(s -> scan(scan, s * SEGMENT_SIZE, Math.min(size, (s + 1) * SEGMENT_SIZE)))
+                                .reduce(CompanyColumns::merge)
+                                .orElseThrow();
+                return decode(groupBy, sums);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Null when the filter names a driver or destination with no transports at all
+        private Scan compile(TransportRepository.GroupBy groupBy, TransportRepository.ReportFilter filter) {
+            Scan scan = new Scan();
+            if (filter != null) {
+                if (filter.startDate != null) {
+                    scan.fromDay = (int) filter.startDate.toEpochDay();
+                }
+                if (filter.endDate != null) {
+                    scan.toDay = (int) filter.endDate.toEpochDay();
+                }
+                if (filter.transportType != null) {
+                    scan.type = filter.transportType.ordinal();
+                }
+                if (filter.paid != null) {
+                    scan.paid = filter.paid ? 1 : 0;
+                }
+                if (filter.driverId != null && (scan.driver = drivers.find(filter.driverId)) < 0) {
+                    return null;
+                }
+                if (filter.destination != null && (scan.destination = destinations.find(filter.destination)) < 0) {
+                    return null;
+                }
+            }
+            if (groupBy == null) {
+                scan.groups = 1;
+            } else {
+                switch (groupBy) {
+                    case DRIVER -> { scan.keys = driver; scan.groups = drivers.size(); }
+                    case VEHICLE -> { scan.keys = vehicle; scan.groups = vehicles.size(); }
+                    case CLIENT -> { scan.keys = client; scan.groups = clients.size(); }
+                    case DESTINATION -> { scan.keys = destination; scan.groups = destinations.size(); }
+                    case TYPE -> { scan.byType = true; scan.groups = TYPES.length; }
+                }
+            }
+            return scan;
+        }
+
+        // [transportCount, paidCount, paidCents, unpaidCents][group] over rows [from, to)
+        private long[][] scan(Scan scan, int from, int to) {
+            long[][] sums = new long[4][scan.groups];
+            long[] count = sums[0];
+            long[] paidCount = sums[1];
+            long[] paidCents = sums[2];
+            long[] unpaidCents = sums[3];
+            int[] keys = scan.keys;
+            for (int i = from; i < to; i++) {
+                if (departure[i] < scan.fromDay || arrival[i] > scan.toDay
+                        || (scan.type >= 0 && type[i] != scan.type)
+                        || (scan.driver >= 0 && driver[i] != scan.driver)
+                        || (scan.destination >= 0 && destination[i] != scan.destination)) {
+                    continue;
+                }
+                boolean isPaid = isPaid(i);
+                if (scan.paid >= 0 && isPaid != (scan.paid == 1)) {
+                    continue;
+                }
+                int group = scan.byType ? type[i] : keys != null ? keys[i] : 0;
+                count[group]++;
+                if (isPaid) {
+                    paidCount[group]++;
+                    paidCents[group] += priceCents[i];
+                } else {
+                    unpaidCents[group] += priceCents[i];
+                }
+            }
+            return sums;
+        }
+
+        private static long[][] merge(long[][] a, long[][] b) {
+            for (int column = 0; column < a.length; column++) {
+                for (int group = 0; group < a[column].length; group++) {
+                    a[column][group] += b[column][group];
+                }
+            }
+            return a;
+        }
+
+        private Map<Object, Totals> decode(TransportRepository.GroupBy groupBy, long[][] sums) {
+            Map<Object, Totals> result = new LinkedHashMap<>();
+            for (int group = 0; group < sums[0].length; group++) {
+                if (sums[0][group] == 0) {
+                    continue;
+                }
+                Object key = null;
+                if (groupBy != null) {
+                    key = switch (groupBy) {
+                        case DRIVER -> drivers.decode(group);
+                        case VEHICLE -> vehicles.decode(group);
+                        case CLIENT -> clients.decode(group);
+                        case DESTINATION -> destinations.decode(group);
+                        case TYPE -> TYPES[group];
+                    };
+                }
+                result.put(key, new Totals(sums[0][group], sums[1][group], sums[2][group], sums[3][group]));
+            }
+            return result;
+        }
+
+        private boolean isPaid(int i) {
+            return (paid[i >>> 6] & (1L << i)) != 0;
+        }
+
+        private void setBit(int i, boolean value) {
+            if (value) {
+                paid[i >>> 6] |= 1L << i;
+            } else {
+                paid[i >>> 6] &= ~(1L << i);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > ids.length) {
+                int length = Math.max(capacity, ids.length * 2);
+                ids = Arrays.copyOf(ids, length);
+                departure = Arrays.copyOf(departure, length);
+                arrival = Arrays.copyOf(arrival, length);
+                priceCents = Arrays.copyOf(priceCents, length);
+                type = Arrays.copyOf(type, length);
+                driver = Arrays.copyOf(driver, length);
+                vehicle = Arrays.copyOf(vehicle, length);
+                client = Arrays.copyOf(client, length);
+                destination = Arrays.copyOf(destination, length);
+            }
+            if ((capacity + 63) >>> 6 > paid.length) {
+                paid = Arrays.copyOf(paid, Math.max((capacity + 63) >>> 6, paid.length * 2));
+            }
+        }
+    }
+
+    public static class Totals {
+        public final long transportCount;
+        public final long paidCount;
+        public final BigDecimal paidRevenue;
+        public final BigDecimal unpaidAmount;
+
+        Totals(long transportCount, long paidCount, long paidCents, long unpaidCents) {
+            this.transportCount = transportCount;
+            this.paidCount = paidCount;
+            this.paidRevenue = BigDecimal.valueOf(paidCents, 2);
+            this.unpaidAmount = BigDecimal.valueOf(unpaidCents, 2);
+        }
+    }
+
+    // A compiled filter; -1 leaves a criterion unset
+    private static class Scan {
+        private int fromDay = Integer.MIN_VALUE;
+        private int toDay = Integer.MAX_VALUE;
+        private int type = -1;
+        private int paid = -1;
+        private int driver = -1;
+        private int destination = -1;
+        private int[] keys;
+        private boolean byType;
+        private int groups;
+    }
+
+    // Dense int codes for values; code 0 is null
+    private static class Dictionary<K> {
+        private final Map<K, Integer> codes = new HashMap<>();
+        private final List<K> values = new ArrayList<>();
+
+        private Dictionary() {
+            values.add(null);
+        }
+
+        private int encode(K value) {
+            if (value == null) {
+                return 0;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        private int find(K value) {
+            Integer code = codes.get(value);
+            return code != null ? code : -1;
+        }
+
+        private K decode(int code) {
+            return values.get(code);
+        }
+
+        private int size() {
+            return values.size();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.transportcompany.service;
 
 import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.repository.DailyRevenueRepository;
 import com.transportcompany.repository.TransportCompanyRepository;
+import com.transportcompany.repository.UnitOfWork;
 import com.transportcompany.validation.ValidationUtil;
 import java.math.BigDecimal;
 import java.util.List;
@@ -10,9 +12,11 @@ import java.util.Optional;
 public class TransportCompanyService {
 
     private final TransportCompanyRepository repository;
+    private final DailyRevenueRepository dailyRevenueRepository;
 
     public TransportCompanyService() {
         this.repository = new TransportCompanyRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
     }
 
     public TransportCompany create(String name, String address) {
@@ -27,7 +31,14 @@ public class TransportCompanyService {
     }
 
     public void delete(Long id) {
-        repository.deleteById(id);
+        UnitOfWork.run(() -> {
+            dailyRevenueRepository.subtractTransportsReferencingCompany(id);
+            dailyRevenueRepository.deleteByCompany(id);
+            repository.deleteById(id);
+        });
+        BookingIndex.getInstance().invalidate(id);
+        TransportColumnStore.getInstance().invalidate(id);
+        TransportArchive.getInstance().delete(id);
     }
 
     public Optional<TransportCompany> findById(Long id) {
@@ -55,12 +66,7 @@ public class TransportCompanyService {
     }
 
     public void updateRevenue(Long companyId, BigDecimal amount) {
-        Optional<TransportCompany> companyOpt = repository.findById(companyId);
-        if (companyOpt.isPresent()) {
-            TransportCompany company = companyOpt.get();
-            company.setRevenue(company.getRevenue().add(amount));
-            repository.update(company);
-        }
+        repository.adjustRevenue(companyId, amount);
     }
 
     public long count() {
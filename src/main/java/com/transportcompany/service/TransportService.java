@@ -3,20 +3,44 @@ package com.transportcompany.service;
 import com.transportcompany.entity.*;
 import com.transportcompany.enums.TransportType;
 import com.transportcompany.repository.*;
+import com.transportcompany.repository.GenericRepository;
+import com.transportcompany.util.CsvWriter;
+import com.transportcompany.util.FileUtil;
 import com.transportcompany.validation.ValidationException;
 import com.transportcompany.validation.ValidationUtil;
+import org.hibernate.exception.ConstraintViolationException;
 import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public class TransportService {
 
+    // Rows per import transaction; each chunk is flushed in JDBC batches of GenericRepository.BATCH_SIZE
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    // Transports per archive transaction and archive block
+    private static final int ARCHIVE_BATCH_SIZE = 10_000;
+
     private final TransportRepository repository;
     private final TransportCompanyRepository companyRepository;
     private final EmployeeRepository employeeRepository;
     private final VehicleRepository vehicleRepository;
     private final ClientRepository clientRepository;
+    private final DailyRevenueRepository dailyRevenueRepository;
+    private final BookingIndex bookingIndex = BookingIndex.getInstance();
+    private final TransportColumnStore columnStore = TransportColumnStore.getInstance();
+    private final TransportArchive archive = TransportArchive.getInstance();
 
     public TransportService() {
         this.repository = new TransportRepository();
@@ -24,6 +48,7 @@ public class TransportService {
         this.employeeRepository = new EmployeeRepository();
         this.vehicleRepository = new VehicleRepository();
         this.clientRepository = new ClientRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
     }
 
     public Transport create(Long companyId, Long driverId, Long vehicleId, Long clientId,
@@ -36,38 +61,163 @@ public class TransportService {
             throw new ValidationException("Arrival date cannot be before departure date");
         }
 
-        TransportCompany company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ValidationException("Company not found with id: " + companyId));
+        synchronized (bookingIndex.lock(companyId)) {
+            BookingIndex.CompanyBookings bookings = bookingIndex.forCompany(companyId);
+            checkAvailability(bookings, null, driverId, vehicleId, departureDate, arrivalDate);
+            Transport transport = insert(companyId, driverId, vehicleId, clientId, startPoint, endPoint,
+                    departureDate, arrivalDate, transportType, price, cargoDescription, cargoWeight, passengerCount);
+            bookings.add(transport.getId(), driverId, vehicleId, departureDate, arrivalDate);
+            columnStore.saved(transport);
+            return transport;
+        }
+    }
 
-        Employee driver = employeeRepository.findById(driverId)
-                .orElseThrow(() -> new ValidationException("Driver not found with id: " + driverId));
+    private Transport insert(Long companyId, Long driverId, Long vehicleId, Long clientId,
+                             String startPoint, String endPoint, LocalDate departureDate,
+                             LocalDate arrivalDate, TransportType transportType, BigDecimal price,
+                             String cargoDescription, Double cargoWeight, Integer passengerCount) {
+        try {
+            return UnitOfWork.execute(() -> {
+                Transport transport = new Transport(startPoint, endPoint, departureDate, arrivalDate,
+                        transportType, price);
+                transport.setCompany(companyRepository.getReference(companyId));
+                transport.setDriver(employeeRepository.getReference(driverId));
+                transport.setVehicle(vehicleRepository.getReference(vehicleId));
+                transport.setClient(clientRepository.getReference(clientId));
+                transport.setCargoDescription(cargoDescription);
+                transport.setCargoWeight(cargoWeight);
+                transport.setPassengerCount(passengerCount);
+
+                ValidationUtil.validate(transport);
+                repository.save(transport);
+                dailyRevenueRepository.adjust(companyId, departureDate, transportType,
+                        transport.isPaid() ? price : BigDecimal.ZERO, 1);
+                return transport;
+            });
+        } catch (ConstraintViolationException e) {
+            if (!GenericRepository.isForeignKeyViolation(e)) {
+                throw e;
+            }
+            throw new ValidationException("Company, driver, vehicle or client does not exist", e);
+        }
+    }
 
-        Vehicle vehicle = vehicleRepository.findById(vehicleId)
-                .orElseThrow(() -> new ValidationException("Vehicle not found with id: " + vehicleId));
+    public Transport update(Transport transport) {
+        ValidationUtil.validate(transport);
+        if (transport.getCompany() == null || transport.getId() == null) {
+            Transport updated = merge(transport);
+            columnStore.saved(updated);
+            return updated;
+        }
 
-        Client client = clientRepository.findById(clientId)
-                .orElseThrow(() -> new ValidationException("Client not found with id: " + clientId));
+        Long driverId = transport.getDriver() != null ? transport.getDriver().getId() : null;
+        Long vehicleId = transport.getVehicle() != null ? transport.getVehicle().getId() : null;
+        Long companyId = transport.getCompany().getId();
+        synchronized (bookingIndex.lock(companyId)) {
+            BookingIndex.CompanyBookings bookings = bookingIndex.forCompany(companyId);
+            checkAvailability(bookings, transport.getId(), driverId, vehicleId,
+                    transport.getDepartureDate(), transport.getArrivalDate());
+            Transport updated = merge(transport);
+            bookings.add(updated.getId(), driverId, vehicleId, updated.getDepartureDate(), updated.getArrivalDate());
+            columnStore.saved(updated);
+            return updated;
+        }
+    }
 
-        Transport transport = new Transport(startPoint, endPoint, departureDate, arrivalDate, transportType, price);
-        transport.setCompany(company);
-        transport.setDriver(driver);
-        transport.setVehicle(vehicle);
-        transport.setClient(client);
-        transport.setCargoDescription(cargoDescription);
-        transport.setCargoWeight(cargoWeight);
-        transport.setPassengerCount(passengerCount);
+    // Moves the transport's daily_revenue contribution from its old day, type and price to the new ones
+    private Transport merge(Transport transport) {
+        return UnitOfWork.execute(() -> {
+            Optional<Object[]> before = transport.getId() != null
+                    ? repository.lockRevenueKey(transport.getId()) : Optional.empty();
+            Transport merged = repository.update(transport);
+            before.ifPresent(dailyRevenueRepository::subtract);
+            if (merged.getCompany() != null) {
+                dailyRevenueRepository.adjust(merged.getCompany().getId(), merged.getDepartureDate(),
+                        merged.getTransportType(), merged.isPaid() ? merged.getPrice() : BigDecimal.ZERO, 1);
+            }
+            return merged;
+        });
+    }
 
-        ValidationUtil.validate(transport);
-        return repository.save(transport);
+    public void delete(Long id) {
+        UnitOfWork.run(() -> repository.lockRevenueKey(id).ifPresent(row -> {
+            repository.deleteById(id);
+            dailyRevenueRepository.subtract(row);
+        }));
+        bookingIndex.remove(id);
+        columnStore.deleted(id);
     }
 
-    public Transport update(Transport transport) {
-        ValidationUtil.validate(transport);
-        return repository.update(transport);
+    // Moves the company's paid transports that arrived before cutoff out of the transports table into
+    // TransportArchive. Each batch's block is appended as pending before its delete commits, committed
+    // after it, and cut off again if the delete fails. Unpaid transports stay live so they can still be settled.
+    public long archive(Long companyId, LocalDate cutoff) {
+        long archived = 0;
+        boolean recovered = false;
+        try (TransportArchive.Writer writer = archive.openWriter(companyId)) {
+            // A block an earlier run left pending holds rows its delete removed only if none is still live
+            recovered = writer.recover(ids -> repository.countByIds(ids) == 0);
+            while (true) {
+                int moved;
+                try {
+                    moved = UnitOfWork.execute(() -> {
+                        List<Object[]> rows = repository.lockArchivable(companyId, cutoff, ARCHIVE_BATCH_SIZE);
+                        if (rows.isEmpty()) {
+                            return 0;
+                        }
+                        List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+                        dailyRevenueRepository.subtractTransports(ids);
+                        repository.deleteAllByIds(ids);
+                        writer.append(rows);
+                        return rows.size();
+                    });
+                } catch (RuntimeException e) {
+                    writer.discard();
+                    throw e;
+                }
+                if (moved > 0) {
+                    writer.commit();
+                }
+                archived += moved;
+                if (moved < ARCHIVE_BATCH_SIZE) {
+                    return archived;
+                }
+            }
+        } finally {
+            if (archived > 0 || recovered) {
+                bookingIndex.invalidate(companyId);
+                columnStore.invalidate(companyId);
+            }
+        }
     }
 
-    public void delete(Long id) {
-        repository.deleteById(id);
+    // Drivers with no transport overlapping [start, end]
+    public List<Employee> findFreeDrivers(Long companyId, LocalDate start, LocalDate end) {
+        Set<Long> busy = bookingIndex.forCompany(companyId).busyDrivers(start, end);
+        return employeeRepository.findByCompanyId(companyId).stream()
+                .filter(e -> !busy.contains(e.getId()))
+                .toList();
+    }
+
+    public List<Vehicle> findFreeVehicles(Long companyId, LocalDate start, LocalDate end) {
+        Set<Long> busy = bookingIndex.forCompany(companyId).busyVehicles(start, end);
+        return vehicleRepository.findByCompanyId(companyId).stream()
+                .filter(v -> !busy.contains(v.getId()))
+                .toList();
+    }
+
+    private static void checkAvailability(BookingIndex.CompanyBookings bookings, Long transportId,
+                                          Long driverId, Long vehicleId, LocalDate start, LocalDate end) {
+        List<Long> driverConflicts = bookings.driverConflicts(driverId, start, end, transportId);
+        if (!driverConflicts.isEmpty()) {
+            throw new ValidationException("Driver is already booked in this period (transports " +
+                    driverConflicts + ")");
+        }
+        List<Long> vehicleConflicts = bookings.vehicleConflicts(vehicleId, start, end, transportId);
+        if (!vehicleConflicts.isEmpty()) {
+            throw new ValidationException("Vehicle is already booked in this period (transports " +
+                    vehicleConflicts + ")");
+        }
     }
 
     public Optional<Transport> findById(Long id) {
@@ -82,6 +232,186 @@ public class TransportService {
         return repository.findByCompanyIdSortedByDestination(companyId);
     }
 
+    public Page<Transport> findPageByCompanyId(Long companyId, PageCursor after, int size) {
+        return repository.findPageByCompanyId(companyId, after, size);
+    }
+
+    public Page<Transport> findPageByCompanyIdSortedByDestination(Long companyId, PageCursor after, int size) {
+        return repository.findPageByCompanyIdSortedByDestination(companyId, after, size);
+    }
+
+    public long forEachExportRow(Long companyId, Consumer<FileUtil.TransportDTO> action) {
+        return repository.forEachExportRow(companyId, row -> action.accept(FileUtil.TransportDTO.fromRow(row)));
+    }
+
+    // Streams a JSON export back into the company. Driver, vehicle and client names are resolved against
+    // the company's own records; ids in the file are ignored. Valid rows are saved in chunks of
+    // IMPORT_CHUNK_SIZE, each in its own transaction, and progress receives the rows read so far.
+    // A malformed element ends the import: the rows before it are saved and stoppedAtRow names it.
+    public ImportResult importFromJson(Long companyId, String filePath, LongConsumer progress) throws IOException {
+        Map<String, Long> drivers = employeeRepository.findIdsByFullName(companyId);
+        Map<String, Long> vehicles = vehicleRepository.findIdsByRegistrationNumber(companyId);
+        Map<String, Long> clients = clientRepository.findIdsByName(companyId);
+
+        ImportResult result = new ImportResult();
+        List<PendingImport> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        try (FileUtil.TransportJsonReader reader = FileUtil.openTransportJsonReader(filePath)) {
+            long row = 0;
+            while (true) {
+                FileUtil.TransportDTO dto;
+                try {
+                    dto = reader.next();
+                } catch (IOException e) {
+                    // The reader cannot resume inside a broken element
+                    result.stoppedAtRow = row + 1;
+                    result.addError("Row " + (row + 1) + ": " + e.getMessage() + "; import stopped");
+                    break;
+                }
+                if (dto == null) {
+                    break;
+                }
+                row++;
+                try {
+                    chunk.add(toPendingImport(row, dto, drivers, vehicles, clients));
+                } catch (ValidationException | DateTimeException | IllegalArgumentException e) {
+                    result.addError("Row " + row + ": " + e.getMessage());
+                }
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    saveImportChunk(companyId, chunk, result);
+                    progress.accept(row);
+                }
+            }
+            saveImportChunk(companyId, chunk, result);
+            progress.accept(row);
+        } finally {
+            bookingIndex.invalidate(companyId);
+            columnStore.invalidate(companyId);
+        }
+        return result;
+    }
+
+    // COPY-based import of a CSV file in the export layout. Rows that fail validation or name
+    // resolution are written to reportPath with their row number and reason.
+    public BulkImportResult bulkImportCsv(Long companyId, String csvPath, String reportPath) throws IOException {
+        BulkImportResult result = new BulkImportResult();
+        try (BufferedReader rows = FileUtil.openTransportCsvReader(csvPath);
+             CsvWriter report = FileUtil.openCsvWriter(reportPath)) {
+            report.field("Row").field("Reason");
+            for (String column : FileUtil.TRANSPORT_CSV_COLUMNS) {
+                report.field(column);
+            }
+            report.endRow();
+
+            result.imported = repository.copyImportCsv(companyId, rows, row -> {
+                try {
+                    report.value(row[0]);
+                    for (int i = 1; i < row.length; i++) {
+                        report.field((String) row[i]);
+                    }
+                    report.endRow();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                result.rejected++;
+            });
+        }
+        // Revenue was updated in SQL, behind the second-level cache
+        companyRepository.evictFromCache(companyId);
+        bookingIndex.invalidate(companyId);
+        columnStore.invalidate(companyId);
+        return result;
+    }
+
+    // COPY import of header-less CSV rows produced in memory, such as DataGenerator output; rejected
+    // rows are only counted
+    public BulkImportResult bulkImportCsvRows(Long companyId, Reader csvRows) {
+        BulkImportResult result = new BulkImportResult();
+        result.imported = repository.copyImportCsv(companyId, csvRows, row -> result.rejected++);
+        companyRepository.evictFromCache(companyId);
+        bookingIndex.invalidate(companyId);
+        columnStore.invalidate(companyId);
+        return result;
+    }
+
+    public long forEachExportRow(Long companyId, TransportRepository.ExportFilter filter,
+                                 Consumer<Object[]> action) {
+        return repository.forEachExportRow(companyId, filter, action);
+    }
+
+    private PendingImport toPendingImport(long row, FileUtil.TransportDTO dto, Map<String, Long> drivers,
+                                          Map<String, Long> vehicles, Map<String, Long> clients) {
+        if (dto.departureDate == null || dto.arrivalDate == null || dto.transportType == null) {
+            throw new ValidationException("Departure date, arrival date and transport type are required");
+        }
+        Transport transport = new Transport(dto.startPoint, dto.endPoint, dto.getParsedDepartureDate(),
+                dto.getParsedArrivalDate(), dto.getParsedTransportType(), dto.price);
+        if (transport.getArrivalDate().isBefore(transport.getDepartureDate())) {
+            throw new ValidationException("Arrival date cannot be before departure date");
+        }
+        transport.setCargoDescription(dto.cargoDescription);
+        transport.setCargoWeight(dto.cargoWeight);
+        transport.setPassengerCount(dto.passengerCount);
+        transport.setPaid(dto.paid);
+        ValidationUtil.validate(transport);
+
+        return new PendingImport(row, transport,
+                resolve(drivers, dto.driverName, "driver"),
+                resolve(vehicles, dto.vehicleRegNumber, "vehicle"),
+                resolve(clients, dto.clientName, "client"));
+    }
+
+    private static Long resolve(Map<String, Long> ids, String name, String kind) {
+        if (name == null) {
+            return null;
+        }
+        Long id = ids.get(name);
+        if (id == null) {
+            throw new ValidationException("Unknown " + kind + " '" + name + "'");
+        }
+        return id;
+    }
+
+    private void saveImportChunk(Long companyId, List<PendingImport> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            UnitOfWork.run(() -> {
+                List<Transport> transports = new ArrayList<>(chunk.size());
+                BigDecimal paidTotal = BigDecimal.ZERO;
+                for (PendingImport pending : chunk) {
+                    Transport transport = pending.transport;
+                    transport.setCompany(companyRepository.getReference(companyId));
+                    if (pending.driverId != null) {
+                        transport.setDriver(employeeRepository.getReference(pending.driverId));
+                    }
+                    if (pending.vehicleId != null) {
+                        transport.setVehicle(vehicleRepository.getReference(pending.vehicleId));
+                    }
+                    if (pending.clientId != null) {
+                        transport.setClient(clientRepository.getReference(pending.clientId));
+                    }
+                    if (transport.isPaid()) {
+                        paidTotal = paidTotal.add(transport.getPrice());
+                    }
+                    transports.add(transport);
+                }
+                repository.saveAll(transports);
+                dailyRevenueRepository.addTransports(transports.stream().map(Transport::getId).toList());
+
+                // Paid rows count towards revenue, as markAsPaid would have done
+                if (paidTotal.signum() > 0) {
+                    companyRepository.adjustRevenue(companyId, paidTotal);
+                }
+            });
+            result.imported += chunk.size();
+        } catch (RuntimeException e) {
+            result.addError("Rows " + chunk.get(0).row + "-" + chunk.get(chunk.size() - 1).row +
+                    " not saved: " + e.getMessage(), chunk.size());
+        }
+        chunk.clear();
+    }
+
     public List<Transport> findByDriverId(Long driverId) {
         return repository.findByDriverId(driverId);
     }
@@ -106,51 +436,47 @@ public class TransportService {
         return repository.findByTransportType(companyId, type);
     }
 
-    public void markAsPaid(Long transportId) {
-        Optional<Transport> transportOpt = repository.findById(transportId);
-        if (transportOpt.isPresent()) {
-            Transport transport = transportOpt.get();
-            transport.setPaid(true);
-            repository.update(transport);
-
-            // Update company revenue
-            TransportCompany company = transport.getCompany();
-            if (company != null) {
-                company.setRevenue(company.getRevenue().add(transport.getPrice()));
-                companyRepository.update(company);
-            }
-        }
+    // Returns false if the transport does not exist or is already paid
+    public boolean markAsPaid(Long transportId) {
+        return changePaidStatus(transportId, true);
     }
 
-    public void markAsUnpaid(Long transportId) {
-        Optional<Transport> transportOpt = repository.findById(transportId);
-        if (transportOpt.isPresent()) {
-            Transport transport = transportOpt.get();
-            if (transport.isPaid()) {
-                transport.setPaid(false);
-                repository.update(transport);
+    // Returns false if the transport does not exist or is already unpaid
+    public boolean markAsUnpaid(Long transportId) {
+        return changePaidStatus(transportId, false);
+    }
 
-                // Update company revenue
-                TransportCompany company = transport.getCompany();
-                if (company != null) {
-                    company.setRevenue(company.getRevenue().subtract(transport.getPrice()));
-                    companyRepository.update(company);
-                }
-            }
-        }
+    // The flag flip and the revenue deltas commit together
+    private boolean changePaidStatus(Long transportId, boolean paid) {
+        Optional<Object[]> changed = UnitOfWork.execute(() -> {
+            Optional<Object[]> row = repository.setPaid(transportId, paid);
+            row.filter(r -> r[1] != null).ifPresent(r -> {
+                Long companyId = ((Number) r[1]).longValue();
+                BigDecimal delta = paid ? (BigDecimal) r[0] : ((BigDecimal) r[0]).negate();
+                companyRepository.adjustRevenue(companyId, delta);
+                dailyRevenueRepository.adjustPaidAmount(companyId, r[2], r[3], delta);
+            });
+            return row;
+        });
+        changed.filter(row -> row[1] != null).ifPresent(row ->
+                columnStore.paidChanged(((Number) row[1]).longValue(), transportId, paid));
+        return changed.isPresent();
     }
 
     // Reporting methods
     public BigDecimal getTotalRevenueByCompany(Long companyId) {
-        return repository.getTotalRevenueByCompany(companyId);
+        return dailyRevenueRepository.sumPaidAmount(companyId, null, null)
+                .add(archive.paidRevenue(companyId, null, null));
     }
 
     public BigDecimal getTotalRevenueByDriver(Long driverId) {
         return repository.getTotalRevenueByDriver(driverId);
     }
 
+    // By departure date, read from daily_revenue and the archive
     public BigDecimal getRevenueByDateRange(Long companyId, LocalDate startDate, LocalDate endDate) {
-        return repository.getRevenueByDateRange(companyId, startDate, endDate);
+        return dailyRevenueRepository.sumPaidAmount(companyId, startDate, endDate)
+                .add(archive.paidRevenue(companyId, startDate, endDate));
     }
 
     public long countByCompany(Long companyId) {
@@ -164,4 +490,47 @@ public class TransportService {
     public long count() {
         return repository.count();
     }
+
+    private static class PendingImport {
+        private final long row;
+        private final Transport transport;
+        private final Long driverId;
+        private final Long vehicleId;
+        private final Long clientId;
+
+        private PendingImport(long row, Transport transport, Long driverId, Long vehicleId, Long clientId) {
+            this.row = row;
+            this.transport = transport;
+            this.driverId = driverId;
+            this.vehicleId = vehicleId;
+            this.clientId = clientId;
+        }
+    }
+
+    public static class ImportResult {
+        public long imported;
+        public long failed;
+        public List<String> errors = new ArrayList<>();
+        public long unreportedErrors;
+        // Row of the malformed element that ended the import, or 0 if the whole file was read
+        public long stoppedAtRow;
+
+        private void addError(String message) {
+            addError(message, 1);
+        }
+
+        private void addError(String message, long rows) {
+            failed += rows;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            } else {
+                unreportedErrors++;
+            }
+        }
+    }
+
+    public static class BulkImportResult {
+        public long imported;
+        public long rejected;
+    }
 }
@@ -1,41 +1,52 @@
 package com.transportcompany.service;
 
-import com.transportcompany.entity.TransportCompany;
 import com.transportcompany.entity.Vehicle;
 import com.transportcompany.enums.VehicleType;
+import com.transportcompany.repository.DailyRevenueRepository;
+import com.transportcompany.repository.GenericRepository;
 import com.transportcompany.repository.TransportCompanyRepository;
+import com.transportcompany.repository.UnitOfWork;
 import com.transportcompany.repository.VehicleRepository;
 import com.transportcompany.validation.ValidationException;
 import com.transportcompany.validation.ValidationUtil;
+import org.hibernate.exception.ConstraintViolationException;
 import java.util.List;
 import java.util.Optional;
 
 public class VehicleService {
 
     private final VehicleRepository repository;
+    private final DailyRevenueRepository dailyRevenueRepository;
     private final TransportCompanyRepository companyRepository;
 
     public VehicleService() {
         this.repository = new VehicleRepository();
+        this.dailyRevenueRepository = new DailyRevenueRepository();
         this.companyRepository = new TransportCompanyRepository();
     }
 
     public Vehicle create(Long companyId, String registrationNumber, VehicleType vehicleType,
                           String brand, String model, Integer year, Integer capacity) {
-        // Check if vehicle with this registration already exists
-        if (repository.findByRegistrationNumber(registrationNumber).isPresent()) {
-            throw new ValidationException("Vehicle with registration number " + registrationNumber + " already exists");
+        try {
+            return UnitOfWork.execute(() -> {
+                // Check if vehicle with this registration already exists
+                if (repository.findByRegistrationNumber(registrationNumber).isPresent()) {
+                    throw new ValidationException("Vehicle with registration number " + registrationNumber + " already exists");
+                }
+
+                Vehicle vehicle = new Vehicle(registrationNumber, vehicleType, brand, model, year);
+                vehicle.setCapacity(capacity);
+                vehicle.setCompany(companyRepository.getReference(companyId));
+
+                ValidationUtil.validate(vehicle);
+                return repository.save(vehicle);
+            });
+        } catch (ConstraintViolationException e) {
+            if (!GenericRepository.isForeignKeyViolation(e)) {
+                throw e;
+            }
+            throw new ValidationException("Company not found with id: " + companyId, e);
         }
-
-        TransportCompany company = companyRepository.findById(companyId)
-                .orElseThrow(() -> new ValidationException("Company not found with id: " + companyId));
-
-        Vehicle vehicle = new Vehicle(registrationNumber, vehicleType, brand, model, year);
-        vehicle.setCapacity(capacity);
-        vehicle.setCompany(company);
-
-        ValidationUtil.validate(vehicle);
-        return repository.save(vehicle);
     }
 
     public Vehicle update(Vehicle vehicle) {
@@ -43,8 +54,14 @@ public class VehicleService {
         return repository.update(vehicle);
     }
 
+    // Removing it cascades to its transports
     public void delete(Long id) {
-        repository.deleteById(id);
+        UnitOfWork.run(() -> {
+            dailyRevenueRepository.subtractTransportsOfVehicle(id);
+            repository.deleteById(id);
+        });
+        BookingIndex.getInstance().invalidateAll();
+        TransportColumnStore.getInstance().invalidateAll();
     }
 
     public Optional<Vehicle> findById(Long id) {
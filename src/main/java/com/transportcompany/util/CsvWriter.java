@@ -0,0 +1,73 @@
+package com.transportcompany.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+// Row-at-a-time CSV encoder over a (buffered) Writer. Text fields are copied straight to the output
+// and quoted only when they contain a comma, quote or line break; no per-row strings are built.
+public class CsvWriter implements Closeable {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private boolean rowStarted;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    // Text field, escaped as needed; null is written as an empty field
+    public CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                out.write('"');
+                out.write(value, 0, i);
+                for (; i < length; i++) {
+                    char ch = value.charAt(i);
+                    if (ch == '"') {
+                        out.write('"');
+                    }
+                    out.write(ch);
+                }
+                out.write('"');
+                return this;
+            }
+        }
+        out.write(value);
+        return this;
+    }
+
+    // Numbers, dates, enums and booleans: their toString never needs escaping
+    public CsvWriter value(Object value) throws IOException {
+        separate();
+        if (value != null) {
+            out.write(value.toString());
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write(LINE_SEPARATOR);
+        rowStarted = false;
+    }
+
+    private void separate() throws IOException {
+        if (rowStarted) {
+            out.write(',');
+        }
+        rowStarted = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -2,6 +2,8 @@ package com.transportcompany.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
@@ -9,6 +11,7 @@ import com.transportcompany.entity.Transport;
 import com.transportcompany.enums.TransportType;
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -16,11 +19,19 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class FileUtil {
 
     private static final Gson gson = createGson();
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public static final String[] TRANSPORT_CSV_COLUMNS = {
+            "ID", "Start Point", "End Point", "Departure Date", "Arrival Date", "Type", "Cargo Description",
+            "Cargo Weight", "Passenger Count", "Price", "Paid", "Driver", "Vehicle", "Client"
+    };
 
     private static Gson createGson() {
         return new GsonBuilder()
@@ -30,59 +41,116 @@ public class FileUtil {
     }
 
     public static void exportTransportsToJson(List<Transport> transports, String filePath) throws IOException {
-        List<TransportDTO> dtos = transports.stream()
-                .map(TransportDTO::fromTransport)
-                .toList();
+        try (TransportJsonWriter writer = openTransportJsonWriter(filePath, true)) {
+            for (Transport t : transports) {
+                writer.write(TransportDTO.fromTransport(t));
+            }
+        }
+    }
 
-        String json = gson.toJson(dtos);
-        Files.writeString(Paths.get(filePath), json);
+    // Kept for existing callers; needs the transports' driver, vehicle and client loaded. New code should
+    // stream TransportRepository.forEachExportRow rows into openTransportCsvWriter instead.
+    @Deprecated
+    public static void exportTransportsToCsv(List<Transport> transports, String filePath) throws IOException {
+        try (TransportCsvWriter writer = openTransportCsvWriter(filePath)) {
+            for (Transport t : transports) {
+                writer.write(new Object[] {
+                        t.getId(), t.getStartPoint(), t.getEndPoint(), t.getDepartureDate(), t.getArrivalDate(),
+                        t.getTransportType(), t.getCargoDescription(), t.getCargoWeight(), t.getPassengerCount(),
+                        t.getPrice(), t.isPaid(),
+                        t.getDriver() != null ? t.getDriver().getFirstName() : null,
+                        t.getDriver() != null ? t.getDriver().getLastName() : null,
+                        t.getVehicle() != null ? t.getVehicle().getRegistrationNumber() : null,
+                        t.getClient() != null ? t.getClient().getName() : null
+                });
+            }
+        }
+    }
+
+    // Writes a JSON array of transports element by element; a path ending in .gz is gzip-compressed
+    public static TransportJsonWriter openTransportJsonWriter(String filePath, boolean pretty) throws IOException {
+        OutputStream out = new FileOutputStream(filePath);
+        if (filePath.endsWith(".gz")) {
+            out = new GZIPOutputStream(out, STREAM_BUFFER_SIZE);
+        }
+        JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+        if (pretty) {
+            json.setIndent("  ");
+        }
+        json.beginArray();
+        return new TransportJsonWriter(json);
     }
 
     public static List<TransportDTO> importTransportsFromJson(String filePath) throws IOException {
+        List<TransportDTO> dtos = new ArrayList<>();
+        try (TransportJsonReader reader = openTransportJsonReader(filePath)) {
+            TransportDTO dto;
+            while ((dto = reader.next()) != null) {
+                dtos.add(dto);
+            }
+        }
+        return dtos;
+    }
+
+    // Reads a JSON array of transports element by element; a path ending in .gz is decompressed
+    public static TransportJsonReader openTransportJsonReader(String filePath) throws IOException {
         Path path = Paths.get(filePath);
         if (!Files.exists(path)) {
             throw new FileNotFoundException("File not found: " + filePath);
         }
 
-        String json = Files.readString(path);
-        TransportDTO[] dtos = gson.fromJson(json, TransportDTO[].class);
-        return dtos != null ? List.of(dtos) : new ArrayList<>();
+        InputStream in = Files.newInputStream(path);
+        if (filePath.endsWith(".gz")) {
+            in = new GZIPInputStream(in, STREAM_BUFFER_SIZE);
+        }
+        JsonReader json = new JsonReader(new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+        try {
+            json.beginArray();
+        } catch (IOException | IllegalStateException e) {
+            json.close();
+            throw new IOException("Expected a JSON array of transports in " + filePath, e);
+        }
+        return new TransportJsonReader(json);
     }
 
-    public static void exportTransportsToCsv(List<Transport> transports, String filePath) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-            // Header
-            writer.println("ID,Start Point,End Point,Departure Date,Arrival Date,Type,Cargo Description," +
-                    "Cargo Weight,Passenger Count,Price,Paid,Driver,Vehicle,Client");
-
-            // Data
-            for (Transport t : transports) {
-                writer.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
-                        t.getId(),
-                        escapeCsv(t.getStartPoint()),
-                        escapeCsv(t.getEndPoint()),
-                        t.getDepartureDate(),
-                        t.getArrivalDate(),
-                        t.getTransportType(),
-                        escapeCsv(t.getCargoDescription() != null ? t.getCargoDescription() : ""),
-                        t.getCargoWeight() != null ? t.getCargoWeight() : "",
-                        t.getPassengerCount() != null ? t.getPassengerCount() : "",
-                        t.getPrice(),
-                        t.isPaid(),
-                        t.getDriver() != null ? escapeCsv(t.getDriver().getFullName()) : "",
-                        t.getVehicle() != null ? escapeCsv(t.getVehicle().getRegistrationNumber()) : "",
-                        t.getClient() != null ? escapeCsv(t.getClient().getName()) : ""
-                );
-            }
+    // Writes the CSV header, then one line per TransportRepository.forEachExportRow row
+    public static TransportCsvWriter openTransportCsvWriter(String filePath) throws IOException {
+        CsvWriter csv = openCsvWriter(filePath);
+        for (String column : TRANSPORT_CSV_COLUMNS) {
+            csv.field(column);
         }
+        csv.endRow();
+        return new TransportCsvWriter(csv);
+    }
+
+    // Rows only, no header: the layout TransportRepository.copyImportCsv reads
+    public static TransportCsvWriter transportCsvRowWriter(Writer out) {
+        return new TransportCsvWriter(new CsvWriter(out));
     }
 
-    private static String escapeCsv(String value) {
-        if (value == null) return "";
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+    public static CsvWriter openCsvWriter(String filePath) throws IOException {
+        return new CsvWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(filePath), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE));
+    }
+
+    // Opens a CSV file written by openTransportCsvWriter, positioned after its header line
+    public static BufferedReader openTransportCsvReader(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException("File not found: " + filePath);
         }
-        return value;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(path), StandardCharsets.UTF_8), STREAM_BUFFER_SIZE);
+        String header = reader.readLine();
+        if (!String.join(",", TRANSPORT_CSV_COLUMNS).equals(header)) {
+            reader.close();
+            throw new IOException("Unexpected CSV header in " + filePath + ", expected: " +
+                    String.join(",", TRANSPORT_CSV_COLUMNS));
+        }
+        return reader;
     }
 
     // DTO for JSON serialization
@@ -121,6 +189,26 @@ public class FileUtil {
             return dto;
         }
 
+        // Row layout of TransportRepository.forEachExportRow
+        public static TransportDTO fromRow(Object[] row) {
+            TransportDTO dto = new TransportDTO();
+            dto.id = (Long) row[0];
+            dto.startPoint = (String) row[1];
+            dto.endPoint = (String) row[2];
+            dto.departureDate = ((LocalDate) row[3]).format(DATE_FORMATTER);
+            dto.arrivalDate = ((LocalDate) row[4]).format(DATE_FORMATTER);
+            dto.transportType = ((TransportType) row[5]).name();
+            dto.cargoDescription = (String) row[6];
+            dto.cargoWeight = (Double) row[7];
+            dto.passengerCount = (Integer) row[8];
+            dto.price = (BigDecimal) row[9];
+            dto.paid = (Boolean) row[10];
+            dto.driverName = row[11] != null ? row[11] + " " + row[12] : null;
+            dto.vehicleRegNumber = (String) row[13];
+            dto.clientName = (String) row[14];
+            return dto;
+        }
+
         public LocalDate getParsedDepartureDate() {
             return LocalDate.parse(departureDate, DATE_FORMATTER);
         }
@@ -134,6 +222,92 @@ public class FileUtil {
         }
     }
 
+    public static class TransportJsonWriter implements Closeable {
+        private final JsonWriter json;
+
+        private TransportJsonWriter(JsonWriter json) {
+            this.json = json;
+        }
+
+        public void write(TransportDTO dto) {
+            try {
+                gson.toJson(dto, TransportDTO.class, json);
+            } catch (JsonIOException e) {
+                throw new UncheckedIOException(new IOException(e.getMessage(), e));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                json.endArray();
+            } finally {
+                json.close();
+            }
+        }
+    }
+
+    public static class TransportJsonReader implements Closeable {
+        private final JsonReader json;
+
+        private TransportJsonReader(JsonReader json) {
+            this.json = json;
+        }
+
+        // Next element of the array, or null once it is exhausted
+        public TransportDTO next() throws IOException {
+            try {
+                if (!json.hasNext()) {
+                    return null;
+                }
+                return gson.fromJson(json, TransportDTO.class);
+            } catch (JsonParseException | IllegalStateException e) {
+                throw new IOException("Malformed transport JSON at " + json.getPath(), e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    public static class TransportCsvWriter implements Closeable {
+        private final CsvWriter csv;
+
+        private TransportCsvWriter(CsvWriter csv) {
+            this.csv = csv;
+        }
+
+        // Row layout of TransportRepository.forEachExportRow
+        public void write(Object[] row) {
+            try {
+                csv.value(row[0])
+                        .field((String) row[1])
+                        .field((String) row[2])
+                        .value(row[3])
+                        .value(row[4])
+                        .value(row[5])
+                        .field((String) row[6])
+                        .value(row[7])
+                        .value(row[8])
+                        .value(row[9])
+                        .value(row[10])
+                        .field(row[11] != null ? row[11] + " " + row[12] : null)
+                        .field((String) row[13])
+                        .field((String) row[14])
+                        .endRow();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            csv.close();
+        }
+    }
+
     // Type adapter for LocalDate
     private static class LocalDateAdapter extends TypeAdapter<LocalDate> {
         @Override
@@ -2,6 +2,10 @@ package com.transportcompany.util;
 
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 
 public class HibernateUtil {
 
@@ -9,7 +13,14 @@ public class HibernateUtil {
 
     private static SessionFactory buildSessionFactory() {
         try {
-            return new Configuration().configure().buildSessionFactory();
+            Configuration configuration = new Configuration().configure();
+            // -Dhibernate.* and -Dtransport.* system properties override hibernate.cfg.xml
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("hibernate.") || name.startsWith("transport.")) {
+                    configuration.setProperty(name, System.getProperty(name));
+                }
+            }
+            return configuration.buildSessionFactory();
         } catch (Throwable ex) {
             System.err.println("Initial SessionFactory creation failed: " + ex);
             throw new ExceptionInInitializerError(ex);
@@ -20,6 +31,38 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    public static PooledConnectionProvider.PoolStats getPoolStats() {
+        ConnectionProvider provider = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (provider instanceof PooledConnectionProvider pool) {
+            return pool.getStats();
+        }
+        return null;
+    }
+
+    public static Statistics getStatistics() {
+        return sessionFactory.getStatistics();
+    }
+
+    // One line per second-level cache region with its hit/miss/put counters
+    public static String describeCacheStatistics() {
+        Statistics statistics = getStatistics();
+        StringBuilder sb = new StringBuilder();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStats = statistics.getCacheRegionStatistics(region);
+            if (regionStats == null) {
+                continue;
+            }
+            sb.append(String.format("%-60s hits=%d misses=%d puts=%d%n", region,
+                    regionStats.getHitCount(), regionStats.getMissCount(), regionStats.getPutCount()));
+        }
+        sb.append(String.format("%-60s hits=%d misses=%d puts=%d%n", "query cache",
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount()));
+        return sb.toString();
+    }
+
     public static void shutdown() {
         getSessionFactory().close();
     }
@@ -0,0 +1,195 @@
+package com.transportcompany.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Augmented interval tree over closed intervals [start, end] of longs. Nodes are kept in a treap
+// ordered by (start, end), and every node carries the largest end in its subtree, so an overlap
+// query skips every subtree that ends before the window: O(log n + k) in expectation.
+// Not thread-safe.
+public class IntervalTree<V> {
+
+    private static final class Node<V> {
+        private final long start;
+        private final long end;
+        private final V value;
+        private final int priority;
+        private long maxEnd;
+        private Node<V> left;
+        private Node<V> right;
+
+        private Node(long start, long end, V value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node<V> root;
+    private int size;
+    private boolean removed;
+
+    public void insert(long start, long end, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("Interval end " + end + " is before its start " + start);
+        }
+        root = insert(root, new Node<>(start, end, value, random.nextInt()));
+        size++;
+    }
+
+    // Removes one interval equal to [start, end] holding value; returns false if there is none
+    public boolean remove(long start, long end, V value) {
+        removed = false;
+        root = remove(root, start, end, value);
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    public boolean overlaps(long start, long end) {
+        Node<V> node = root;
+        while (node != null) {
+            if (node.start <= end && node.end >= start) {
+                return true;
+            }
+            // If the left subtree reaches the window but holds no overlap, nothing to the right can
+            node = node.left != null && node.left.maxEnd >= start ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public void forEachOverlapping(long start, long end, Consumer<V> action) {
+        collect(root, start, end, action);
+    }
+
+    public List<V> findOverlapping(long start, long end) {
+        List<V> result = new ArrayList<>();
+        collect(root, start, end, result::add);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.end, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                return rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                return rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<V> remove(Node<V> node, long start, long end, V value) {
+        if (node == null) {
+            return null;
+        }
+        int c = compare(start, end, node);
+        if (c == 0 && Objects.equals(value, node.value)) {
+            removed = true;
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = remove(node.left, start, end, value);
+        } else if (c > 0) {
+            node.right = remove(node.right, start, end, value);
+        } else {
+            // Rotations can leave equal keys on either side
+            node.left = remove(node.left, start, end, value);
+            if (!removed) {
+                node.right = remove(node.right, start, end, value);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private void collect(Node<V> node, long start, long end, Consumer<V> action) {
+        if (node == null || node.maxEnd < start) {
+            return;
+        }
+        collect(node.left, start, end, action);
+        if (node.start > end) {
+            // This node and its right subtree all start after the window
+            return;
+        }
+        if (node.end >= start) {
+            action.accept(node.value);
+        }
+        collect(node.right, start, end, action);
+    }
+
+    // Joins two treaps where every key of a is <= every key of b
+    private Node<V> merge(Node<V> a, Node<V> b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <V> void update(Node<V> node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(long start, long end, Node<?> node) {
+        int c = Long.compare(start, node.start);
+        return c != 0 ? c : Long.compare(end, node.end);
+    }
+}
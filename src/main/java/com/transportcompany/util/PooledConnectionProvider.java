@@ -0,0 +1,374 @@
+package com.transportcompany.util;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded JDBC connection pool plugged into Hibernate through hibernate.connection.provider_class.
+// Configured with the transport.pool.* properties in hibernate.cfg.xml (or -D overrides, see HibernateUtil).
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    public static final String MIN_SIZE = "transport.pool.min_size";
+    public static final String MAX_SIZE = "transport.pool.max_size";
+    public static final String ACQUIRE_TIMEOUT_MS = "transport.pool.acquire_timeout_ms";
+    public static final String IDLE_TIMEOUT_MS = "transport.pool.idle_timeout_ms";
+    public static final String VALIDATE_AFTER_IDLE_MS = "transport.pool.validate_after_idle_ms";
+    public static final String VALIDATION_TIMEOUT_S = "transport.pool.validation_timeout_s";
+    public static final String LEAK_DETECTION_THRESHOLD_MS = "transport.pool.leak_detection_threshold_ms";
+    public static final String PREPARE_THRESHOLD = "transport.pool.prepare_threshold";
+    public static final String STATEMENT_CACHE_QUERIES = "transport.pool.prepared_statement_cache_queries";
+    public static final String STATEMENT_CACHE_SIZE_MIB = "transport.pool.prepared_statement_cache_size_mib";
+
+    private String url;
+    private final Properties connectionProperties = new Properties();
+
+    private int minSize;
+    private int maxSize;
+    private long acquireTimeoutMs;
+    private long idleTimeoutMs;
+    private long validateAfterIdleMs;
+    private int validationTimeoutSeconds;
+    private long leakDetectionThresholdMs;
+
+    private Semaphore permits;
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<Connection, Lease> borrowed = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    private ScheduledExecutorService housekeeper;
+    private volatile boolean stopped;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        url = stringSetting(settings, "hibernate.connection.url", null);
+        if (url == null) {
+            throw new IllegalStateException("hibernate.connection.url is required for the connection pool");
+        }
+
+        String driverClass = stringSetting(settings, "hibernate.connection.driver_class", null);
+        if (driverClass != null) {
+            try {
+                Class.forName(driverClass);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("JDBC driver not found: " + driverClass, e);
+            }
+        }
+
+        String user = stringSetting(settings, "hibernate.connection.username", null);
+        String password = stringSetting(settings, "hibernate.connection.password", null);
+        if (user != null) {
+            connectionProperties.setProperty("user", user);
+        }
+        if (password != null) {
+            connectionProperties.setProperty("password", password);
+        }
+
+        // PostgreSQL driver-side prepared statement cache: statements executed prepareThreshold
+        // times switch to named server-side statements and stay cached per connection.
+        connectionProperties.setProperty("prepareThreshold",
+                String.valueOf(intSetting(settings, PREPARE_THRESHOLD, 5)));
+        connectionProperties.setProperty("preparedStatementCacheQueries",
+                String.valueOf(intSetting(settings, STATEMENT_CACHE_QUERIES, 256)));
+        connectionProperties.setProperty("preparedStatementCacheSizeMiB",
+                String.valueOf(intSetting(settings, STATEMENT_CACHE_SIZE_MIB, 5)));
+
+        maxSize = intSetting(settings, MAX_SIZE, 10);
+        minSize = Math.min(intSetting(settings, MIN_SIZE, 2), maxSize);
+        acquireTimeoutMs = longSetting(settings, ACQUIRE_TIMEOUT_MS, 30_000);
+        idleTimeoutMs = longSetting(settings, IDLE_TIMEOUT_MS, 600_000);
+        validateAfterIdleMs = longSetting(settings, VALIDATE_AFTER_IDLE_MS, 30_000);
+        validationTimeoutSeconds = intSetting(settings, VALIDATION_TIMEOUT_S, 2);
+        leakDetectionThresholdMs = longSetting(settings, LEAK_DETECTION_THRESHOLD_MS, 60_000);
+
+        permits = new Semaphore(maxSize, true);
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.offerLast(new IdleConnection(createConnection(), System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open initial pooled connections", e);
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1_000, Math.min(idleTimeoutMs,
+                leakDetectionThresholdMs > 0 ? leakDetectionThresholdMs : idleTimeoutMs) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (stopped) {
+            throw new SQLException("Connection pool has been stopped");
+        }
+
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean permitted;
+        try {
+            permitted = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        if (!permitted) {
+            timeoutCount.increment();
+            throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMs
+                    + " ms waiting for a pooled connection (active=" + borrowed.size() + ", max=" + maxSize + ")");
+        }
+
+        try {
+            Connection connection = takeIdleOrCreate();
+            borrowed.put(connection, new Lease(leakDetectionThresholdMs > 0
+                    ? new Exception("Connection acquired here by " + Thread.currentThread().getName())
+                    : null));
+            long elapsed = System.nanoTime() - start;
+            acquireCount.increment();
+            acquireNanos.add(elapsed);
+            maxAcquireNanos.accumulate(elapsed);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        Lease lease = borrowed.remove(connection);
+        if (lease == null) {
+            // Not one of ours (or already returned); just make sure it does not stay open
+            connection.close();
+            return;
+        }
+
+        try {
+            if (stopped || connection.isClosed() || !reset(connection)) {
+                discard(connection);
+            } else {
+                idle.offerFirst(new IdleConnection(connection, System.currentTimeMillis()));
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        IdleConnection idleConnection;
+        while ((idleConnection = idle.pollFirst()) != null) {
+            discard(idleConnection.connection);
+        }
+        if (!borrowed.isEmpty()) {
+            System.err.println("Connection pool stopped with " + borrowed.size() + " connection(s) still in use");
+        }
+    }
+
+    public PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        stats.active = borrowed.size();
+        stats.idle = idle.size();
+        stats.waiting = waiting.get();
+        stats.total = totalConnections.get();
+        stats.maxSize = maxSize;
+        stats.acquireCount = acquireCount.sum();
+        stats.timeoutCount = timeoutCount.sum();
+        stats.leakCount = leakCount.sum();
+        stats.averageAcquireMillis = stats.acquireCount == 0 ? 0
+                : acquireNanos.sum() / (double) stats.acquireCount / 1_000_000.0;
+        stats.maxAcquireMillis = maxAcquireNanos.get() / 1_000_000.0;
+        return stats;
+    }
+
+    private Connection takeIdleOrCreate() throws SQLException {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (isUsable(candidate)) {
+                return candidate.connection;
+            }
+            discard(candidate.connection);
+        }
+        return createConnection();
+    }
+
+    private boolean isUsable(IdleConnection candidate) {
+        try {
+            if (candidate.connection.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - candidate.idleSince < validateAfterIdleMs) {
+                return true;
+            }
+            return candidate.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection createConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, connectionProperties);
+        connection.setAutoCommit(false);
+        totalConnections.incrementAndGet();
+        return connection;
+    }
+
+    // Ends whatever a session left open: connections run with autocommit off, so reads outside a Hibernate
+    // transaction would otherwise sit idle in transaction, holding their snapshot and locks, and a failed
+    // statement would leave the next borrower with an aborted transaction. False if it could not be reset.
+    private boolean reset(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            } else {
+                connection.setAutoCommit(false);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection connection) {
+        totalConnections.decrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Retire connections that sat idle too long, oldest first, but never below min_size
+        IdleConnection oldest;
+        while (totalConnections.get() > minSize
+                && (oldest = idle.peekLast()) != null
+                && now - oldest.idleSince > idleTimeoutMs) {
+            if (idle.removeLastOccurrence(oldest)) {
+                discard(oldest.connection);
+            }
+        }
+
+        if (leakDetectionThresholdMs > 0) {
+            for (Lease lease : borrowed.values()) {
+                if (!lease.reported && now - lease.acquiredAt > leakDetectionThresholdMs) {
+                    lease.reported = true;
+                    leakCount.increment();
+                    System.err.println("Possible connection leak: connection held for more than "
+                            + leakDetectionThresholdMs + " ms");
+                    lease.origin.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static String stringSetting(Map<String, Object> settings, String name, String defaultValue) {
+        Object value = settings.get(name);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private static int intSetting(Map<String, Object> settings, String name, int defaultValue) {
+        Object value = settings.get(name);
+        return value != null ? Integer.parseInt(value.toString().trim()) : defaultValue;
+    }
+
+    private static long longSetting(Map<String, Object> settings, String name, long defaultValue) {
+        Object value = settings.get(name);
+        return value != null ? Long.parseLong(value.toString().trim()) : defaultValue;
+    }
+
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    private static class Lease {
+        private final long acquiredAt = System.currentTimeMillis();
+        private final Exception origin;
+        private volatile boolean reported;
+
+        private Lease(Exception origin) {
+            this.origin = origin;
+        }
+    }
+
+    // Point-in-time view of the pool counters
+    public static class PoolStats {
+        public int active;
+        public int idle;
+        public int waiting;
+        public int total;
+        public int maxSize;
+        public long acquireCount;
+        public long timeoutCount;
+        public long leakCount;
+        public double averageAcquireMillis;
+        public double maxAcquireMillis;
+
+        @Override
+        public String toString() {
+            return String.format("active=%d, idle=%d, waiting=%d, total=%d/%d, acquired=%d, " +
+                            "avgAcquire=%.3f ms, maxAcquire=%.3f ms, timeouts=%d, leaks=%d",
+                    active, idle, waiting, total, maxSize, acquireCount,
+                    averageAcquireMillis, maxAcquireMillis, timeoutCount, leakCount);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Transports, employees, vehicles and clients now take their ids from pooled
+-- sequences (allocationSize = 50) instead of IDENTITY columns, which lets
+-- Hibernate batch inserts. hbm2ddl.auto=update creates missing sequences starting
+-- at 1, so on a database that already has rows run this once before starting the
+-- application to move each sequence past the existing ids.
+
+CREATE SEQUENCE IF NOT EXISTS transports_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS employees_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS vehicles_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS clients_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('transports_seq', COALESCE((SELECT MAX(id) FROM transports), 0) + 50);
+SELECT setval('employees_seq', COALESCE((SELECT MAX(id) FROM employees), 0) + 50);
+SELECT setval('vehicles_seq', COALESCE((SELECT MAX(id) FROM vehicles), 0) + 50);
+SELECT setval('clients_seq', COALESCE((SELECT MAX(id) FROM clients), 0) + 50);
@@ -0,0 +1,23 @@
+-- Employee qualifications move from the employee_qualifications collection table
+-- to an integer bitmask on employees (bit n = DriverQualification ordinal n, see
+-- QualificationSetConverter). hbm2ddl.auto=update adds the column but leaves the
+-- old table behind, so on an existing database run this once to carry the
+-- qualifications over.
+
+ALTER TABLE employees ADD COLUMN IF NOT EXISTS qualifications_mask integer NOT NULL DEFAULT 0;
+
+UPDATE employees e SET qualifications_mask = COALESCE((
+    SELECT SUM(DISTINCT CASE q.qualification
+        WHEN 'STANDARD' THEN 1
+        WHEN 'HAZARDOUS_MATERIALS' THEN 2
+        WHEN 'FLAMMABLE_MATERIALS' THEN 4
+        WHEN 'PASSENGER_TRANSPORT' THEN 8
+        WHEN 'HEAVY_CARGO' THEN 16
+        WHEN 'SPECIAL_CARGO' THEN 32
+    END)
+    FROM employee_qualifications q
+    WHERE q.employee_id = e.id), 0);
+
+DROP TABLE employee_qualifications;
+
+CREATE INDEX IF NOT EXISTS idx_employees_company_qualifications ON employees (company_id, qualifications_mask);
@@ -0,0 +1,22 @@
+-- Per company, departure day and transport type rollup of transport counts and
+-- paid revenue (see DailyRevenue). hbm2ddl.auto=update creates the table empty,
+-- so on a database that already has transports run this once to fill it. The
+-- "Rebuild revenue rollup" report menu entry does the same from the application.
+
+CREATE TABLE IF NOT EXISTS daily_revenue (
+    company_id      bigint        NOT NULL,
+    day             date          NOT NULL,
+    transport_type  varchar(255)  NOT NULL,
+    paid_amount     numeric(15,2) NOT NULL,
+    transport_count bigint        NOT NULL,
+    PRIMARY KEY (company_id, day, transport_type)
+);
+
+DELETE FROM daily_revenue;
+
+INSERT INTO daily_revenue (company_id, day, transport_type, paid_amount, transport_count)
+SELECT company_id, departuredate, transporttype,
+       COALESCE(SUM(price) FILTER (WHERE paid), 0), COUNT(*)
+FROM transports
+WHERE company_id IS NOT NULL
+GROUP BY company_id, departuredate, transporttype;
@@ -0,0 +1,72 @@
+package com.transportcompany.entity;
+
+import com.transportcompany.enums.DriverQualification;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QualificationSetConverterTest {
+
+    private final QualificationSetConverter converter = new QualificationSetConverter();
+
+    @Test
+    void testBitsFollowOrdinals() {
+        assertEquals(1, QualificationSetConverter.bit(DriverQualification.STANDARD));
+        assertEquals(2, QualificationSetConverter.bit(DriverQualification.HAZARDOUS_MATERIALS));
+        assertEquals(32, QualificationSetConverter.bit(DriverQualification.SPECIAL_CARGO));
+    }
+
+    @Test
+    void testRoundTrip() {
+        Set<DriverQualification> qualifications =
+                EnumSet.of(DriverQualification.STANDARD, DriverQualification.HEAVY_CARGO);
+
+        Integer mask = converter.convertToDatabaseColumn(qualifications);
+        assertEquals(17, mask);
+        assertEquals(qualifications, converter.convertToEntityAttribute(mask));
+    }
+
+    @Test
+    void testEmptyAndNull() {
+        assertEquals(0, converter.convertToDatabaseColumn(EnumSet.noneOf(DriverQualification.class)));
+        assertEquals(0, converter.convertToDatabaseColumn(null));
+        assertTrue(converter.convertToEntityAttribute(0).isEmpty());
+        assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+    }
+
+    @Test
+    void testConvertedSetIsMutable() {
+        Set<DriverQualification> qualifications = converter.convertToEntityAttribute(1);
+        qualifications.add(DriverQualification.SPECIAL_CARGO);
+        assertEquals(33, converter.convertToDatabaseColumn(qualifications));
+    }
+
+    @Test
+    void testMasksWithAny() {
+        List<Integer> masks = QualificationSetConverter.masksWithAny(0b000011);
+        assertEquals(48, masks.size());
+        assertTrue(masks.contains(1));
+        assertTrue(masks.contains(2));
+        assertFalse(masks.contains(4));
+        assertFalse(masks.contains(0));
+    }
+
+    @Test
+    void testMasksWithAll() {
+        List<Integer> masks = QualificationSetConverter.masksWithAll(0b000011);
+        assertEquals(16, masks.size());
+        assertTrue(masks.contains(3));
+        assertTrue(masks.contains(63));
+        assertFalse(masks.contains(1));
+    }
+
+    @Test
+    void testMasksWithAllOfNothingMatchesEveryMask() {
+        assertEquals(64, QualificationSetConverter.masksWithAll(0).size());
+        assertTrue(QualificationSetConverter.masksWithAny(0).isEmpty());
+    }
+}
@@ -0,0 +1,23 @@
+package com.transportcompany.repository;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenericRepositoryTest {
+
+    private static ConstraintViolationException violation(String sqlState, String constraint) {
+        return new ConstraintViolationException("could not execute statement",
+                new SQLException("violation of " + constraint, sqlState), constraint);
+    }
+
+    @Test
+    void testOnlyForeignKeyViolationsAreMissingReferences() {
+        assertTrue(GenericRepository.isForeignKeyViolation(violation("23503", "fk_vehicles_company")));
+        assertFalse(GenericRepository.isForeignKeyViolation(violation("23505", "uk_vehicles_registrationnumber")));
+        assertFalse(GenericRepository.isForeignKeyViolation(violation("23514", "transports_price_check")));
+    }
+}
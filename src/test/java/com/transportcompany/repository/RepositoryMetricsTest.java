@@ -0,0 +1,190 @@
+package com.transportcompany.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryMetricsTest {
+
+    private RepositoryMetrics metrics;
+    private FakeRepository repository;
+
+    // Stands in for a real repository: its methods go through RepositoryMetrics.record the way
+    // withSession does, without opening a session
+    private class FakeRepository extends GenericRepository<Object, Long> {
+
+        FakeRepository() {
+            super(Object.class);
+        }
+
+        List<String> findThings() {
+            return metrics.record(this, (Supplier<List<String>>) () -> null, () -> List.of("a", "b", "c"));
+        }
+
+        Optional<String> findMissing() {
+            return metrics.record(this, (Supplier<Object>) () -> null, Optional::empty);
+        }
+
+        long forEachThing() {
+            return metrics.record(this, (Supplier<Object>) () -> null, () -> 42L);
+        }
+
+        String failing() {
+            return metrics.record(this, (Supplier<Object>) () -> null, () -> {
+                throw new IllegalStateException("boom");
+            });
+        }
+
+        List<String> outer() {
+            return metrics.record(this, (Supplier<Object>) () -> null, () -> {
+                findThings();
+                return findThings();
+            });
+        }
+
+        Optional<String> pageA() {
+            return helper();
+        }
+
+        Optional<String> pageB() {
+            return helper();
+        }
+
+        private Optional<String> helper() {
+            return metrics.record(this, HELPER_WORK, () -> Optional.of("x"));
+        }
+    }
+
+    private static final Object HELPER_WORK = (Supplier<Object>) () -> null;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new RepositoryMetrics();
+        repository = new FakeRepository();
+    }
+
+    private RepositoryMetrics.Snapshot snapshot(String operation) {
+        return metrics.snapshot().stream()
+                .filter(s -> s.operation.equals(operation))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Test
+    void testBucketBoundaries() {
+        assertEquals(0, RepositoryMetrics.bucket(0));
+        assertEquals(0, RepositoryMetrics.bucket(100_000));
+        assertEquals(1, RepositoryMetrics.bucket(100_001));
+        assertEquals(3, RepositoryMetrics.bucket(1_000_000));
+        assertEquals(RepositoryMetrics.BUCKET_BOUNDS.length, RepositoryMetrics.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testCallsAreNamedAfterTheRepositoryMethodAndCountRows() {
+        repository.findThings();
+        repository.findThings();
+        repository.findMissing();
+        repository.forEachThing();
+
+        RepositoryMetrics.Snapshot things = snapshot("FakeRepository.findThings");
+        assertNotNull(things);
+        assertEquals(2, things.calls);
+        assertEquals(0, things.errors);
+        assertEquals(6, things.rows);
+        assertEquals(0, snapshot("FakeRepository.findMissing").rows);
+        assertEquals(42, snapshot("FakeRepository.forEachThing").rows);
+    }
+
+    @Test
+    void testFailuresCountAsErrors() {
+        assertThrows(IllegalStateException.class, repository::failing);
+        assertThrows(IllegalStateException.class, repository::failing);
+
+        RepositoryMetrics.Snapshot failing = snapshot("FakeRepository.failing");
+        assertEquals(2, failing.calls);
+        assertEquals(2, failing.errors);
+        assertEquals(0, failing.rows);
+    }
+
+    @Test
+    void testNestedCallsAreNotRecordedSeparately() {
+        repository.outer();
+
+        assertEquals(1, snapshot("FakeRepository.outer").calls);
+        assertNull(snapshot("FakeRepository.findThings"));
+
+        repository.findThings();
+        assertEquals(1, snapshot("FakeRepository.findThings").calls);
+    }
+
+    @Test
+    void testSharedHelperIsAttributedToEachCaller() {
+        repository.pageA();
+        repository.pageB();
+        repository.pageA();
+
+        assertEquals(2, snapshot("FakeRepository.pageA").calls);
+        assertEquals(1, snapshot("FakeRepository.pageB").calls);
+        assertNull(snapshot("FakeRepository.helper"));
+    }
+
+    @Test
+    void testPercentilesUseBucketBounds() {
+        RepositoryMetrics.Operation operation = new RepositoryMetrics.Operation("op");
+        for (int i = 0; i < 90; i++) {
+            operation.record(50_000, false, 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            operation.record(20_000_000, false, 1);
+        }
+
+        RepositoryMetrics.Snapshot s = operation.snapshot();
+        assertEquals(100, s.calls);
+        assertEquals(100, s.rows);
+        assertEquals(0.1, s.percentileMillis(50), 1e-9);
+        assertEquals(0.1, s.percentileMillis(90), 1e-9);
+        // 20 ms falls in the 25 ms bucket but is the slowest call seen
+        assertEquals(20.0, s.percentileMillis(95), 1e-9);
+        assertEquals(20.0, s.maxNanos / 1e6, 1e-9);
+        assertEquals((90 * 50_000 + 10 * 20_000_000) / 1e6 / 100, s.meanMillis(), 1e-9);
+    }
+
+    @Test
+    void testPrometheusTextHasCumulativeBuckets() {
+        repository.findThings();
+        repository.findThings();
+        assertThrows(IllegalStateException.class, repository::failing);
+
+        String text = metrics.toPrometheusText();
+        String label = "operation=\"FakeRepository.findThings\"";
+        assertTrue(text.contains("# TYPE transport_repository_latency_seconds histogram\n"));
+        assertTrue(text.contains("transport_repository_calls_total{" + label + "} 2\n"));
+        assertTrue(text.contains("transport_repository_rows_total{" + label + "} 6\n"));
+        assertTrue(text.contains("transport_repository_errors_total{operation=\"FakeRepository.failing\"} 1\n"));
+        assertTrue(text.contains("transport_repository_latency_seconds_bucket{" + label + ",le=\"0.0001\"} "));
+        assertTrue(text.contains("transport_repository_latency_seconds_bucket{" + label + ",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("transport_repository_latency_seconds_count{" + label + "} 2\n"));
+
+        long previous = 0;
+        for (String line : text.split("\n")) {
+            if (line.startsWith("transport_repository_latency_seconds_bucket{" + label)) {
+                long value = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(value >= previous);
+                previous = value;
+            }
+        }
+        assertEquals(2, previous);
+    }
+
+    @Test
+    void testResetClearsOperations() {
+        repository.findThings();
+        metrics.reset();
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+}
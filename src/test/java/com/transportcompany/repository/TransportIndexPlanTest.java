@@ -0,0 +1,174 @@
+package com.transportcompany.repository;
+
+import com.transportcompany.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Seeds a local PostgreSQL database (hibernate.cfg.xml, or -Dhibernate.connection.url=...) and checks
+// with EXPLAIN that the planner picks the indexes declared on Transport and Employee for the
+// predicates the repositories use. Run with: mvn test -Dtransport.it=true
+@EnabledIfSystemProperty(named = "transport.it", matches = "true")
+class TransportIndexPlanTest {
+
+    private static final String SEED_PREFIX = "index-plan-test-";
+    private static final int COMPANIES = 20;
+
+    private static final List<Long> companyIds = new ArrayList<>();
+    private static long sampleDriverId;
+    private static long sampleClientId;
+
+    @BeforeAll
+    static void seed() {
+        doWork(connection -> {
+            try (Statement st = connection.createStatement()) {
+                for (int i = 0; i < COMPANIES; i++) {
+                    try (ResultSet rs = st.executeQuery(
+                            "INSERT INTO transport_companies (name, revenue) VALUES ('" + SEED_PREFIX + i + "', 0) RETURNING id")) {
+                        rs.next();
+                        companyIds.add(rs.getLong(1));
+                    }
+                }
+                String companies = "(ARRAY" + companyIds + ")";
+
+                st.execute("INSERT INTO employees (id, firstname, lastname, salary, qualifications_mask, company_id) " +
+                        "SELECT nextval('employees_seq'), 'Driver', 'No' || g, 1000 + (g % 5000), g % 64, " +
+                        companies + "[1 + g % " + COMPANIES + "] FROM generate_series(1, 50000) g");
+                st.execute("INSERT INTO vehicles (id, registrationnumber, vehicletype, company_id) " +
+                        "SELECT nextval('vehicles_seq'), '" + SEED_PREFIX + "' || g, 'TRUCK', " +
+                        companies + "[1 + g % " + COMPANIES + "] FROM generate_series(1, 2000) g");
+                st.execute("INSERT INTO clients (id, name, company_id) " +
+                        "SELECT nextval('clients_seq'), 'Client ' || g, " +
+                        companies + "[1 + g % " + COMPANIES + "] FROM generate_series(1, 2000) g");
+
+                // 5% passenger transports, ~10% unpaid, departures spread over four years
+                st.execute("WITH d AS (SELECT company_id, array_agg(id) ids FROM employees GROUP BY company_id), " +
+                        "v AS (SELECT company_id, array_agg(id) ids FROM vehicles GROUP BY company_id), " +
+                        "cl AS (SELECT company_id, array_agg(id) ids FROM clients GROUP BY company_id) " +
+                        "INSERT INTO transports (id, startpoint, endpoint, departuredate, arrivaldate, " +
+                        "transporttype, price, paid, company_id, driver_id, vehicle_id, client_id) " +
+                        "SELECT nextval('transports_seq'), 'City ' || (g % 97), 'City ' || (g % 89), " +
+                        "DATE '2021-01-01' + (g % 1460), DATE '2021-01-02' + (g % 1460), " +
+                        "CASE WHEN g % 20 = 0 THEN 'PASSENGERS' ELSE 'GOODS' END, 100 + (g % 900), g % 10 <> 0, " +
+                        "d.company_id, d.ids[1 + (g / 20) % array_length(d.ids, 1)], " +
+                        "v.ids[1 + (g / 20) % array_length(v.ids, 1)], " +
+                        "cl.ids[1 + (g / 20) % array_length(cl.ids, 1)] " +
+                        "FROM generate_series(1, 400000) g " +
+                        "JOIN d ON d.company_id = " + companies + "[1 + g % " + COMPANIES + "] " +
+                        "JOIN v ON v.company_id = d.company_id " +
+                        "JOIN cl ON cl.company_id = d.company_id");
+
+                try (ResultSet rs = st.executeQuery("SELECT driver_id, client_id FROM transports " +
+                        "WHERE company_id = " + companyIds.get(0) + " LIMIT 1")) {
+                    rs.next();
+                    sampleDriverId = rs.getLong(1);
+                    sampleClientId = rs.getLong(2);
+                }
+
+                st.execute("ANALYZE transports");
+                st.execute("ANALYZE employees");
+            }
+        });
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (companyIds.isEmpty()) {
+            return;
+        }
+        String ids = companyIds.toString().replace('[', '(').replace(']', ')');
+        doWork(connection -> {
+            try (Statement st = connection.createStatement()) {
+                st.execute("DELETE FROM transports WHERE company_id IN " + ids);
+                st.execute("DELETE FROM employees WHERE company_id IN " + ids);
+                st.execute("DELETE FROM vehicles WHERE company_id IN " + ids);
+                st.execute("DELETE FROM clients WHERE company_id IN " + ids);
+                st.execute("DELETE FROM transport_companies WHERE id IN " + ids);
+            }
+        });
+    }
+
+    @Test
+    void testCompanyDateRangeUsesCompanyDepartureIndex() {
+        assertPlanUses("idx_transports_company_departure",
+                "SELECT * FROM transports WHERE company_id = " + companyIds.get(0) +
+                " AND departuredate >= DATE '2023-03-01' AND arrivaldate <= DATE '2023-03-31'");
+    }
+
+    @Test
+    void testUnpaidByDriverUsesDriverPaidIndex() {
+        assertPlanUses("idx_transports_driver_paid",
+                "SELECT * FROM transports WHERE driver_id = " + sampleDriverId + " AND paid = false");
+    }
+
+    @Test
+    void testUnpaidByClientUsesClientPaidIndex() {
+        assertPlanUses("idx_transports_client_paid",
+                "SELECT * FROM transports WHERE client_id = " + sampleClientId + " AND paid = false");
+    }
+
+    @Test
+    void testCompanyTransportTypeUsesCompanyTypeIndex() {
+        assertPlanUses("idx_transports_company_type",
+                "SELECT * FROM transports WHERE company_id = " + companyIds.get(0) +
+                " AND transporttype = 'PASSENGERS'");
+    }
+
+    @Test
+    void testDestinationListingUsesCompanyEndPointIndex() {
+        assertPlanUses("idx_transports_company_end_point",
+                "SELECT * FROM transports WHERE company_id = " + companyIds.get(0) +
+                " ORDER BY endpoint, id LIMIT 20");
+    }
+
+    @Test
+    void testSalaryRangeUsesCompanySalaryIndex() {
+        assertPlanUses("idx_employees_company_salary",
+                "SELECT * FROM employees WHERE company_id = " + companyIds.get(0) +
+                " AND salary BETWEEN 1000 AND 1010");
+    }
+
+    @Test
+    void testQualificationMaskListUsesCompanyQualificationsIndex() {
+        assertPlanUses("idx_employees_company_qualifications",
+                "SELECT * FROM employees WHERE company_id = " + companyIds.get(0) +
+                " AND qualifications_mask IN (3, 7, 11, 15, 19, 23, 27, 31, 35, 39, 43, 47, 51, 55, 59, 63)");
+    }
+
+    private static void assertPlanUses(String indexName, String sql) {
+        StringBuilder plan = new StringBuilder();
+        doWork(connection -> {
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+        });
+        assertTrue(plan.toString().contains(indexName),
+                "Expected plan to use " + indexName + " but was:\n" + plan);
+    }
+
+    private interface SqlWork {
+        void execute(Connection connection) throws SQLException;
+    }
+
+    private static void doWork(SqlWork work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            session.doWork(work::execute);
+            session.getTransaction().commit();
+        }
+    }
+}
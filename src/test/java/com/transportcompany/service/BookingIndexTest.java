@@ -0,0 +1,101 @@
+package com.transportcompany.service;
+
+import com.transportcompany.repository.TransportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingIndexTest {
+
+    private static final Long COMPANY = 1L;
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private int loads;
+    private Runnable duringLoad = () -> {};
+    private BookingIndex index;
+
+    // Serves the booking rows from memory instead of the database
+    private class FakeRepository extends TransportRepository {
+        @Override
+        public List<Object[]> findBookingsByCompany(Long companyId) {
+            loads++;
+            List<Object[]> snapshot = new ArrayList<>(rows);
+            Runnable action = duringLoad;
+            duringLoad = () -> {};
+            action.run();
+            return snapshot;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        index = new BookingIndex(new FakeRepository());
+    }
+
+    private void booking(long transportId, long driverId) {
+        rows.add(new Object[] {transportId, driverId, null, DAY, DAY});
+    }
+
+    @Test
+    void testLoadedOnceAndCached() {
+        booking(1, 7);
+        BookingIndex.CompanyBookings bookings = index.forCompany(COMPANY);
+        assertSame(bookings, index.forCompany(COMPANY));
+        assertEquals(1, loads);
+        assertEquals(List.of(1L), bookings.driverConflicts(7L, DAY, DAY, null));
+    }
+
+    @Test
+    void testInvalidateReloads() {
+        index.forCompany(COMPANY);
+        booking(1, 7);
+        index.invalidate(COMPANY);
+        assertEquals(List.of(1L), index.forCompany(COMPANY).driverConflicts(7L, DAY, DAY, null));
+        assertEquals(2, loads);
+    }
+
+    @Test
+    void testLoadRacingAnInvalidationIsNotPublished() {
+        // A transport commits and the company is invalidated while the first load is reading
+        duringLoad = () -> {
+            booking(1, 7);
+            index.invalidate(COMPANY);
+        };
+        BookingIndex.CompanyBookings bookings = index.forCompany(COMPANY);
+        assertEquals(2, loads);
+        assertEquals(List.of(1L), bookings.driverConflicts(7L, DAY, DAY, null));
+        assertSame(bookings, index.forCompany(COMPANY));
+    }
+
+    @Test
+    void testSnapshotKeepsBookingsInsideTheWindow() {
+        booking(1, 7);
+        rows.add(new Object[] {2L, 8L, 3L, DAY.plusDays(30), DAY.plusDays(31)});
+        BookingIndex.CompanyBookings bookings = index.forCompany(COMPANY);
+        BookingIndex.Snapshot snapshot = bookings.snapshot(DAY.minusDays(1), DAY.plusDays(1));
+        bookings.remove(1L);
+
+        assertEquals(Set.of(7L), snapshot.busyDrivers(DAY, DAY));
+        assertEquals(Map.of(7L, 1L), snapshot.driverBookedDays(DAY.minusDays(1), DAY.plusDays(1)));
+        assertTrue(snapshot.busyDrivers(DAY.plusDays(30), DAY.plusDays(31)).isEmpty());
+        assertTrue(snapshot.busyVehicles(DAY.plusDays(30), DAY.plusDays(31)).isEmpty());
+    }
+
+    @Test
+    void testLockOutlivesInvalidation() {
+        Object lock = index.lock(COMPANY);
+        index.forCompany(COMPANY);
+        index.invalidate(COMPANY);
+        index.invalidateAll();
+        assertSame(lock, index.lock(COMPANY));
+        assertNotSame(lock, index.lock(2L));
+    }
+}
@@ -0,0 +1,170 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.Transport;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives every TransportService and ClientService write path against a local PostgreSQL database and
+// checks that daily_revenue matches a full aggregation of transports. Run with: mvn test -Dtransport.it=true
+@EnabledIfSystemProperty(named = "transport.it", matches = "true")
+class DailyRevenueRollupTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    private static final TransportService transportService = new TransportService();
+    private static final ClientService clientService = new ClientService();
+    private static final ReportService reportService = new ReportService();
+
+    private static long companyId;
+    private static long driverId;
+    private static long vehicleId;
+    private static long clientId;
+
+    @BeforeAll
+    static void seed() {
+        doWork(st -> {
+            companyId = insert(st, "INSERT INTO transport_companies (name, revenue) " +
+                    "VALUES ('daily-revenue-test', 0) RETURNING id");
+            driverId = insert(st, "INSERT INTO employees (id, firstname, lastname, salary, qualifications_mask, " +
+                    "company_id) VALUES (nextval('employees_seq'), 'Daily', 'Revenue', 1000, 1, " + companyId +
+                    ") RETURNING id");
+            vehicleId = insert(st, "INSERT INTO vehicles (id, registrationnumber, vehicletype, company_id) " +
+                    "VALUES (nextval('vehicles_seq'), 'daily-revenue-test', 'TRUCK', " + companyId + ") RETURNING id");
+            clientId = insert(st, "INSERT INTO clients (id, name, company_id) " +
+                    "VALUES (nextval('clients_seq'), 'Daily Revenue Client', " + companyId + ") RETURNING id");
+        });
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (companyId == 0) {
+            return;
+        }
+        new TransportCompanyService().delete(companyId);
+        assertEquals(0, count("SELECT COUNT(*) FROM daily_revenue WHERE company_id = " + companyId));
+    }
+
+    @Test
+    void testRollupFollowsEveryWritePath() {
+        List<Transport> transports = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            transports.add(transportService.create(companyId, driverId, vehicleId, clientId, "A", "B",
+                    START.plusDays(i), START.plusDays(i), i % 3 == 0 ? TransportType.PASSENGERS : TransportType.GOODS,
+                    new BigDecimal(100 + i), null, null, null));
+        }
+        assertRollupMatchesTransports();
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(transportService.markAsPaid(transports.get(i).getId()));
+        }
+        assertTrue(transportService.markAsUnpaid(transports.get(0).getId()));
+        assertRollupMatchesTransports();
+
+        // Move a paid transport to another day, type and price
+        Transport moved = transportService.findById(transports.get(3).getId()).orElseThrow();
+        moved.setDepartureDate(START.plusDays(40));
+        moved.setArrivalDate(START.plusDays(40));
+        moved.setTransportType(TransportType.GOODS);
+        moved.setPrice(new BigDecimal("999.00"));
+        transportService.update(moved);
+        assertRollupMatchesTransports();
+
+        transportService.delete(transports.get(4).getId());
+        transportService.delete(transports.get(8).getId());
+        assertRollupMatchesTransports();
+
+        clientService.settleClient(clientId, null, START.plusDays(9));
+        assertRollupMatchesTransports();
+
+        BigDecimal total = reportService.getTotalRevenue(companyId);
+        BigDecimal period = reportService.getRevenueForPeriod(companyId, START, START.plusDays(5));
+        reportService.rebuildRevenueRollup(companyId);
+        assertRollupMatchesTransports();
+        assertEquals(0, total.compareTo(reportService.getTotalRevenue(companyId)));
+        assertEquals(0, period.compareTo(reportService.getRevenueForPeriod(companyId, START, START.plusDays(5))));
+    }
+
+    @Test
+    void testJsonImportKeepsRowsBeforeAMalformedElement() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 3; i++) {
+            json.append("{\"startPoint\":\"A\",\"endPoint\":\"B\",\"departureDate\":\"")
+                    .append(START.plusDays(60 + i)).append("\",\"arrivalDate\":\"").append(START.plusDays(60 + i))
+                    .append("\",\"transportType\":\"GOODS\",\"price\":50,\"paid\":true,")
+                    .append("\"driverName\":\"Daily Revenue\",\"vehicleRegNumber\":\"daily-revenue-test\"},");
+        }
+        json.append("{\"startPoint\":\"A\",\"price\":\"not a number\"},{\"startPoint\":\"C\"}]");
+        Path file = Files.createTempFile("daily-revenue-import", ".json");
+        try {
+            Files.writeString(file, json);
+            TransportService.ImportResult result = transportService.importFromJson(companyId, file.toString(),
+                    row -> {});
+            assertEquals(3, result.imported);
+            assertEquals(4, result.stoppedAtRow);
+            assertEquals(1, result.errors.size());
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals(3, count("SELECT COUNT(*) FROM transports WHERE company_id = " + companyId +
+                " AND departuredate >= '" + START.plusDays(60) + "'"));
+        assertRollupMatchesTransports();
+    }
+
+    // Rows that differ in either direction between the rollup and a fresh aggregation
+    private static void assertRollupMatchesTransports() {
+        String expected = "SELECT company_id, departuredate, transporttype, " +
+                "COALESCE(SUM(price) FILTER (WHERE paid), 0), COUNT(*) FROM transports " +
+                "WHERE company_id = " + companyId + " GROUP BY 1, 2, 3";
+        String actual = "SELECT company_id, day, transport_type, paid_amount, transport_count FROM daily_revenue " +
+                "WHERE company_id = " + companyId + " AND transport_count <> 0";
+        assertEquals(0, count("SELECT COUNT(*) FROM ((" + expected + " EXCEPT " + actual + ") UNION ALL (" +
+                actual + " EXCEPT " + expected + ")) diff"));
+    }
+
+    private static long insert(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static long count(String sql) {
+        long[] result = new long[1];
+        doWork(st -> result[0] = insert(st, sql));
+        return result[0];
+    }
+
+    private interface SqlWork {
+        void execute(Statement statement) throws SQLException;
+    }
+
+    private static void doWork(SqlWork work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement st = connection.createStatement()) {
+                    work.execute(st);
+                }
+            });
+            session.getTransaction().commit();
+        }
+    }
+}
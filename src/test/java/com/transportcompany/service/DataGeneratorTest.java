@@ -0,0 +1,170 @@
+package com.transportcompany.service;
+
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.enums.VehicleType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataGeneratorTest {
+
+    private static DataGenerator.Config config(long seed, long transports) {
+        DataGenerator.Config config = new DataGenerator.Config();
+        config.seed = seed;
+        config.companies = 2;
+        config.employeesPerCompany = 20;
+        config.vehiclesPerType = 3;
+        config.clientsPerCompany = 30;
+        config.transportsPerCompany = transports;
+        return config;
+    }
+
+    private static List<Object[]> rows(DataGenerator.Config config, int company) {
+        DataGenerator.CompanyPlan plan = DataGenerator.plan(config, company);
+        List<Object[]> rows = new ArrayList<>();
+        for (int chunk = 0; chunk < DataGenerator.chunkCount(config); chunk++) {
+            DataGenerator.transportRows(config, plan, chunk, rows::add);
+        }
+        return rows;
+    }
+
+    @Test
+    void testSameSeedGivesSameData() {
+        DataGenerator.CompanyPlan first = DataGenerator.plan(config(42, 0), 1);
+        DataGenerator.CompanyPlan second = DataGenerator.plan(config(42, 0), 1);
+        assertEquals(first.name, second.name);
+        assertEquals(first.drivers.size(), second.drivers.size());
+        for (int i = 0; i < first.drivers.size(); i++) {
+            assertEquals(first.drivers.get(i).getFullName(), second.drivers.get(i).getFullName());
+            assertEquals(first.drivers.get(i).qualifications, second.drivers.get(i).qualifications);
+        }
+
+        List<Object[]> a = rows(config(42, 1_000), 0);
+        List<Object[]> b = rows(config(42, 1_000), 0);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            assertArrayEquals(a.get(i), b.get(i));
+        }
+    }
+
+    @Test
+    void testDifferentSeedGivesDifferentRows() {
+        List<Object[]> a = rows(config(1, 200), 0);
+        List<Object[]> b = rows(config(2, 200), 0);
+        int same = 0;
+        for (int i = 0; i < a.size(); i++) {
+            if (Arrays.equals(a.get(i), b.get(i))) same++;
+        }
+        assertTrue(same < 10);
+    }
+
+    @Test
+    void testOtherNamePrefixOnlyChangesRegistrations() {
+        DataGenerator.Config renamed = config(42, 1_000);
+        renamed.namePrefix = "Renamed";
+        Set<String> registrations = new HashSet<>();
+        DataGenerator.plan(config(42, 0), 0).vehicles.forEach(v -> registrations.add(v.registrationNumber));
+        DataGenerator.plan(renamed, 0).vehicles.forEach(v -> assertFalse(registrations.contains(v.registrationNumber)));
+
+        // Transports are the same apart from the vehicle registration
+        List<Object[]> a = rows(config(42, 1_000), 0);
+        List<Object[]> b = rows(renamed, 0);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); i++) {
+            a.get(i)[13] = null;
+            b.get(i)[13] = null;
+            assertArrayEquals(a.get(i), b.get(i));
+        }
+    }
+
+    @Test
+    void testChunksAddUpToRequestedCount() {
+        DataGenerator.Config config = config(7, DataGenerator.CHUNK_SIZE * 2L + 17);
+        assertEquals(3, DataGenerator.chunkCount(config));
+        List<Object[]> rows = rows(config, 0);
+        assertEquals(config.transportsPerCompany, rows.size());
+        Set<Object> ids = new HashSet<>();
+        for (Object[] row : rows) {
+            ids.add(row[0]);
+        }
+        assertEquals(rows.size(), ids.size());
+    }
+
+    @Test
+    void testNamesAndRegistrationsAreUnique() {
+        DataGenerator.Config config = config(3, 0);
+        config.employeesPerCompany = 500;
+        config.clientsPerCompany = 300;
+        Set<String> registrations = new HashSet<>();
+        for (int company = 0; company < config.companies; company++) {
+            DataGenerator.CompanyPlan plan = DataGenerator.plan(config, company);
+            Set<String> drivers = new HashSet<>();
+            plan.drivers.forEach(d -> assertTrue(drivers.add(d.getFullName())));
+            Set<String> clients = new HashSet<>();
+            plan.clients.forEach(c -> assertTrue(clients.add(c.name)));
+            plan.vehicles.forEach(v -> assertTrue(registrations.add(v.registrationNumber)));
+        }
+    }
+
+    @Test
+    void testRowsRespectQualificationsAndVehicleTypes() {
+        DataGenerator.Config config = config(11, 20_000);
+        DataGenerator.CompanyPlan plan = DataGenerator.plan(config, 0);
+        Map<String, DataGenerator.DriverPlan> drivers = new HashMap<>();
+        plan.drivers.forEach(d -> drivers.put(d.firstName + "|" + d.lastName, d));
+        Map<String, DataGenerator.VehiclePlan> vehicles = new HashMap<>();
+        plan.vehicles.forEach(v -> vehicles.put(v.registrationNumber, v));
+        LocalDate last = config.firstDay.plusDays(config.days);
+
+        for (Object[] row : rows(config, 0)) {
+            DataGenerator.DriverPlan driver = drivers.get(row[11] + "|" + row[12]);
+            DataGenerator.VehiclePlan vehicle = vehicles.get((String) row[13]);
+            assertNotNull(driver);
+            assertNotNull(vehicle);
+            assertNotEquals(row[1], row[2]);
+            LocalDate departure = (LocalDate) row[3];
+            assertFalse(departure.isBefore(config.firstDay));
+            assertFalse(departure.isAfter(last));
+            assertFalse(((LocalDate) row[4]).isBefore(departure));
+            assertTrue(((BigDecimal) row[9]).signum() > 0);
+
+            if (row[5] == TransportType.PASSENGERS) {
+                assertTrue(driver.qualifications.contains(DriverQualification.PASSENGER_TRANSPORT));
+                assertTrue((Integer) row[8] <= vehicle.capacity);
+                assertNull(row[7]);
+            } else {
+                double weight = (Double) row[7];
+                assertNotEquals(VehicleType.BUS, vehicle.type);
+                assertTrue(weight <= vehicle.capacity * 1_000.0);
+                if (weight > DispatchService.HEAVY_CARGO_KG) {
+                    assertTrue(driver.qualifications.contains(DriverQualification.HEAVY_CARGO));
+                }
+                if (vehicle.type == VehicleType.TANKER) {
+                    assertTrue(driver.qualifications.contains(DriverQualification.FLAMMABLE_MATERIALS));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDestinationsAreSkewed() {
+        Map<Object, Integer> destinations = new HashMap<>();
+        for (Object[] row : rows(config(5, 20_000), 0)) {
+            destinations.merge(row[2], 1, Integer::sum);
+        }
+        // The most popular destination sees far more traffic than an even split would give it
+        int top = destinations.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        assertTrue(top > 3 * 20_000 / destinations.size());
+    }
+}
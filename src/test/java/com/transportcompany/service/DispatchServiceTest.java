@@ -0,0 +1,195 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.Employee;
+import com.transportcompany.entity.Vehicle;
+import com.transportcompany.enums.DriverQualification;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.enums.VehicleType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    private BookingIndex.CompanyBookings bookings;
+    private List<Employee> drivers;
+    private List<Vehicle> vehicles;
+
+    @BeforeEach
+    void setUp() {
+        bookings = new BookingIndex.CompanyBookings();
+        drivers = new ArrayList<>();
+        vehicles = new ArrayList<>();
+    }
+
+    @Test
+    void testDriverMustHoldRequiredQualifications() {
+        driver(1L, DriverQualification.STANDARD);
+        Employee hazmat = driver(2L, DriverQualification.STANDARD, DriverQualification.HAZARDOUS_MATERIALS);
+        vehicle(10L, VehicleType.TRUCK, 20);
+
+        DispatchService.Order order = goods(5_000);
+        order.qualifications.add(DriverQualification.HAZARDOUS_MATERIALS);
+
+        List<DispatchService.Candidate> candidates = rank(order);
+        assertEquals(1, candidates.size());
+        assertSame(hazmat, candidates.get(0).driver);
+    }
+
+    @Test
+    void testImpliedQualifications() {
+        DispatchService.Order bus = new DispatchService.Order(DAY, DAY, TransportType.PASSENGERS);
+        bus.passengerCount = 40;
+        assertTrue(DispatchService.requiredQualifications(bus).contains(DriverQualification.PASSENGER_TRANSPORT));
+
+        bus.passengerCount = 8;
+        assertTrue(DispatchService.requiredQualifications(bus).isEmpty());
+
+        assertTrue(DispatchService.requiredQualifications(goods(20_000)).contains(DriverQualification.HEAVY_CARGO));
+        assertFalse(DispatchService.requiredQualifications(goods(2_000)).contains(DriverQualification.HEAVY_CARGO));
+    }
+
+    @Test
+    void testVehicleTypeAndCapacity() {
+        driver(1L, DriverQualification.STANDARD);
+        vehicle(10L, VehicleType.BUS, 50);
+        vehicle(11L, VehicleType.TRUCK, 5);
+        Vehicle big = vehicle(12L, VehicleType.TRUCK, 25);
+        Vehicle snug = vehicle(13L, VehicleType.TRUCK, 10);
+
+        List<DispatchService.Candidate> candidates = rank(goods(8_000));
+        assertEquals(2, candidates.size());
+        assertSame(snug, candidates.get(0).vehicle);
+        assertSame(big, candidates.get(1).vehicle);
+    }
+
+    @Test
+    void testBusyDriversAndVehiclesAreExcluded() {
+        driver(1L, DriverQualification.STANDARD);
+        Employee free = driver(2L, DriverQualification.STANDARD);
+        vehicle(10L, VehicleType.TRUCK, 10);
+        Vehicle freeVehicle = vehicle(11L, VehicleType.TRUCK, 10);
+        bookings.add(100L, 1L, 10L, DAY.minusDays(1), DAY);
+
+        List<DispatchService.Candidate> candidates = rank(goods(1_000));
+        assertEquals(1, candidates.size());
+        assertSame(free, candidates.get(0).driver);
+        assertSame(freeVehicle, candidates.get(0).vehicle);
+    }
+
+    @Test
+    void testLighterWorkloadAndFewerSpareQualificationsRankFirst() {
+        Employee busy = driver(1L, DriverQualification.STANDARD);
+        Employee specialist = driver(2L, DriverQualification.STANDARD, DriverQualification.HAZARDOUS_MATERIALS,
+                DriverQualification.FLAMMABLE_MATERIALS);
+        Employee idle = driver(3L, DriverQualification.STANDARD);
+        vehicle(10L, VehicleType.TRUCK, 10);
+        bookings.add(100L, 1L, null, DAY.minusDays(10), DAY.minusDays(2));
+
+        List<DispatchService.Candidate> candidates = rank(goods(1_000));
+        assertSame(idle, candidates.get(0).driver);
+        assertSame(specialist, candidates.get(1).driver);
+        assertSame(busy, candidates.get(2).driver);
+    }
+
+    @Test
+    void testLimitKeepsBestPairs() {
+        for (long id = 1; id <= 10; id++) {
+            driver(id, DriverQualification.STANDARD);
+            vehicle(100 + id, VehicleType.TRUCK, (int) (10 + id));
+        }
+        List<DispatchService.Candidate> candidates = rank(goods(10_000), 3);
+        assertEquals(3, candidates.size());
+        for (int i = 1; i < candidates.size(); i++) {
+            assertTrue(candidates.get(i - 1).cost <= candidates.get(i).cost);
+        }
+        assertEquals(101L, candidates.get(0).vehicle.getId());
+    }
+
+    @Test
+    void testBatchNeverDoubleBooks() {
+        for (long id = 1; id <= 3; id++) {
+            driver(id, DriverQualification.STANDARD);
+            vehicle(100 + id, VehicleType.TRUCK, 10);
+        }
+        List<DispatchService.Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(goods(1_000));
+        }
+
+        List<DispatchService.Assignment> assignments =
+                DispatchService.assign(orders, drivers, vehicles, bookings);
+        assertEquals(5, assignments.size());
+
+        Set<Long> usedDrivers = new HashSet<>();
+        Set<Long> usedVehicles = new HashSet<>();
+        int assigned = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            DispatchService.Assignment assignment = assignments.get(i);
+            assertSame(orders.get(i), assignment.order);
+            if (assignment.isAssigned()) {
+                assigned++;
+                assertTrue(usedDrivers.add(assignment.driver.getId()));
+                assertTrue(usedVehicles.add(assignment.vehicle.getId()));
+            }
+        }
+        assertEquals(3, assigned);
+    }
+
+    @Test
+    void testBatchServesMostConstrainedOrderFirst() {
+        driver(1L, DriverQualification.STANDARD, DriverQualification.HAZARDOUS_MATERIALS);
+        driver(2L, DriverQualification.STANDARD);
+        vehicle(10L, VehicleType.TRUCK, 10);
+        vehicle(11L, VehicleType.TRUCK, 10);
+
+        DispatchService.Order ordinary = goods(1_000);
+        DispatchService.Order hazardous = goods(1_000);
+        hazardous.qualifications.add(DriverQualification.HAZARDOUS_MATERIALS);
+
+        List<DispatchService.Assignment> assignments =
+                DispatchService.assign(List.of(ordinary, hazardous), drivers, vehicles, bookings);
+        assertEquals(2L, assignments.get(0).driver.getId());
+        assertEquals(1L, assignments.get(1).driver.getId());
+    }
+
+    private List<DispatchService.Candidate> rank(DispatchService.Order order) {
+        return rank(order, 10);
+    }
+
+    private List<DispatchService.Candidate> rank(DispatchService.Order order, int limit) {
+        return DispatchService.rank(order, drivers, vehicles, bookings, limit);
+    }
+
+    private static DispatchService.Order goods(double weightKg) {
+        DispatchService.Order order = new DispatchService.Order(DAY, DAY.plusDays(1), TransportType.GOODS);
+        order.cargoWeight = weightKg;
+        return order;
+    }
+
+    private Employee driver(Long id, DriverQualification... qualifications) {
+        Employee employee = new Employee("Driver", "No" + id, new BigDecimal("2000"));
+        employee.setId(id);
+        employee.setQualifications(Set.of(qualifications));
+        drivers.add(employee);
+        return employee;
+    }
+
+    private Vehicle vehicle(Long id, VehicleType type, Integer capacity) {
+        Vehicle vehicle = new Vehicle("REG-" + id, type);
+        vehicle.setId(id);
+        vehicle.setCapacity(capacity);
+        vehicles.add(vehicle);
+        return vehicle;
+    }
+}
@@ -0,0 +1,127 @@
+package com.transportcompany.service;
+
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checks that the driver report gives the same rows from SQL and from TransportColumnStore when a
+// driver also drives for another company. Run with: mvn test -Dtransport.it=true
+@EnabledIfSystemProperty(named = "transport.it", matches = "true")
+class DriverStatisticsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 6, 3);
+
+    private static final TransportService transportService = new TransportService();
+
+    private static long ownCompanyId;
+    private static long otherCompanyId;
+    private static long driverId;
+    private static long idleDriverId;
+
+    @BeforeAll
+    static void seed() {
+        long[] vehicles = new long[2];
+        long[] clients = new long[2];
+        doWork(st -> {
+            ownCompanyId = insert(st, "INSERT INTO transport_companies (name, revenue) " +
+                    "VALUES ('driver-statistics-own', 0) RETURNING id");
+            otherCompanyId = insert(st, "INSERT INTO transport_companies (name, revenue) " +
+                    "VALUES ('driver-statistics-other', 0) RETURNING id");
+            driverId = insert(st, "INSERT INTO employees (id, firstname, lastname, salary, qualifications_mask, " +
+                    "company_id) VALUES (nextval('employees_seq'), 'Shared', 'Driver', 1000, 1, " + ownCompanyId +
+                    ") RETURNING id");
+            idleDriverId = insert(st, "INSERT INTO employees (id, firstname, lastname, salary, qualifications_mask, " +
+                    "company_id) VALUES (nextval('employees_seq'), 'Idle', 'Driver', 1000, 1, " + ownCompanyId +
+                    ") RETURNING id");
+            long[] companies = {ownCompanyId, otherCompanyId};
+            for (int i = 0; i < 2; i++) {
+                vehicles[i] = insert(st, "INSERT INTO vehicles (id, registrationnumber, vehicletype, company_id) " +
+                        "VALUES (nextval('vehicles_seq'), 'driver-statistics-" + i + "', 'TRUCK', " + companies[i] +
+                        ") RETURNING id");
+                clients[i] = insert(st, "INSERT INTO clients (id, name, company_id) " +
+                        "VALUES (nextval('clients_seq'), 'Driver Statistics Client', " + companies[i] +
+                        ") RETURNING id");
+            }
+        });
+
+        transportService.markAsPaid(transportService.create(ownCompanyId, driverId, vehicles[0], clients[0], "A", "B",
+                DAY, DAY, TransportType.GOODS, new BigDecimal("100.00"), null, null, null).getId());
+        transportService.create(ownCompanyId, driverId, vehicles[0], clients[0], "A", "C",
+                DAY.plusDays(1), DAY.plusDays(1), TransportType.GOODS, new BigDecimal("40.00"), null, null, null);
+        // Booked by the other company
+        transportService.markAsPaid(transportService.create(otherCompanyId, driverId, vehicles[1], clients[1],
+                "A", "D", DAY.plusDays(2), DAY.plusDays(2), TransportType.GOODS, new BigDecimal("900.00"),
+                null, null, null).getId());
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        TransportCompanyService companyService = new TransportCompanyService();
+        if (otherCompanyId != 0) {
+            companyService.delete(otherCompanyId);
+        }
+        if (ownCompanyId != 0) {
+            companyService.delete(ownCompanyId);
+        }
+    }
+
+    @Test
+    void testSqlAndColumnStoreAgree() {
+        List<ReportService.DriverReport> fromSql = new ReportService(
+                new TransportColumnStore(new TransportRepository(), false)).getDriverStatistics(ownCompanyId);
+        List<ReportService.DriverReport> fromColumns = new ReportService(
+                new TransportColumnStore(new TransportRepository(), true)).getDriverStatistics(ownCompanyId);
+
+        assertEquals(2, fromSql.size());
+        assertEquals(driverId, fromSql.get(0).driverId);
+        assertEquals(2, fromSql.get(0).transportCount);
+        assertEquals(0, new BigDecimal("100.00").compareTo(fromSql.get(0).totalRevenue));
+        assertEquals(idleDriverId, fromSql.get(1).driverId);
+        assertEquals(0, fromSql.get(1).transportCount);
+
+        assertEquals(fromSql.size(), fromColumns.size());
+        for (int i = 0; i < fromSql.size(); i++) {
+            assertEquals(fromSql.get(i).driverId, fromColumns.get(i).driverId);
+            assertEquals(fromSql.get(i).driverName, fromColumns.get(i).driverName);
+            assertEquals(fromSql.get(i).transportCount, fromColumns.get(i).transportCount);
+            assertEquals(0, fromSql.get(i).totalRevenue.compareTo(fromColumns.get(i).totalRevenue));
+        }
+    }
+
+    private static long insert(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private interface SqlWork {
+        void execute(Statement statement) throws SQLException;
+    }
+
+    private static void doWork(SqlWork work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement st = connection.createStatement()) {
+                    work.execute(st);
+                }
+            });
+            session.getTransaction().commit();
+        }
+    }
+}
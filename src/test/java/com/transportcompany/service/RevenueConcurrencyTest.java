@@ -0,0 +1,166 @@
+package com.transportcompany.service;
+
+import com.transportcompany.util.HibernateUtil;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Several threads race to toggle the same transports and to adjust the same company's revenue
+// against a local PostgreSQL database. Run with: mvn test -Dtransport.it=true
+@EnabledIfSystemProperty(named = "transport.it", matches = "true")
+class RevenueConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSPORTS = 200;
+    private static final BigDecimal PRICE = new BigDecimal("10.00");
+
+    private static final TransportService transportService = new TransportService();
+    private static final TransportCompanyService companyService = new TransportCompanyService();
+
+    private static long companyId;
+    private static final List<Long> transportIds = new ArrayList<>();
+
+    @BeforeAll
+    static void seed() {
+        doWork(st -> {
+            try (ResultSet rs = st.executeQuery(
+                    "INSERT INTO transport_companies (name, revenue) VALUES ('revenue-concurrency-test', 0) RETURNING id")) {
+                rs.next();
+                companyId = rs.getLong(1);
+            }
+            try (ResultSet rs = st.executeQuery(
+                    "INSERT INTO transports (id, startpoint, endpoint, departuredate, arrivaldate, transporttype, " +
+                    "price, paid, company_id) SELECT nextval('transports_seq'), 'A', 'B', DATE '2024-01-01', " +
+                    "DATE '2024-01-02', 'GOODS', " + PRICE + ", false, " + companyId +
+                    " FROM generate_series(1, " + TRANSPORTS + ") RETURNING id")) {
+                while (rs.next()) {
+                    transportIds.add(rs.getLong(1));
+                }
+            }
+        });
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (companyId == 0) {
+            return;
+        }
+        doWork(st -> {
+            st.execute("DELETE FROM transports WHERE company_id = " + companyId);
+            st.execute("DELETE FROM daily_revenue WHERE company_id = " + companyId);
+            st.execute("DELETE FROM transport_companies WHERE id = " + companyId);
+        });
+    }
+
+    @Test
+    void testConcurrentPaidTogglesNeverLoseOrDoubleCountRevenue() throws Exception {
+        BigDecimal start = revenue();
+
+        AtomicInteger paid = new AtomicInteger();
+        race(id -> {
+            if (transportService.markAsPaid(id)) {
+                paid.incrementAndGet();
+            }
+        });
+        assertEquals(TRANSPORTS, paid.get());
+        assertEquals(0, start.add(PRICE.multiply(BigDecimal.valueOf(TRANSPORTS))).compareTo(revenue()));
+
+        AtomicInteger unpaid = new AtomicInteger();
+        race(id -> {
+            if (transportService.markAsUnpaid(id)) {
+                unpaid.incrementAndGet();
+            }
+        });
+        assertEquals(TRANSPORTS, unpaid.get());
+        assertEquals(0, start.compareTo(revenue()));
+    }
+
+    @Test
+    void testConcurrentRevenueAdjustmentsAreAllApplied() throws Exception {
+        BigDecimal start = revenue();
+        int perThread = 250;
+
+        runConcurrently(() -> {
+            for (int i = 0; i < perThread; i++) {
+                companyService.updateRevenue(companyId, BigDecimal.ONE);
+            }
+        });
+
+        assertEquals(0, start.add(BigDecimal.valueOf((long) THREADS * perThread)).compareTo(revenue()));
+    }
+
+    // Every thread visits every transport, in its own shuffled order
+    private static void race(Consumer<Long> action) throws Exception {
+        runConcurrently(() -> {
+            List<Long> ids = new ArrayList<>(transportIds);
+            Collections.shuffle(ids);
+            ids.forEach(action);
+        });
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static BigDecimal revenue() {
+        BigDecimal[] result = new BigDecimal[1];
+        doWork(st -> {
+            try (ResultSet rs = st.executeQuery("SELECT revenue FROM transport_companies WHERE id = " + companyId)) {
+                rs.next();
+                result[0] = rs.getBigDecimal(1);
+            }
+        });
+        return result[0];
+    }
+
+    private interface SqlWork {
+        void execute(Statement statement) throws SQLException;
+    }
+
+    private static void doWork(SqlWork work) {
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement st = connection.createStatement()) {
+                    work.execute(st);
+                }
+            });
+            session.getTransaction().commit();
+        }
+    }
+}
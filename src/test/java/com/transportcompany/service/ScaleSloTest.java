@@ -0,0 +1,379 @@
+package com.transportcompany.service;
+
+import com.transportcompany.entity.TransportCompany;
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.ClientRepository;
+import com.transportcompany.repository.PageCursor;
+import com.transportcompany.repository.TransportRepository;
+import com.transportcompany.util.FileUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// End-to-end scale test: seeds a company with DataGenerator (5M transports by default) in the configured
+// PostgreSQL database, then times every ReportService method, every TransportRepository finder and the
+// export and import paths. Each operation prints p50/p95/p99 latency and peak heap, and fails when it
+// exceeds its SLO. The seeded company is kept, so later runs start measuring straight away.
+//
+// Run with: mvn test -Dtest=ScaleSloTest -Dtransport.scale=true [-Dhibernate.connection.url=...]
+//   -Dtransport.scale.transports=5000000  transports in the seeded company
+//   -Dtransport.scale.seed=1              DataGenerator seed
+//   -Dtransport.scale.iterations=20       timed runs of each cheap operation, after 2 warm-up runs
+//   -Dtransport.scale.heavyIterations=3   timed runs of operations that load or stream the whole company
+//   -Dtransport.scale.importRows=100000   rows in each import file
+// SLOs are unset unless given, in ms for latency and MB for heap, per operation or for all of them:
+//   -Dtransport.slo.finder.findByDriverId.p95=200  -Dtransport.slo.p99=5000  -Dtransport.slo.heapMb=2048
+@EnabledIfSystemProperty(named = "transport.scale", matches = "true")
+class ScaleSloTest {
+
+    private static final long TRANSPORTS = Long.getLong("transport.scale.transports", 5_000_000);
+    private static final long SEED = Long.getLong("transport.scale.seed", 1);
+    private static final int ITERATIONS = Integer.getInteger("transport.scale.iterations", 20);
+    private static final int HEAVY_ITERATIONS = Integer.getInteger("transport.scale.heavyIterations", 3);
+    private static final int WARMUP = 2;
+    private static final int IMPORT_ROWS = Integer.getInteger("transport.scale.importRows", 100_000);
+    private static final int PAGE_SIZE = 50;
+
+    private static final TransportCompanyService companyService = new TransportCompanyService();
+    private static final TransportService transportService = new TransportService();
+    private static final ReportService reportService = new ReportService();
+    private static final TransportRepository transportRepository = new TransportRepository();
+    private static final ClientRepository clientRepository = new ClientRepository();
+
+    private static DataGenerator.Config config;
+    private static long companyId;
+    private static long driverId;
+    private static long clientId;
+    private static long transportId;
+    private static LocalDate midDay;
+    private static Path directory;
+
+    @BeforeAll
+    static void seed() throws IOException {
+        config = new DataGenerator.Config();
+        config.seed = SEED;
+        config.namePrefix = "scale-" + TRANSPORTS + "-" + SEED;
+        config.employeesPerCompany = 200;
+        config.vehiclesPerType = 40;
+        config.clientsPerCompany = 2_000;
+        config.transportsPerCompany = TRANSPORTS;
+
+        Optional<TransportCompany> existing = companyService.findByName(config.namePrefix);
+        if (existing.isPresent() && transportService.countByCompany(existing.get().getId()) == TRANSPORTS) {
+            companyId = existing.get().getId();
+        } else {
+            existing.ifPresent(company -> companyService.delete(company.getId()));
+            DataGenerator.Result result = new DataGenerator().generate(config, loaded -> {});
+            System.out.printf("Seeded %,d transports in %.1f s%n", result.transports, result.millis / 1000.0);
+            companyId = result.companyIds.get(0);
+        }
+
+        driverId = reportService.getDriverStatistics(companyId).get(0).driverId;
+        clientId = clientRepository.findByCompanyId(companyId).get(0).getId();
+        transportId = transportRepository.findPageByCompanyId(companyId, null, 1).getItems().get(0).getId();
+        midDay = config.firstDay.plusDays(config.days / 2);
+        directory = Files.createTempDirectory("scale-test");
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testReportsMeetSlos() {
+        List<String> violations = new ArrayList<>();
+        LocalDate quarterEnd = midDay.plusDays(90);
+        TransportRepository.ReportFilter paidGoods = new TransportRepository.ReportFilter();
+        paidGoods.transportType = TransportType.GOODS;
+        paidGoods.paid = true;
+
+        measure("report.totalTransportsCount", ITERATIONS, () -> reportService.getTotalTransportsCount(companyId), violations);
+        measure("report.totalRevenue", ITERATIONS, () -> reportService.getTotalRevenue(companyId), violations);
+        measure("report.revenueForPeriod", ITERATIONS,
+                () -> reportService.getRevenueForPeriod(companyId, midDay, quarterEnd), violations);
+        measure("report.rebuildRevenueRollup", HEAVY_ITERATIONS,
+                () -> { reportService.rebuildRevenueRollup(companyId); return null; }, violations);
+        measure("report.driverStatistics", ITERATIONS, () -> reportService.getDriverStatistics(companyId), violations);
+        for (TransportRepository.GroupBy groupBy : TransportRepository.GroupBy.values()) {
+            measure("report.breakdown." + groupBy.name().toLowerCase(), ITERATIONS,
+                    () -> reportService.getBreakdown(companyId, groupBy, paidGoods), violations);
+        }
+        measure("report.revenueByDriver", ITERATIONS, () -> reportService.getRevenueByDriver(companyId), violations);
+        measure("report.transportsGroupedByDestination", HEAVY_ITERATIONS,
+                () -> reportService.getTransportsGroupedByDestination(companyId), violations);
+        measure("report.companySummary", ITERATIONS, () -> reportService.getCompanySummary(companyId), violations);
+        measure("report.textReport", ITERATIONS, () -> reportService.generateTextReport(companyId), violations);
+
+        assertTrue(violations.isEmpty(), () -> "SLOs exceeded:\n" + String.join("\n", violations));
+    }
+
+    @Test
+    void testFindersMeetSlos() {
+        List<String> violations = new ArrayList<>();
+        LocalDate weekEnd = midDay.plusDays(6);
+        String destination = DataGenerator.plan(config, 0).homeCity;
+
+        measure("finder.findById", ITERATIONS, () -> transportRepository.findById(transportId), violations);
+        measure("finder.count", ITERATIONS, transportRepository::count, violations);
+        measure("finder.findByCompanyId", HEAVY_ITERATIONS,
+                () -> transportRepository.findByCompanyId(companyId), violations);
+        measure("finder.findByCompanyIdSortedByDestination", HEAVY_ITERATIONS,
+                () -> transportRepository.findByCompanyIdSortedByDestination(companyId), violations);
+        measure("finder.findBookingsByCompany", HEAVY_ITERATIONS,
+                () -> transportRepository.findBookingsByCompany(companyId), violations);
+        measure("finder.findPageByCompanyId.first", ITERATIONS,
+                () -> transportRepository.findPageByCompanyId(companyId, null, PAGE_SIZE), violations);
+        measure("finder.findPageByCompanyId.deep", ITERATIONS,
+                () -> transportRepository.findPageByCompanyId(companyId, new PageCursor(midDay, 0L), PAGE_SIZE),
+                violations);
+        measure("finder.findPageByCompanyIdSortedByDestination.first", ITERATIONS,
+                () -> transportRepository.findPageByCompanyIdSortedByDestination(companyId, null, PAGE_SIZE),
+                violations);
+        measure("finder.findPageByCompanyIdSortedByDestination.deep", ITERATIONS,
+                () -> transportRepository.findPageByCompanyIdSortedByDestination(companyId,
+                        new PageCursor("M", 0L), PAGE_SIZE), violations);
+        measure("finder.forEachExportRow", HEAVY_ITERATIONS,
+                () -> transportRepository.forEachExportRow(companyId, row -> {}), violations);
+        measure("finder.forEachColumnRow", HEAVY_ITERATIONS,
+                () -> transportRepository.forEachColumnRow(companyId, row -> {}), violations);
+        for (TransportRepository.GroupBy groupBy : TransportRepository.GroupBy.values()) {
+            measure("finder.getBreakdown." + groupBy.name().toLowerCase(), ITERATIONS,
+                    () -> transportRepository.getBreakdown(companyId, groupBy, new TransportRepository.ReportFilter()),
+                    violations);
+        }
+        measure("finder.findByDriverId", ITERATIONS, () -> transportRepository.findByDriverId(driverId), violations);
+        measure("finder.findByClientId", ITERATIONS, () -> transportRepository.findByClientId(clientId), violations);
+        measure("finder.findUnpaidByClientId", ITERATIONS,
+                () -> transportRepository.findUnpaidByClientId(clientId), violations);
+        measure("finder.findByDateRange", ITERATIONS,
+                () -> transportRepository.findByDateRange(companyId, midDay, weekEnd), violations);
+        measure("finder.findByDestination", HEAVY_ITERATIONS,
+                () -> transportRepository.findByDestination(companyId, destination), violations);
+        measure("finder.findByTransportType", HEAVY_ITERATIONS,
+                () -> transportRepository.findByTransportType(companyId, TransportType.PASSENGERS), violations);
+        measure("finder.getTotalRevenueByCompany", ITERATIONS,
+                () -> transportRepository.getTotalRevenueByCompany(companyId), violations);
+        measure("finder.getTotalRevenueByDriver", ITERATIONS,
+                () -> transportRepository.getTotalRevenueByDriver(driverId), violations);
+        measure("finder.getRevenueByDateRange", ITERATIONS,
+                () -> transportRepository.getRevenueByDateRange(companyId, midDay, weekEnd), violations);
+        measure("finder.countByCompany", ITERATIONS, () -> transportRepository.countByCompany(companyId), violations);
+        measure("finder.getPaymentTotalsByCompany", ITERATIONS,
+                () -> transportRepository.getPaymentTotalsByCompany(companyId), violations);
+        measure("finder.getDriverStatistics", ITERATIONS,
+                () -> transportRepository.getDriverStatistics(companyId), violations);
+        measure("finder.countByDriver", ITERATIONS, () -> transportRepository.countByDriver(driverId), violations);
+
+        assertTrue(violations.isEmpty(), () -> "SLOs exceeded:\n" + String.join("\n", violations));
+    }
+
+    @Test
+    void testExportAndImportMeetSlos() throws IOException {
+        List<String> violations = new ArrayList<>();
+        Path json = directory.resolve("export.json");
+        Path jsonGzip = directory.resolve("export.json.gz");
+        Path csv = directory.resolve("export.csv");
+
+        measure("export.json", HEAVY_ITERATIONS, () -> exportJson(json), violations);
+        measure("export.jsonGzip", HEAVY_ITERATIONS, () -> exportJson(jsonGzip), violations);
+        measure("export.csv", HEAVY_ITERATIONS, () -> {
+            try (FileUtil.TransportCsvWriter writer = FileUtil.openTransportCsvWriter(csv.toString())) {
+                return transportService.forEachExportRow(companyId, new TransportRepository.ExportFilter(),
+                        writer::write);
+            }
+        }, violations);
+
+        // Each import runs into its own freshly generated company, with a file naming that company's staff
+        measureImports("import.json", violations, (target, file) -> {
+            TransportService.ImportResult result = transportService.importFromJson(target, file.toString(), row -> {});
+            assertEquals(IMPORT_ROWS, result.imported);
+            return result;
+        }, iteration -> writeImportFile(iteration, "json"));
+        measureImports("import.csvCopy", violations, (target, file) -> {
+            TransportService.BulkImportResult result = transportService.bulkImportCsv(target, file.toString(),
+                    directory.resolve("rejected.csv").toString());
+            assertEquals(IMPORT_ROWS, result.imported);
+            return result;
+        }, iteration -> writeImportFile(iteration, "csv"));
+
+        assertTrue(violations.isEmpty(), () -> "SLOs exceeded:\n" + String.join("\n", violations));
+    }
+
+    private static long exportJson(Path file) throws IOException {
+        try (FileUtil.TransportJsonWriter writer = FileUtil.openTransportJsonWriter(file.toString(), false)) {
+            return transportService.forEachExportRow(companyId, writer::write);
+        }
+    }
+
+    private interface Import {
+        Object run(long companyId, Path file) throws IOException;
+    }
+
+    private static class ImportTarget {
+        long companyId;
+        Path file;
+    }
+
+    // Generates the target company and its file, and deletes both afterwards, untimed; only the import
+    // itself is timed
+    private static void measureImports(String operation, List<String> violations, Import importer,
+                                       IntFunction<ImportTarget> target) {
+        int[] iteration = {0};
+        ImportTarget[] current = {null};
+        measure(operation, HEAVY_ITERATIONS, () -> importer.run(current[0].companyId, current[0].file), violations,
+                () -> current[0] = target.apply(iteration[0]++), () -> {
+                    companyService.delete(current[0].companyId);
+                    try {
+                        Files.deleteIfExists(current[0].file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static ImportTarget writeImportFile(int iteration, String format) {
+        DataGenerator.Config importConfig = new DataGenerator.Config();
+        importConfig.seed = SEED * 1_000 + iteration + (format.equals("json") ? 0 : 500);
+        importConfig.namePrefix = "scale-import-" + format + "-" + System.nanoTime();
+        importConfig.employeesPerCompany = config.employeesPerCompany;
+        importConfig.vehiclesPerType = config.vehiclesPerType;
+        importConfig.clientsPerCompany = config.clientsPerCompany;
+        importConfig.transportsPerCompany = 0;
+
+        ImportTarget target = new ImportTarget();
+        target.companyId = new DataGenerator().generate(importConfig, loaded -> {}).companyIds.get(0);
+        target.file = directory.resolve("import-" + iteration + "." + format);
+        importConfig.transportsPerCompany = IMPORT_ROWS;
+        DataGenerator.CompanyPlan plan = DataGenerator.plan(importConfig, 0);
+        try {
+            if (format.equals("json")) {
+                try (FileUtil.TransportJsonWriter writer =
+                             FileUtil.openTransportJsonWriter(target.file.toString(), false)) {
+                    for (int chunk = 0; chunk < DataGenerator.chunkCount(importConfig); chunk++) {
+                        DataGenerator.transportRows(importConfig, plan, chunk,
+                                row -> writer.write(FileUtil.TransportDTO.fromRow(row)));
+                    }
+                }
+            } else {
+                try (FileUtil.TransportCsvWriter writer = FileUtil.openTransportCsvWriter(target.file.toString())) {
+                    for (int chunk = 0; chunk < DataGenerator.chunkCount(importConfig); chunk++) {
+                        DataGenerator.transportRows(importConfig, plan, chunk, writer::write);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write " + target.file, e);
+        }
+        return target;
+    }
+
+    private static void measure(String operation, int iterations, Callable<Object> action, List<String> violations) {
+        measure(operation, iterations, action, violations, () -> {}, () -> {});
+    }
+
+    // Runs the warm-up and timed iterations, calling setUp untimed before each and tearDown untimed after
+    // each, and records the SLO violations. Peak heap is the largest sum of the heap pools' peak usage
+    // over a single iteration.
+    private static void measure(String operation, int iterations, Callable<Object> action, List<String> violations,
+                                Runnable setUp, Runnable tearDown) {
+        long[] nanos = new long[iterations];
+        long peakHeap = 0;
+        try {
+            for (int i = 0; i < WARMUP + iterations; i++) {
+                setUp.run();
+                if (i == WARMUP) {
+                    System.gc();
+                }
+                resetPeakHeap();
+                long elapsed;
+                long heap;
+                try {
+                    long start = System.nanoTime();
+                    action.call();
+                    elapsed = System.nanoTime() - start;
+                    heap = peakHeap();
+                } finally {
+                    tearDown.run();
+                }
+                if (i >= WARMUP) {
+                    nanos[i - WARMUP] = elapsed;
+                    peakHeap = Math.max(peakHeap, heap);
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(operation + " failed", e);
+        }
+
+        Arrays.sort(nanos);
+        double p50 = percentile(nanos, 50);
+        double p95 = percentile(nanos, 95);
+        double p99 = percentile(nanos, 99);
+        double heapMb = peakHeap / (1024.0 * 1024.0);
+        System.out.printf("%-55s p50 %9.1f ms  p95 %9.1f ms  p99 %9.1f ms  heap %7.1f MB%n",
+                operation, p50, p95, p99, heapMb);
+
+        check(operation, "p50", p50, violations);
+        check(operation, "p95", p95, violations);
+        check(operation, "p99", p99, violations);
+        check(operation, "heapMb", heapMb, violations);
+    }
+
+    // Nearest-rank percentile of sorted nanosecond timings, in ms
+    private static double percentile(long[] sortedNanos, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    private static void check(String operation, String metric, double value, List<String> violations) {
+        String limit = System.getProperty("transport.slo." + operation + "." + metric,
+                System.getProperty("transport.slo." + metric));
+        if (limit != null && value > Double.parseDouble(limit)) {
+            violations.add(String.format("%s %s %.1f > %s", operation, metric, value, limit));
+        }
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
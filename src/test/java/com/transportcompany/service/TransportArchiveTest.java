@@ -0,0 +1,232 @@
+package com.transportcompany.service;
+
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransportArchiveTest {
+
+    private static final LocalDate DAY = LocalDate.of(2020, 1, 1);
+
+    private Path directory;
+    private TransportArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("transport-archive");
+        archive = new TransportArchive(directory);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void testEmptyCompany() {
+        assertEquals(0, archive.totals(1L, null).transportCount);
+        assertEquals(0, BigDecimal.ZERO.compareTo(archive.paidRevenue(1L, null, null)));
+        assertTrue(archive.groupBy(1L, TransportRepository.GroupBy.DRIVER, null).isEmpty());
+    }
+
+    @Test
+    void testAppendedBlocksAreReadBackAcrossInstances() {
+        List<Object[]> first = List.of(
+                row(1, 0, 1, "100.50", TransportType.GOODS, 7L, "Sofia", "Varna"),
+                row(2, 10, 12, "50.00", TransportType.PASSENGERS, 8L, "Varna", "Sofia"),
+                row(3, 20, 20, "25.25", TransportType.GOODS, null, "Sofia", "Burgas"));
+        append(1L, first);
+        // Reads map the first block; the next one is picked up when the file grows
+        assertEquals(3, archive.totals(1L, null).transportCount);
+        append(1L, List.<Object[]>of(row(4, 40, 41, "10.00", TransportType.GOODS, 7L, "Ruse", "Varna")));
+
+        for (TransportArchive reader : List.of(archive, new TransportArchive(directory))) {
+            TransportColumnStore.Totals totals = reader.totals(1L, null);
+            assertEquals(4, totals.transportCount);
+            assertEquals(4, totals.paidCount);
+            assertEquals(new BigDecimal("185.75"), totals.paidRevenue);
+            assertEquals(2, reader.blocks(1L).size());
+
+            assertEquals(new BigDecimal("75.25"), reader.paidRevenue(1L, DAY.plusDays(10), DAY.plusDays(39)));
+            assertEquals(new BigDecimal("100.50"), reader.paidRevenue(1L, null, DAY.plusDays(9)));
+
+            Map<Object, TransportColumnStore.Totals> byDriver =
+                    reader.groupBy(1L, TransportRepository.GroupBy.DRIVER, null);
+            assertEquals(new BigDecimal("110.50"), byDriver.get(7L).paidRevenue);
+            assertEquals(2, byDriver.get(7L).transportCount);
+            assertEquals(1, byDriver.get(null).transportCount);
+
+            Map<Object, TransportColumnStore.Totals> byDestination =
+                    reader.groupBy(1L, TransportRepository.GroupBy.DESTINATION, null);
+            assertEquals(2, byDestination.get("Varna").transportCount);
+            assertEquals(new BigDecimal("25.25"), byDestination.get("Burgas").paidRevenue);
+
+            Map<Object, TransportColumnStore.Totals> byType = reader.groupBy(1L, TransportRepository.GroupBy.TYPE, null);
+            assertEquals(3, byType.get(TransportType.GOODS).transportCount);
+        }
+        assertEquals(0, archive.totals(2L, null).transportCount);
+    }
+
+    @Test
+    void testFilters() {
+        append(1L, List.of(
+                row(1, 0, 5, "10.00", TransportType.GOODS, 7L, "A", "Sofia"),
+                row(2, 1, 2, "20.00", TransportType.GOODS, 8L, "A", "Varna"),
+                row(3, 2, 3, "30.00", TransportType.PASSENGERS, 7L, "A", "Sofia")));
+
+        TransportRepository.ReportFilter filter = new TransportRepository.ReportFilter();
+        filter.startDate = DAY;
+        filter.endDate = DAY.plusDays(4);
+        assertEquals(new BigDecimal("50.00"), archive.totals(1L, filter).paidRevenue);
+
+        filter = new TransportRepository.ReportFilter();
+        filter.transportType = TransportType.GOODS;
+        filter.driverId = 7L;
+        assertEquals(new BigDecimal("10.00"), archive.totals(1L, filter).paidRevenue);
+
+        filter = new TransportRepository.ReportFilter();
+        filter.destination = "Sofia";
+        assertEquals(2, archive.totals(1L, filter).transportCount);
+        filter.destination = "Nowhere";
+        assertEquals(0, archive.totals(1L, filter).transportCount);
+
+        // Everything archived is paid
+        filter = new TransportRepository.ReportFilter();
+        filter.paid = false;
+        assertEquals(0, archive.totals(1L, filter).transportCount);
+    }
+
+    @Test
+    void testDiscardAndDelete() {
+        append(1L, List.<Object[]>of(row(1, 0, 0, "10.00", TransportType.GOODS, 7L, "A", "B")));
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            writer.append(List.<Object[]>of(row(2, 0, 0, "20.00", TransportType.GOODS, 7L, "A", "B")));
+            writer.discard();
+            writer.append(List.<Object[]>of(row(3, 0, 0, "5.00", TransportType.GOODS, 7L, "A", "B")));
+            writer.commit();
+        }
+        assertEquals(new BigDecimal("15.00"), archive.totals(1L, null).paidRevenue);
+
+        archive.delete(1L);
+        assertEquals(0, archive.totals(1L, null).transportCount);
+    }
+
+    @Test
+    void testPendingBlockIsHiddenUntilCommitted() {
+        append(1L, List.<Object[]>of(row(1, 0, 0, "10.00", TransportType.GOODS, 7L, "A", "B")));
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            writer.append(List.<Object[]>of(row(2, 0, 0, "20.00", TransportType.GOODS, 7L, "A", "B")));
+            assertEquals(1, archive.totals(1L, null).transportCount);
+            assertEquals(1, new TransportArchive(directory).totals(1L, null).transportCount);
+            assertThrows(IllegalStateException.class, () -> writer.append(
+                    List.<Object[]>of(row(3, 0, 0, "5.00", TransportType.GOODS, 7L, "A", "B"))));
+            writer.commit();
+            assertEquals(new BigDecimal("30.00"), archive.totals(1L, null).paidRevenue);
+        }
+    }
+
+    @Test
+    void testRecoverKeepsOrDropsABlockLeftPending() {
+        append(1L, List.<Object[]>of(row(1, 0, 0, "10.00", TransportType.GOODS, 7L, "A", "B")));
+        // A run that stopped after its append: recover cuts the block off while its rows are still live
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            writer.append(List.<Object[]>of(row(2, 0, 0, "20.00", TransportType.GOODS, 7L, "A", "B")));
+        }
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            assertFalse(writer.recover(ids -> {
+                assertEquals(List.of(2L), ids);
+                return false;
+            }));
+            assertFalse(writer.recover(ids -> fail("nothing pending")));
+        }
+        assertEquals(new BigDecimal("10.00"), archive.totals(1L, null).paidRevenue);
+
+        // and keeps it once they are gone
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            writer.append(List.<Object[]>of(row(3, 0, 0, "5.00", TransportType.GOODS, 7L, "A", "B")));
+        }
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            assertTrue(writer.recover(ids -> true));
+        }
+        assertEquals(new BigDecimal("15.00"), new TransportArchive(directory).totals(1L, null).paidRevenue);
+    }
+
+    @Test
+    void testRecoverDropsATornBlock() throws IOException {
+        append(1L, List.<Object[]>of(row(1, 0, 0, "10.00", TransportType.GOODS, 7L, "A", "B")));
+        Files.write(archiveFile(), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        assertEquals(1, archive.totals(1L, null).transportCount);
+
+        try (TransportArchive.Writer writer = archive.openWriter(1L)) {
+            assertFalse(writer.recover(ids -> fail("torn block")));
+            writer.append(List.<Object[]>of(row(2, 0, 0, "20.00", TransportType.GOODS, 7L, "A", "B")));
+            writer.commit();
+        }
+        assertEquals(new BigDecimal("30.00"), new TransportArchive(directory).totals(1L, null).paidRevenue);
+    }
+
+    @Test
+    void testManyRowsInOneBlock() {
+        List<Object[]> rows = new ArrayList<>();
+        long cents = 0;
+        for (int i = 1; i <= 20_000; i++) {
+            rows.add(row(i, i % 365, i % 365 + 1, BigDecimal.valueOf(i, 2).toPlainString(), TransportType.GOODS,
+                    (long) (i % 50 + 1), "From " + (i % 7), "To " + (i % 13)));
+            cents += i;
+        }
+        append(1L, rows);
+        assertEquals(BigDecimal.valueOf(cents, 2), archive.paidRevenue(1L, null, null));
+        assertEquals(50, archive.groupBy(1L, TransportRepository.GroupBy.DRIVER, null).size());
+        assertEquals(13, archive.groupBy(1L, TransportRepository.GroupBy.DESTINATION, null).size());
+    }
+
+    @Test
+    void testCorruptTrailerIsRejected() throws IOException {
+        append(1L, List.<Object[]>of(row(1, 0, 0, "10.00", TransportType.GOODS, 7L, "A", "B")));
+        try (FileChannel channel = FileChannel.open(archiveFile(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), channel.size() - 4);
+        }
+        assertThrows(IllegalStateException.class, () -> new TransportArchive(directory).totals(1L, null));
+    }
+
+    private void append(Long companyId, List<Object[]> rows) {
+        try (TransportArchive.Writer writer = archive.openWriter(companyId)) {
+            writer.append(rows);
+            writer.commit();
+        }
+    }
+
+    private Path archiveFile() {
+        return directory.resolve("company-1.tca");
+    }
+
+    // The layout TransportRepository.lockArchivable returns; native queries may hand back java.sql.Date
+    private static Object[] row(long id, int departure, int arrival, String price, TransportType type, Long driverId,
+                                String startPoint, String endPoint) {
+        return new Object[] {id, Date.valueOf(DAY.plusDays(departure)), DAY.plusDays(arrival), new BigDecimal(price),
+                type.name(), driverId, 1L, 2L, startPoint, endPoint};
+    }
+}
@@ -0,0 +1,243 @@
+package com.transportcompany.service;
+
+import com.transportcompany.enums.TransportType;
+import com.transportcompany.repository.TransportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransportColumnStoreTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+    private TransportColumnStore.CompanyColumns columns;
+
+    @BeforeEach
+    void setUp() {
+        columns = new TransportColumnStore.CompanyColumns();
+    }
+
+    @Test
+    void testEmptyTotals() {
+        TransportColumnStore.Totals totals = columns.totals(null);
+        assertEquals(0, totals.transportCount);
+        assertEquals(0, BigDecimal.ZERO.compareTo(totals.paidRevenue));
+        assertTrue(columns.groupBy(TransportRepository.GroupBy.DRIVER, null).isEmpty());
+    }
+
+    @Test
+    void testTotalsSplitPaidAndUnpaid() {
+        put(1, 0, "10.50", TransportType.GOODS, true, 7L, "Sofia");
+        put(2, 1, "20.25", TransportType.GOODS, false, 7L, "Varna");
+        put(3, 2, "5.00", TransportType.PASSENGERS, true, null, "Sofia");
+
+        TransportColumnStore.Totals totals = columns.totals(null);
+        assertEquals(3, totals.transportCount);
+        assertEquals(2, totals.paidCount);
+        assertEquals(new BigDecimal("15.50"), totals.paidRevenue);
+        assertEquals(new BigDecimal("20.25"), totals.unpaidAmount);
+    }
+
+    @Test
+    void testGroupByKeysAndNullGroup() {
+        put(1, 0, "10.00", TransportType.GOODS, true, 7L, "Sofia");
+        put(2, 1, "20.00", TransportType.GOODS, true, 8L, "Varna");
+        put(3, 2, "5.00", TransportType.PASSENGERS, true, null, "Sofia");
+
+        Map<Object, TransportColumnStore.Totals> byDriver = columns.groupBy(TransportRepository.GroupBy.DRIVER, null);
+        assertEquals(new BigDecimal("10.00"), byDriver.get(7L).paidRevenue);
+        assertEquals(new BigDecimal("20.00"), byDriver.get(8L).paidRevenue);
+        assertEquals(1, byDriver.get(null).transportCount);
+
+        Map<Object, TransportColumnStore.Totals> byDestination =
+                columns.groupBy(TransportRepository.GroupBy.DESTINATION, null);
+        assertEquals(2, byDestination.get("Sofia").transportCount);
+
+        Map<Object, TransportColumnStore.Totals> byType = columns.groupBy(TransportRepository.GroupBy.TYPE, null);
+        assertEquals(2, byType.get(TransportType.GOODS).transportCount);
+        assertEquals(1, byType.get(TransportType.PASSENGERS).transportCount);
+    }
+
+    @Test
+    void testFilterUsesFindByDateRangeSemantics() {
+        // Departs inside the range but arrives after it
+        columns.put(1L, DAY, DAY.plusDays(10), new BigDecimal("1.00"), TransportType.GOODS, true, null, null, null, "X");
+        columns.put(2L, DAY.plusDays(1), DAY.plusDays(2), new BigDecimal("2.00"), TransportType.GOODS, true,
+                null, null, null, "X");
+
+        TransportRepository.ReportFilter filter = new TransportRepository.ReportFilter();
+        filter.startDate = DAY;
+        filter.endDate = DAY.plusDays(5);
+        assertEquals(new BigDecimal("2.00"), columns.totals(filter).paidRevenue);
+    }
+
+    @Test
+    void testUnknownDriverOrDestinationMatchesNothing() {
+        put(1, 0, "10.00", TransportType.GOODS, true, 7L, "Sofia");
+
+        TransportRepository.ReportFilter filter = new TransportRepository.ReportFilter();
+        filter.driverId = 99L;
+        assertEquals(0, columns.totals(filter).transportCount);
+
+        filter = new TransportRepository.ReportFilter();
+        filter.destination = "Nowhere";
+        assertEquals(0, columns.totals(filter).transportCount);
+    }
+
+    @Test
+    void testUpdatesPaidFlagsAndRemovals() {
+        put(1, 0, "10.00", TransportType.GOODS, false, 7L, "Sofia");
+        put(2, 1, "20.00", TransportType.GOODS, true, 7L, "Sofia");
+        put(3, 2, "30.00", TransportType.GOODS, false, 8L, "Varna");
+
+        assertTrue(columns.setPaid(1L, true));
+        assertFalse(columns.setPaid(42L, true));
+        assertEquals(new BigDecimal("30.00"), columns.totals(null).paidRevenue);
+
+        // Overwrite in place
+        put(2, 1, "25.00", TransportType.GOODS, true, 8L, "Varna");
+        assertEquals(3, columns.size());
+        assertEquals(new BigDecimal("35.00"), columns.totals(null).paidRevenue);
+
+        // Removing the first row moves the last one into its slot, paid flag included
+        assertTrue(columns.remove(1L));
+        assertFalse(columns.remove(1L));
+        assertEquals(2, columns.size());
+        TransportColumnStore.Totals totals = columns.totals(null);
+        assertEquals(new BigDecimal("25.00"), totals.paidRevenue);
+        assertEquals(new BigDecimal("30.00"), totals.unpaidAmount);
+        assertTrue(columns.setPaid(3L, true));
+        assertEquals(new BigDecimal("55.00"), columns.totals(null).paidRevenue);
+    }
+
+    @Test
+    void testParallelScanMatchesBruteForce() {
+        Random random = new Random(20);
+        int rows = TransportColumnStore.SEGMENT_SIZE * 3 + 123;
+        String[] destinations = {"Sofia", "Varna", "Burgas", "Plovdiv", "Ruse"};
+        List<Object[]> expected = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            int day = random.nextInt(365);
+            int arrival = day + random.nextInt(3);
+            long cents = 100 + random.nextInt(100_000);
+            TransportType type = random.nextInt(4) == 0 ? TransportType.PASSENGERS : TransportType.GOODS;
+            boolean paid = random.nextBoolean();
+            Long driver = random.nextInt(50) == 0 ? null : (long) random.nextInt(200);
+            String destination = destinations[random.nextInt(destinations.length)];
+            columns.put(id, DAY.plusDays(day), DAY.plusDays(arrival), BigDecimal.valueOf(cents, 2),
+                    type, paid, driver, null, null, destination);
+            expected.add(new Object[] {id, day, cents, type, paid, driver, arrival});
+        }
+        // Churn: drop every seventh row and flip every eleventh
+        for (int i = 0; i < rows; i += 7) {
+            columns.remove((Long) expected.get(i)[0]);
+            expected.set(i, null);
+        }
+        for (int i = 0; i < rows; i += 11) {
+            if (expected.get(i) != null) {
+                boolean paid = !(Boolean) expected.get(i)[4];
+                expected.get(i)[4] = paid;
+                columns.setPaid((Long) expected.get(i)[0], paid);
+            }
+        }
+
+        TransportRepository.ReportFilter filter = new TransportRepository.ReportFilter();
+        filter.startDate = DAY.plusDays(30);
+        filter.endDate = DAY.plusDays(200);
+        filter.transportType = TransportType.GOODS;
+
+        Map<Object, long[]> brute = new HashMap<>();
+        for (Object[] row : expected) {
+            if (row == null) {
+                continue;
+            }
+            if ((Integer) row[1] < 30 || (Integer) row[6] > 200 || row[3] != TransportType.GOODS) {
+                continue;
+            }
+            long[] sums = brute.computeIfAbsent(row[5], k -> new long[3]);
+            sums[0]++;
+            if ((Boolean) row[4]) {
+                sums[1] += (Long) row[2];
+            } else {
+                sums[2] += (Long) row[2];
+            }
+        }
+
+        Map<Object, TransportColumnStore.Totals> byDriver = columns.groupBy(TransportRepository.GroupBy.DRIVER, filter);
+        assertEquals(brute.size(), byDriver.size());
+        brute.forEach((driver, sums) -> {
+            TransportColumnStore.Totals totals = byDriver.get(driver);
+            assertNotNull(totals, "driver " + driver);
+            assertEquals(sums[0], totals.transportCount);
+            assertEquals(BigDecimal.valueOf(sums[1], 2), totals.paidRevenue);
+            assertEquals(BigDecimal.valueOf(sums[2], 2), totals.unpaidAmount);
+        });
+    }
+
+    // Serves one column row per load and runs duringLoad in the middle of the scroll
+    private static class FakeRepository extends TransportRepository {
+        int loads;
+        Runnable duringLoad = () -> {};
+
+        @Override
+        public long forEachColumnRow(Long companyId, Consumer<Object[]> action) {
+            loads++;
+            duringLoad.run();
+            action.accept(new Object[] {1L, DAY, DAY, new BigDecimal("10.00"), TransportType.GOODS, false,
+                    null, null, null, "Sofia"});
+            return 1;
+        }
+    }
+
+    @Test
+    void testLoadRacingAChangeIsNotPublished() {
+        FakeRepository repository = new FakeRepository();
+        TransportColumnStore store = new TransportColumnStore(repository, true);
+        repository.duringLoad = () -> {
+            repository.duringLoad = () -> {};
+            store.paidChanged(1L, 1L, true);
+        };
+
+        TransportColumnStore.CompanyColumns loaded = store.forCompany(1L);
+        assertEquals(2, repository.loads);
+        assertSame(loaded, store.forCompany(1L));
+        assertEquals(2, repository.loads);
+
+        store.paidChanged(1L, 1L, true);
+        assertEquals(new BigDecimal("10.00"), loaded.totals(null).paidRevenue);
+    }
+
+    @Test
+    void testLoadGivesUpRetryingUnderConstantChanges() {
+        FakeRepository repository = new FakeRepository();
+        TransportColumnStore store = new TransportColumnStore(repository, true);
+        repository.duringLoad = () -> store.invalidateAll();
+
+        TransportColumnStore.CompanyColumns first = store.forCompany(1L);
+        assertEquals(1, first.size());
+        int loads = repository.loads;
+        assertTrue(loads > 1);
+        assertNotSame(first, store.forCompany(1L));
+        assertEquals(2 * loads, repository.loads);
+
+        repository.duringLoad = () -> {};
+        TransportColumnStore.CompanyColumns published = store.forCompany(1L);
+        assertSame(published, store.forCompany(1L));
+    }
+
+    private void put(long id, int day, String price, TransportType type, boolean paid, Long driverId,
+                     String destination) {
+        columns.put(id, DAY.plusDays(day), DAY.plusDays(day), new BigDecimal(price), type, paid, driverId,
+                null, null, destination);
+    }
+}
@@ -0,0 +1,59 @@
+package com.transportcompany.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    private StringWriter out;
+    private CsvWriter csv;
+
+    @BeforeEach
+    void setUp() {
+        out = new StringWriter();
+        csv = new CsvWriter(out);
+    }
+
+    @Test
+    void testPlainFieldsAreNotQuoted() throws IOException {
+        csv.value(1L).field("Sofia").value(LocalDate.of(2024, 5, 1)).value(new BigDecimal("150.00")).value(true);
+        csv.endRow();
+        assertEquals("1,Sofia,2024-05-01,150.00,true" + System.lineSeparator(), out.toString());
+    }
+
+    @Test
+    void testNullsAreEmptyFields() throws IOException {
+        csv.field(null).value(null).field("x");
+        csv.endRow();
+        assertEquals(",,x" + System.lineSeparator(), out.toString());
+    }
+
+    @Test
+    void testCommaQuoteAndLineBreakAreEscaped() throws IOException {
+        csv.field("Plovdiv, BG").field("say \"hi\"").field("two\nlines").field("cr\rhere");
+        assertEquals("\"Plovdiv, BG\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"", out.toString());
+    }
+
+    @Test
+    void testQuoteBeforeFirstSpecialCharacterIsKept() throws IOException {
+        csv.field("abc\"def,ghi");
+        assertEquals("\"abc\"\"def,ghi\"", out.toString());
+    }
+
+    @Test
+    void testRowsRestartSeparators() throws IOException {
+        csv.field("a").field("b");
+        csv.endRow();
+        csv.field("c");
+        csv.endRow();
+        String nl = System.lineSeparator();
+        assertEquals("a,b" + nl + "c" + nl, out.toString());
+    }
+}
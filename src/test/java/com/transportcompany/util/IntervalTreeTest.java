@@ -0,0 +1,98 @@
+package com.transportcompany.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    private IntervalTree<String> tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new IntervalTree<>();
+    }
+
+    @Test
+    void testEmptyTree() {
+        assertTrue(tree.isEmpty());
+        assertFalse(tree.overlaps(0, 100));
+        assertTrue(tree.findOverlapping(0, 100).isEmpty());
+    }
+
+    @Test
+    void testClosedIntervalsTouchingAtEndpointsOverlap() {
+        tree.insert(10, 20, "a");
+        assertTrue(tree.overlaps(20, 25));
+        assertTrue(tree.overlaps(5, 10));
+        assertFalse(tree.overlaps(21, 30));
+        assertFalse(tree.overlaps(0, 9));
+    }
+
+    @Test
+    void testFindOverlappingReturnsOnlyOverlaps() {
+        tree.insert(1, 3, "a");
+        tree.insert(5, 8, "b");
+        tree.insert(7, 12, "c");
+        tree.insert(15, 15, "d");
+
+        assertEquals(Set.of("b", "c"), new HashSet<>(tree.findOverlapping(6, 7)));
+        assertEquals(Set.of("c", "d"), new HashSet<>(tree.findOverlapping(10, 20)));
+        assertEquals(4, tree.size());
+    }
+
+    @Test
+    void testRemoveMatchesIntervalAndValue() {
+        tree.insert(5, 8, "a");
+        tree.insert(5, 8, "b");
+
+        assertFalse(tree.remove(5, 8, "c"));
+        assertFalse(tree.remove(5, 9, "a"));
+        assertTrue(tree.remove(5, 8, "a"));
+        assertEquals(List.of("b"), tree.findOverlapping(0, 100));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    void testRejectsReversedInterval() {
+        assertThrows(IllegalArgumentException.class, () -> tree.insert(10, 5, "x"));
+    }
+
+    @Test
+    void testMatchesBruteForceUnderRandomInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree<Integer> ids = new IntervalTree<>();
+        List<long[]> live = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            if (!live.isEmpty() && random.nextInt(4) == 0) {
+                long[] victim = live.remove(random.nextInt(live.size()));
+                assertTrue(ids.remove(victim[0], victim[1], (int) victim[2]));
+            } else {
+                long start = random.nextInt(1000);
+                long end = start + random.nextInt(30);
+                ids.insert(start, end, i);
+                live.add(new long[] {start, end, i});
+            }
+
+            long qs = random.nextInt(1000);
+            long qe = qs + random.nextInt(50);
+            Set<Integer> expected = new HashSet<>();
+            for (long[] interval : live) {
+                if (interval[0] <= qe && interval[1] >= qs) {
+                    expected.add((int) interval[2]);
+                }
+            }
+            assertEquals(expected, new HashSet<>(ids.findOverlapping(qs, qe)));
+            assertEquals(!expected.isEmpty(), ids.overlaps(qs, qe));
+            assertEquals(live.size(), ids.size());
+        }
+    }
+}